@@ -0,0 +1,117 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.MonkeyFunctionInterface;
+import com.coolstuff.evaluator.OutputSink;
+import com.coolstuff.evaluator.object.*;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One call of each builtin on a {@code size}-element integer array. {@code next} and {@code release} are left out:
+ * a call consumes a line or the array, so every invocation would need a fresh one; {@code withOffHeap} covers
+ * allocating and releasing an off-heap copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuiltInFunctionsBenchmark {
+    @Param({"len", "first", "last", "rest", "push", "range", "map", "filter", "reduce", "each", "sort", "sortBy",
+            "sum", "min", "max", "dot", "vadd", "vmul", "scale", "offHeap", "withOffHeap",
+            "lines", "readFile", "writeFile", "appendFile", "mmap_ints", "mmap_bytes", "puts", "flush"})
+    String builtin;
+
+    @Param({"1000"})
+    int size;
+
+    private final Token callToken = new Token(TokenType.LPAREN, "(", 1, 1);
+
+    Evaluator evaluator;
+    MonkeyFunctionInterface function;
+    MonkeyObject<?>[] arguments;
+    Path directory;
+
+    @Setup
+    public void setUp() throws EvaluationException, IOException {
+        // puts writes to a discarded sink, flushed like the console's to keep the per-line cost
+        evaluator = new Evaluator(new OutputSink(OutputStream.nullOutputStream(), StandardCharsets.UTF_8, 8192, 1));
+        function = BuiltInFunctions.getFunction(builtin).orElseThrow().getObject();
+
+        var elements = new ArrayList<MonkeyObject<?>>(size);
+        var text = new StringBuilder();
+        var longs = ByteBuffer.allocate(size * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < size; i++) {
+            elements.add(MonkeyInteger.valueOf(i));
+            text.append("line ").append(i).append('\n');
+            longs.putLong(i);
+        }
+        var array = new MonkeyArray(elements);
+
+        directory = Files.createTempDirectory("monkey-builtins");
+        var textFile = new MonkeyString(Files.writeString(directory.resolve("lines.txt"), text).toString());
+        var intsFile = new MonkeyString(Files.write(directory.resolve("ints.bin"), longs.array()).toString());
+        var outputFile = new MonkeyString(directory.resolve("output.txt").toString());
+
+        arguments = switch (builtin) {
+            case "push" -> new MonkeyObject<?>[]{array, MonkeyInteger.valueOf(size)};
+            case "range" -> new MonkeyObject<?>[]{MonkeyInteger.valueOf(size)};
+            case "map" -> new MonkeyObject<?>[]{array, callback("fn(x) { x * 2 }")};
+            case "filter" -> new MonkeyObject<?>[]{array, callback("fn(x) { x / 2 * 2 == x }")};
+            case "reduce" -> new MonkeyObject<?>[]{array, MonkeyInteger.valueOf(0), callback("fn(acc, x) { acc + x }")};
+            case "each" -> new MonkeyObject<?>[]{array, callback("fn(x) { x }")};
+            case "sortBy" -> new MonkeyObject<?>[]{array, callback("fn(x) { -x }")};
+            case "dot", "vadd", "vmul" -> new MonkeyObject<?>[]{array, array};
+            case "scale" -> new MonkeyObject<?>[]{array, MonkeyInteger.valueOf(3)};
+            case "withOffHeap" -> new MonkeyObject<?>[]{array, callback("fn(a) { len(a) }")};
+            case "lines", "readFile" -> new MonkeyObject<?>[]{textFile};
+            case "mmap_ints", "mmap_bytes" -> new MonkeyObject<?>[]{intsFile};
+            case "writeFile" -> new MonkeyObject<?>[]{outputFile, array};
+            case "appendFile" -> new MonkeyObject<?>[]{outputFile, new MonkeyString("monkey")};
+            case "puts" -> new MonkeyObject<?>[]{new MonkeyString("monkey"), MonkeyInteger.valueOf(size)};
+            case "flush" -> new MonkeyObject<?>[0];
+            default -> new MonkeyObject<?>[]{array};
+        };
+    }
+
+    private MonkeyObject<?> callback(String source) throws EvaluationException {
+        var parser = new Parser(new Lexer(source));
+        var program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("Callback %s does not parse: %s".formatted(source, parser.getErrors()));
+        }
+        return evaluator.eval(program);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public MonkeyObject<?> apply() throws EvaluationException {
+        return function.apply(callToken, arguments, evaluator);
+    }
+}
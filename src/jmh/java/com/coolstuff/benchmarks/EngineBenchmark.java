@@ -0,0 +1,82 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.ast.Program;
+import com.coolstuff.closure.ClosureCompiler;
+import com.coolstuff.closure.CompiledProgram;
+import com.coolstuff.compiler.Bytecode;
+import com.coolstuff.compiler.Compiler;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.nodes.NodeCompiler;
+import com.coolstuff.nodes.ProgramNode;
+import com.coolstuff.parser.Parser;
+import com.coolstuff.vm.VM;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same programs on every execution engine, each as the CLI runs it: a recursive call-heavy {@code fib} and a
+ * top-level {@code loop} of arithmetic and {@code let} rebinding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({"fib", "loop"})
+    String workload;
+
+    Program program;
+    Bytecode bytecode;
+    ProgramNode nodes;
+    CompiledProgram closures;
+
+    @Setup
+    public void setUp() {
+        var source = switch (workload) {
+            case "fib" -> Sources.FIB;
+            case "loop" -> Sources.WHILE_SUM;
+            default -> throw new IllegalArgumentException("Unknown workload " + workload);
+        };
+        var parser = new Parser(new Lexer(source));
+        program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("Workload %s does not parse: %s".formatted(workload, parser.getErrors()));
+        }
+        bytecode = new Compiler().compile(program);
+        nodes = new NodeCompiler().compile(program);
+        closures = new ClosureCompiler().compile(program);
+    }
+
+    @Benchmark
+    public MonkeyObject<?> eval() throws EvaluationException {
+        return new Evaluator().eval(program);
+    }
+
+    // the evaluator without its JIT, the baseline for monkey.jit.threshold
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dmonkey.jit.threshold=0")
+    public MonkeyObject<?> evalInterpreted() throws EvaluationException {
+        return new Evaluator().eval(program);
+    }
+
+    @Benchmark
+    public MonkeyObject<?> vm() throws EvaluationException {
+        return new VM(bytecode).run();
+    }
+
+    @Benchmark
+    public MonkeyObject<?> nodes() throws EvaluationException {
+        return nodes.execute(new Evaluator());
+    }
+
+    @Benchmark
+    public MonkeyObject<?> closure() throws EvaluationException {
+        return closures.execute(new Evaluator());
+    }
+}
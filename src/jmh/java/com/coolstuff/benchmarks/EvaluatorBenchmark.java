@@ -0,0 +1,45 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.ast.Program;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    @Param({"fib", "whileSum", "hashArrayBuild", "stringConcat"})
+    String workload;
+
+    Program program;
+
+    @Setup
+    public void setUp() {
+        var source = switch (workload) {
+            case "fib" -> Sources.FIB;
+            case "whileSum" -> Sources.WHILE_SUM;
+            case "hashArrayBuild" -> Sources.HASH_ARRAY_BUILD;
+            case "stringConcat" -> Sources.STRING_CONCAT;
+            default -> throw new IllegalArgumentException("Unknown workload " + workload);
+        };
+        var parser = new Parser(new Lexer(source));
+        program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("Workload %s does not parse: %s".formatted(workload, parser.getErrors()));
+        }
+    }
+
+    @Benchmark
+    public MonkeyObject<?> evaluator() throws EvaluationException {
+        return new Evaluator().eval(program);
+    }
+}
@@ -0,0 +1,37 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.token.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"100", "1000"})
+    int functions;
+
+    String source;
+
+    @Setup
+    public void setUp() {
+        source = Sources.generate(functions);
+    }
+
+    @Benchmark
+    public int nextToken(Blackhole blackhole) {
+        var lexer = new Lexer(source);
+        var count = 0;
+        for (var token = lexer.nextToken(); token.type() != TokenType.EOF; token = lexer.nextToken()) {
+            blackhole.consume(token);
+            count++;
+        }
+        return count;
+    }
+}
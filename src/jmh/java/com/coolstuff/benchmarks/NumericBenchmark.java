@@ -0,0 +1,97 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.ast.Program;
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.MonkeyFunctionInterface;
+import com.coolstuff.evaluator.object.*;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric builtins on packed integer arrays: SIMD kernels (forked with the incubator module), scalar kernels, and the
+ * equivalent interpreted {@code while} loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NumericBenchmark {
+    @Param({"sum", "min", "max", "dot", "vadd", "vmul", "scale"})
+    String builtin;
+
+    @Param({"100000"})
+    int size;
+
+    private final Token callToken = new Token(TokenType.LPAREN, "(", 1, 1);
+    private final Evaluator evaluator = new Evaluator();
+
+    MonkeyFunctionInterface function;
+    MonkeyObject<?>[] arguments;
+    Program loop;
+
+    @Setup
+    public void setUp() throws EvaluationException {
+        function = BuiltInFunctions.getFunction(builtin).orElseThrow().getObject();
+        var xs = new long[size];
+        var ys = new long[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = i * 7L - 3;
+            ys[i] = size - i;
+        }
+        var left = new MonkeyArray(PackedVector.ofLongs(xs));
+        var right = new MonkeyArray(PackedVector.ofLongs(ys));
+        arguments = switch (builtin) {
+            case "sum", "min", "max" -> new MonkeyObject<?>[]{left};
+            case "scale" -> new MonkeyObject<?>[]{left, MonkeyInteger.valueOf(3)};
+            default -> new MonkeyObject<?>[]{left, right};
+        };
+
+        evaluator.eval(parse("let xs = map(range(%d), fn(i) { i * 7 - 3 }); let ys = map(range(%d), fn(i) { %d - i });"
+                .formatted(size, size, size)));
+        loop = parse(switch (builtin) {
+            case "sum" -> "let s = 0; let i = 0; while (i < len(xs)) { let s = s + xs[i]; let i = i + 1; } s";
+            case "min" -> "let m = xs[0]; let i = 1; while (i < len(xs)) { if (xs[i] < m) { let m = xs[i]; } let i = i + 1; } m";
+            case "max" -> "let m = xs[0]; let i = 1; while (i < len(xs)) { if (xs[i] > m) { let m = xs[i]; } let i = i + 1; } m";
+            case "dot" -> "let s = 0; let i = 0; while (i < len(xs)) { let s = s + xs[i] * ys[i]; let i = i + 1; } s";
+            case "vadd" -> "let r = []; let i = 0; while (i < len(xs)) { let r = push(r, xs[i] + ys[i]); let i = i + 1; } r";
+            case "vmul" -> "let r = []; let i = 0; while (i < len(xs)) { let r = push(r, xs[i] * ys[i]); let i = i + 1; } r";
+            case "scale" -> "let r = []; let i = 0; while (i < len(xs)) { let r = push(r, xs[i] * 3); let i = i + 1; } r";
+            default -> throw new IllegalArgumentException("Unknown builtin " + builtin);
+        });
+    }
+
+    private static Program parse(String source) {
+        var parser = new Parser(new Lexer(source));
+        var program = parser.parseProgram();
+        if (!parser.getErrors().isEmpty()) {
+            throw new IllegalStateException("Benchmark source does not parse: %s".formatted(parser.getErrors()));
+        }
+        return program;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public MonkeyObject<?> simd() throws EvaluationException {
+        return function.apply(callToken, arguments, evaluator);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dmonkey.simd=false")
+    public MonkeyObject<?> scalar() throws EvaluationException {
+        return function.apply(callToken, arguments, evaluator);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public MonkeyObject<?> interpreted() throws EvaluationException {
+        return evaluator.eval(loop);
+    }
+}
@@ -0,0 +1,31 @@
+package com.coolstuff.benchmarks;
+
+import com.coolstuff.ast.Program;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"100", "1000"})
+    int functions;
+
+    String source;
+
+    @Setup
+    public void setUp() {
+        source = Sources.generate(functions);
+    }
+
+    @Benchmark
+    public Program parseProgram() {
+        return new Parser(new Lexer(source)).parseProgram();
+    }
+}
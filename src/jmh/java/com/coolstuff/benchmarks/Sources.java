@@ -0,0 +1,58 @@
+package com.coolstuff.benchmarks;
+
+final class Sources {
+    static final String FIB = """
+            let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) };
+            fib(20);
+            """;
+
+    static final String WHILE_SUM = """
+            let i = 0;
+            let sum = 0;
+            while (i < 100000) {
+                let sum = sum + i;
+                let i = i + 1;
+            }
+            sum;
+            """;
+
+    static final String HASH_ARRAY_BUILD = """
+            let i = 0;
+            let items = [];
+            let index = {};
+            while (i < 1000) {
+                let items = push(items, i * 2);
+                let index = {i: len(items), "last": i};
+                let i = i + 1;
+            }
+            len(items) + index["last"];
+            """;
+
+    static final String STRING_CONCAT = """
+            let i = 0;
+            let text = "";
+            while (i < 2000) {
+                let text = text + "monkey";
+                let i = i + 1;
+            }
+            len(text);
+            """;
+
+    private Sources() {
+    }
+
+    static String generate(int functions) {
+        var builder = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            builder.append("""
+                    let f%1$d = fn(a, b) {
+                        let c = [a, b, "s%1$d", {"k": a * %1$d}];
+                        if (a < b) { return c[0] + -b; } else { a / (b + 1) == %1$d; }
+                        while (!(a > b)) { let a = a + 1; if (a == 3) { break; } }
+                        f%1$d(len(c), first(rest(c)));
+                    };
+                    """.formatted(i));
+        }
+        return builder.toString();
+    }
+}
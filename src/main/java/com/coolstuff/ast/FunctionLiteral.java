@@ -6,7 +6,27 @@ import com.coolstuff.token.Token;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
-public record FunctionLiteral(Token token, IdentifierExpression[] parameters, BlockStatement body) implements Expression{
+/**
+ * @param locals   slot names of a resolved function, {@code null} before resolution
+ * @param captured number of leading {@code locals} that nested functions may refer to; closures keep only those alive
+ */
+public record FunctionLiteral(Token token, IdentifierExpression[] parameters, BlockStatement body, String[] locals, int captured) implements Expression{
+
+    public FunctionLiteral(Token token, IdentifierExpression[] parameters, BlockStatement body) {
+        this(token, parameters, body, null, 0);
+    }
+
+    // the array components already make record equality identity in practice; saying so directly spares the JIT
+    // cache, keyed by literal, the bootstrap of the generated record methods and hashing the whole token
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
 
     @Override
     public void expressionNode() {
@@ -2,7 +2,22 @@ package com.coolstuff.ast;
 
 import com.coolstuff.token.Token;
 
-public record IdentifierExpression(Token token, String value) implements Expression {
+// depth = function scopes to walk up, slot = local index there (or PROGRAM_SLOT for a name-based binding)
+public record IdentifierExpression(Token token, String value, int depth, int slot) implements Expression {
+    public static final int UNRESOLVED = -1;
+    public static final int PROGRAM_SLOT = -1;
+
+    public IdentifierExpression(Token token, String value) {
+        this(token, value, UNRESOLVED, PROGRAM_SLOT);
+    }
+
+    public boolean isResolved() {
+        return depth != UNRESOLVED;
+    }
+
+    public boolean isLocal() {
+        return isResolved() && slot != PROGRAM_SLOT;
+    }
 
     @Override
     public String tokenLiteral() {
@@ -16,4 +31,10 @@ public record IdentifierExpression(Token token, String value) implements Express
 
     @Override
     public void expressionNode() {}
+
+    @Override
+    public String toString() {
+        // function values print their parameters through this, keep it independent of resolution
+        return "IdentifierExpression[token=%s, value=%s]".formatted(token, value);
+    }
 }
@@ -0,0 +1,24 @@
+package com.coolstuff.cli;
+
+enum Engine {
+    EVAL,
+    VM,
+    NODES,
+    CLOSURE;
+
+    static final String OPTION_PREFIX = "--engine=";
+
+    static Engine fromOption(String option) {
+        if (!option.startsWith(OPTION_PREFIX)) {
+            return null;
+        }
+
+        return switch (option.substring(OPTION_PREFIX.length())) {
+            case "eval" -> EVAL;
+            case "vm" -> VM;
+            case "nodes" -> NODES;
+            case "closure" -> CLOSURE;
+            default -> null;
+        };
+    }
+}
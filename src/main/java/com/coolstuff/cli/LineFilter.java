@@ -0,0 +1,98 @@
+package com.coolstuff.cli;
+
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.OutputSink;
+import com.coolstuff.evaluator.object.MonkeyArray;
+import com.coolstuff.evaluator.object.MonkeyNull;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyString;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams input lines through the function a {@code filter} script evaluates to, awk style. The function is called
+ * with each line, or with arrays of up to {@code batchSize} lines when that is not 0, and its result is written to
+ * the output: nothing for {@code null}, one line per element (skipping {@code null}s) for an array and one line
+ * otherwise.
+ */
+final class LineFilter {
+    static final String FUNCTION_NAME = "<filter>";
+
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    private final AbstractMonkeyFunction function;
+    private final Evaluator evaluator;
+    private final OutputSink output;
+    private final int batchSize;
+    private long lines;
+
+    LineFilter(AbstractMonkeyFunction function, Evaluator evaluator, OutputSink output, int batchSize) {
+        this.function = function;
+        this.evaluator = evaluator;
+        this.output = output;
+        this.batchSize = batchSize;
+    }
+
+    // number of input lines read so far, also after a failed run
+    long lines() {
+        return lines;
+    }
+
+    void run(InputStream in) throws IOException, EvaluationException {
+        var input = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), INPUT_BUFFER_SIZE);
+        if (batchSize == 0) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                lines++;
+                write(evaluator.callFunction(callToken(lines), function, FUNCTION_NAME, new MonkeyString(line)));
+            }
+            return;
+        }
+
+        // MonkeyArray.of copies, so the batch array is reused
+        var batch = new MonkeyObject<?>[batchSize];
+        var count = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lines++;
+            batch[count++] = new MonkeyString(line);
+            if (count == batchSize) {
+                write(evaluator.callFunction(callToken(lines - count + 1), function, FUNCTION_NAME, MonkeyArray.of(batch)));
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            write(evaluator.callFunction(callToken(lines - count + 1), function, FUNCTION_NAME, MonkeyArray.of(batch, count)));
+        }
+    }
+
+    // the call has no place in the script, so its frame points at the (first) input line it was made for
+    private static Token callToken(long inputLine) {
+        return new Token(TokenType.IDENT, FUNCTION_NAME, (int) Math.min(inputLine, Integer.MAX_VALUE), 1);
+    }
+
+    private void write(MonkeyObject<?> result) {
+        if (result instanceof MonkeyArray array) {
+            for (var element : array.elements()) {
+                writeLine(element);
+            }
+        } else {
+            writeLine(result);
+        }
+    }
+
+    private void writeLine(MonkeyObject<?> value) {
+        if (value != MonkeyNull.INSTANCE) {
+            output.print(value.inspect());
+            output.println();
+        }
+    }
+}
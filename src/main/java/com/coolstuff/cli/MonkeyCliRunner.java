@@ -1,15 +1,24 @@
 package com.coolstuff.cli;
 
 import com.coolstuff.ast.AstPrinter;
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.EvaluationThread;
 import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.OutputSink;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 public class MonkeyCliRunner {
-    private static final String USAGE = "Usage: monkey [run <path> | bench <path> | --tokens <path> | --ast <path>]";
+    private static final String USAGE = "Usage: monkey [run [--engine=eval|vm|nodes|closure] <path> | bench [--filter [--batch=<n>]] [--engine=eval|vm|nodes|closure] <path> | filter [--batch=<n>] [--engine=eval|vm|nodes|closure] <path> < input | --tokens <path> | --ast <path>]";
 
     private final MonkeyPipeline pipeline;
 
@@ -22,14 +31,38 @@ public class MonkeyCliRunner {
     }
 
     public int run(String[] args, PrintStream out, PrintStream err) {
-        var result = execute(args);
+        return run(args, System.in, out, err);
+    }
+
+    public int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        // puts and filter output go straight to out through a large buffer, flushed before the result is printed
+        var output = new OutputSink(out, StandardCharsets.UTF_8, OutputSink.DEFAULT_BUFFER_SIZE, 0);
+        CliResult result;
+        try {
+            result = execute(args, in, output);
+        } finally {
+            output.flush();
+        }
         out.print(result.stdoutText());
         err.print(result.stderrText());
         return result.exitCode();
     }
 
     CliResult execute(String[] args) {
-        if (args.length != 2) {
+        return execute(args, InputStream.nullInputStream());
+    }
+
+    // puts and filter output is collected and put in front of the result text
+    CliResult execute(String[] args, InputStream in) {
+        var printed = new StringWriter();
+        var output = new OutputSink(printed, OutputSink.DEFAULT_BUFFER_SIZE, 0);
+        var result = execute(args, in, output);
+        output.flush();
+        return new CliResult(result.exitCode(), printed + result.stdoutText(), result.stderrText());
+    }
+
+    private CliResult execute(String[] args, InputStream in, OutputSink output) {
+        if (args.length < 2) {
             return CliResult.usageError(usageText());
         }
 
@@ -38,12 +71,18 @@ public class MonkeyCliRunner {
             return CliResult.usageError(usageText());
         }
 
+        var options = Options.parse(mode, Arrays.copyOfRange(args, 1, args.length - 1));
+        if (options == null) {
+            return CliResult.usageError(usageText());
+        }
+
+        var pathArgument = args[args.length - 1];
         Path sourcePath;
         String input;
         try {
-            sourcePath = Path.of(args[1]);
+            sourcePath = Path.of(pathArgument);
         } catch (InvalidPathException exc) {
-            return CliResult.error("Invalid path: %s%n".formatted(args[1]));
+            return CliResult.error("Invalid path: %s%n".formatted(pathArgument));
         }
 
         try {
@@ -52,12 +91,16 @@ public class MonkeyCliRunner {
             return CliResult.error(exc.toCliMessage() + System.lineSeparator());
         }
 
-        return switch (mode) {
-            case RUN -> runProgram(sourcePath, input);
-            case BENCH -> benchProgram(sourcePath, input);
+        // filter calls the script's function from here, so they get the deep stack the pipeline gives programs
+        return EvaluationThread.run(() -> switch (mode) {
+            case RUN -> runProgram(sourcePath, input, options.engine(), output);
+            case BENCH -> options.filter()
+                    ? benchFilter(sourcePath, input, options, in, output)
+                    : benchProgram(sourcePath, input, options.engine(), output);
+            case FILTER -> filterLines(sourcePath, input, options, in, output).result();
             case TOKENS -> printTokens(input);
             case AST -> printAst(sourcePath, input);
-        };
+        });
     }
 
     public static void printUsage(PrintStream err) {
@@ -68,8 +111,18 @@ public class MonkeyCliRunner {
         return USAGE + System.lineSeparator();
     }
 
-    private CliResult runProgram(Path sourcePath, String input) {
-        var result = pipeline.evaluate(input, new Evaluator());
+    // the evaluator runs the program on every engine but the VM, which only uses it for calls made from outside
+    private MonkeyPipeline.EvaluationResult runEngine(String input, Engine engine, Evaluator evaluator, OutputSink output) {
+        return switch (engine) {
+            case EVAL -> pipeline.evaluate(input, evaluator);
+            case VM -> pipeline.compileAndRun(input, output);
+            case NODES -> pipeline.runNodes(input, evaluator);
+            case CLOSURE -> pipeline.runClosures(input, evaluator);
+        };
+    }
+
+    private CliResult runProgram(Path sourcePath, String input, Engine engine, OutputSink output) {
+        var result = runEngine(input, engine, new Evaluator(output), output);
 
         if (result.hasParseErrors()) {
             return CliResult.error(formatParseErrors(sourcePath, result.parseErrors()));
@@ -82,9 +135,10 @@ public class MonkeyCliRunner {
         return CliResult.success(result.value().inspect() + System.lineSeparator());
     }
 
-    private CliResult benchProgram(Path sourcePath, String input) {
+    private CliResult benchProgram(Path sourcePath, String input, Engine engine, OutputSink output) {
         var startNanos = System.nanoTime();
-        var runResult = runProgram(sourcePath, input);
+        var runResult = runProgram(sourcePath, input, engine, output);
+        output.flush();
         var elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000.0;
         var timing = "Execution time: %.3f ms%n".formatted(elapsedMillis);
 
@@ -95,6 +149,47 @@ public class MonkeyCliRunner {
         );
     }
 
+    private record FilterResult(CliResult result, long lines) {}
+
+    // the script runs once and must evaluate to the function that every input line is passed to
+    private FilterResult filterLines(Path sourcePath, String input, Options options, InputStream in, OutputSink output) {
+        var evaluator = new Evaluator(output);
+        var result = runEngine(input, options.engine(), evaluator, output);
+        if (result.hasParseErrors()) {
+            return new FilterResult(CliResult.error(formatParseErrors(sourcePath, result.parseErrors())), 0);
+        }
+        if (result.hasEvaluationError()) {
+            return new FilterResult(CliResult.error(formatRuntimeError(sourcePath, result.evaluationException())), 0);
+        }
+        if (!(result.value() instanceof AbstractMonkeyFunction function)) {
+            return new FilterResult(CliResult.error("Filter script %s must evaluate to a function, got %s%n"
+                    .formatted(sourcePath, result.value().getType())), 0);
+        }
+
+        var filter = new LineFilter(function, evaluator, output, options.batchSize());
+        try {
+            filter.run(in);
+        } catch (IOException exc) {
+            return new FilterResult(CliResult.error("Failed to read input: %s%n".formatted(exc.getMessage())), filter.lines());
+        } catch (EvaluationException exc) {
+            return new FilterResult(CliResult.error("Runtime error in %s at input line %d:%n%s%n"
+                    .formatted(sourcePath, filter.lines(), exc.getRuntimeError().formatMultiline())), filter.lines());
+        }
+        return new FilterResult(CliResult.success(""), filter.lines());
+    }
+
+    private CliResult benchFilter(Path sourcePath, String input, Options options, InputStream in, OutputSink output) {
+        var startNanos = System.nanoTime();
+        var filtered = filterLines(sourcePath, input, options, in, output);
+        output.flush();
+        var elapsedNanos = System.nanoTime() - startNanos;
+        var timing = "Execution time: %.3f ms%nThroughput: %d lines, %.0f lines/s%n"
+                .formatted(elapsedNanos / 1_000_000.0, filtered.lines(), filtered.lines() * 1e9 / Math.max(1, elapsedNanos));
+
+        var result = filtered.result();
+        return new CliResult(result.exitCode(), result.stdoutText(), result.stderrText() + timing);
+    }
+
     private CliResult printTokens(String input) {
         var output = pipeline.tokenStream(input).stream()
                 .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
@@ -139,17 +234,60 @@ public class MonkeyCliRunner {
     enum Mode {
         RUN,
         BENCH,
+        FILTER,
         TOKENS,
         AST;
 
+        boolean acceptsEngine() {
+            return this == RUN || this == BENCH || this == FILTER;
+        }
+
         static Mode fromCommand(String command) {
             return switch (command) {
                 case "run" -> RUN;
                 case "bench" -> BENCH;
+                case "filter" -> FILTER;
                 case "--tokens" -> TOKENS;
                 case "--ast" -> AST;
                 default -> null;
             };
         }
     }
+
+    // batchSize 0 passes lines one at a time
+    record Options(Engine engine, boolean filter, int batchSize) {
+        private static final String BATCH_PREFIX = "--batch=";
+
+        // null when an option is unknown, malformed or not accepted by the mode
+        static Options parse(Mode mode, String[] options) {
+            var engine = Engine.EVAL;
+            var filter = mode == Mode.FILTER;
+            var batchSize = 0;
+            for (var option : options) {
+                if (mode.acceptsEngine() && option.startsWith(Engine.OPTION_PREFIX)) {
+                    engine = Engine.fromOption(option);
+                    if (engine == null) {
+                        return null;
+                    }
+                } else if (mode == Mode.BENCH && option.equals("--filter")) {
+                    filter = true;
+                } else if ((mode == Mode.BENCH || mode == Mode.FILTER) && option.startsWith(BATCH_PREFIX)) {
+                    try {
+                        batchSize = Integer.parseInt(option.substring(BATCH_PREFIX.length()));
+                    } catch (NumberFormatException exc) {
+                        return null;
+                    }
+                    if (batchSize <= 0) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            }
+            if (batchSize > 0 && !filter) {
+                return null;
+            }
+            return new Options(engine, filter, batchSize);
+        }
+    }
 }
@@ -26,6 +26,6 @@ public class MonkeyCommandRunner {
             return 0;
         }
 
-        return cliRunner.run(args, out, err);
+        return cliRunner.run(args, in, out, err);
     }
 }
@@ -1,18 +1,39 @@
 package com.coolstuff.cli;
 
 import com.coolstuff.ast.Program;
+import com.coolstuff.closure.ClosureCompiler;
+import com.coolstuff.compiler.Compiler;
 import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.EvaluationThread;
 import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.OutputSink;
 import com.coolstuff.evaluator.object.MonkeyObject;
 import com.coolstuff.lexer.Lexer;
+import com.coolstuff.nodes.NodeCompiler;
+import com.coolstuff.optimizer.Optimizer;
 import com.coolstuff.parser.Parser;
 import com.coolstuff.token.Token;
 import com.coolstuff.token.TokenType;
+import com.coolstuff.vm.VM;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class MonkeyPipeline {
+    private final Optimizer optimizer = new Optimizer();
+    private final ProgramCache programCache;
+
+    public MonkeyPipeline() {
+        this(new ProgramCache(ProgramCache.DEFAULT_CAPACITY));
+    }
+
+    public MonkeyPipeline(ProgramCache programCache) {
+        this.programCache = programCache;
+    }
+
+    public ProgramCache getProgramCache() {
+        return programCache;
+    }
 
     public List<String> tokenStream(String input) {
         var lines = new ArrayList<String>();
@@ -32,20 +53,85 @@ public class MonkeyPipeline {
         return new ParseResult(program, List.copyOf(parser.getErrors()));
     }
 
+    // Parsed and optimized program ready for an engine, shared through the cache.
+    private ParseResult prepareProgram(String input) {
+        return programCache.get(input, source -> {
+            var parseResult = parseProgram(source);
+            if (!parseResult.errors().isEmpty()) {
+                return parseResult;
+            }
+            return new ParseResult(optimizer.optimize(parseResult.program()), parseResult.errors());
+        });
+    }
+
     public EvaluationResult evaluate(String input, Evaluator evaluator) {
-        var parseResult = parseProgram(input);
+        var parseResult = prepareProgram(input);
         if (!parseResult.errors().isEmpty()) {
             return EvaluationResult.withParseErrors(parseResult.errors());
         }
 
         try {
-            var evaluated = evaluator.eval(parseResult.program());
+            var evaluated = EvaluationThread.run(() -> evaluator.eval(parseResult.program()));
             return EvaluationResult.success(evaluated);
         } catch (EvaluationException exc) {
             return EvaluationResult.withEvaluationError(exc);
         }
     }
 
+    public EvaluationResult compileAndRun(String input) {
+        return compileAndRun(input, OutputSink.CONSOLE);
+    }
+
+    public EvaluationResult compileAndRun(String input, OutputSink output) {
+        var parseResult = prepareProgram(input);
+        if (!parseResult.errors().isEmpty()) {
+            return EvaluationResult.withParseErrors(parseResult.errors());
+        }
+
+        try {
+            var bytecode = new Compiler().compile(parseResult.program());
+            return EvaluationResult.success(new VM(bytecode, output).run());
+        } catch (EvaluationException exc) {
+            return EvaluationResult.withEvaluationError(exc);
+        }
+    }
+
+    public EvaluationResult runNodes(String input) {
+        return runNodes(input, new Evaluator());
+    }
+
+    public EvaluationResult runNodes(String input, Evaluator evaluator) {
+        var parseResult = prepareProgram(input);
+        if (!parseResult.errors().isEmpty()) {
+            return EvaluationResult.withParseErrors(parseResult.errors());
+        }
+
+        try {
+            var program = new NodeCompiler().compile(parseResult.program());
+            return EvaluationResult.success(EvaluationThread.run(() -> program.execute(evaluator)));
+        } catch (EvaluationException exc) {
+            return EvaluationResult.withEvaluationError(exc);
+        }
+    }
+
+    public EvaluationResult runClosures(String input) {
+        return runClosures(input, new Evaluator());
+    }
+
+    public EvaluationResult runClosures(String input, Evaluator evaluator) {
+        var parseResult = prepareProgram(input);
+        if (!parseResult.errors().isEmpty()) {
+            return EvaluationResult.withParseErrors(parseResult.errors());
+        }
+
+        try {
+            var program = new ClosureCompiler().compile(parseResult.program());
+            return EvaluationResult.success(EvaluationThread.run(() -> program.execute(evaluator)));
+        } catch (EvaluationException exc) {
+            return EvaluationResult.withEvaluationError(exc);
+        }
+    }
+
     public record ParseResult(Program program, List<String> errors) {
     }
 
@@ -0,0 +1,69 @@
+package com.coolstuff.cli;
+
+import com.coolstuff.cli.MonkeyPipeline.ParseResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of parse results keyed by source text, so a script executed many times is lexed, parsed and
+ * optimized once. Entries are shared between evaluations, which is safe because the AST is never mutated.
+ */
+public class ProgramCache {
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("monkey.programCache.size", 64);
+
+    private final int capacity;
+    private final LinkedHashMap<String, ParseResult> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ProgramCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParseResult> eldest) {
+                if (size() > ProgramCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public ParseResult get(String source, Function<String, ParseResult> parser) {
+        synchronized (this) {
+            var cached = entries.get(source);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // parsed outside the lock; a concurrent miss on the same source just parses it twice
+        var parsed = parser.apply(source);
+        if (capacity > 0) {
+            synchronized (this) {
+                entries.put(source, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), capacity);
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+    }
+}
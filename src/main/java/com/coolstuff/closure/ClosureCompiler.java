@@ -0,0 +1,411 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.MonkeyHashable;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.object.*;
+import com.coolstuff.runtime.FunctionCode;
+import com.coolstuff.token.Token;
+
+import java.util.Arrays;
+
+/**
+ * Converts a resolved {@link Program} into a tree of pre-linked {@link EvalNode} lambdas, so running it never
+ * dispatches on AST node types. Identifier reads are specialized for their resolved slot, operators get an integer
+ * fast path and fall back to the {@link Evaluator} for everything else, so results and errors match the evaluator.
+ */
+public class ClosureCompiler {
+    private static final String ANONYMOUS = "<anonymous>";
+    private static final EvalNode NULL = frame -> MonkeyNull.INSTANCE;
+
+    private boolean inLoop;
+
+    public CompiledProgram compile(Program program) {
+        return new CompiledProgram(sequence(statements(program.statements())));
+    }
+
+    private EvalNode[] statements(Statement[] statements) {
+        return Arrays.stream(statements).map(this::statement).toArray(EvalNode[]::new);
+    }
+
+    // Stops at the first `return`, `break` or `continue` signal and hands it to the enclosing loop or call.
+    private static EvalNode sequence(EvalNode[] statements) {
+        return switch (statements.length) {
+            case 0 -> NULL;
+            case 1 -> statements[0];
+            default -> frame -> {
+                MonkeyObject<?> result = MonkeyNull.INSTANCE;
+                for (var statement : statements) {
+                    result = statement.exec(frame);
+                    if (result instanceof MonkeyReturn<?> || result instanceof MonkeyBreak || result instanceof MonkeyContinue) {
+                        return result;
+                    }
+                }
+                return result;
+            };
+        };
+    }
+
+    private EvalNode block(BlockStatement block) {
+        return block == null ? null : sequence(statements(block.statements()));
+    }
+
+    private EvalNode statement(Statement statement) {
+        return switch (statement) {
+            case ExpressionStatement expressionStatement when expressionStatement.expression() instanceof IfExpression ifExpression ->
+                    ifElse(expression(ifExpression.condition()), block(ifExpression.consequence()), block(ifExpression.alternative()));
+            case ExpressionStatement expressionStatement -> expression(expressionStatement.expression());
+            case LetStatement letStatement -> let(letStatement);
+            case ReturnStatement returnStatement -> returnValue(expression(returnStatement.returnValue()));
+            case BlockStatement blockStatement -> block(blockStatement);
+            case WhileStatement whileStatement -> whileLoop(whileStatement, false);
+            case BreakStatement breakStatement -> loopControl(breakStatement.token(), true);
+            case ContinueStatement continueStatement -> loopControl(continueStatement.token(), false);
+            default -> throw new IllegalStateException("Closure compiler BUG: Unexpected statement: " + statement);
+        };
+    }
+
+    private EvalNode body(BlockStatement block, boolean tail) {
+        if (block == null) {
+            return null;
+        }
+        var statements = block.statements();
+        var nodes = new EvalNode[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            nodes[i] = bodyStatement(statements[i], tail && i == statements.length - 1);
+        }
+        return sequence(nodes);
+    }
+
+    // see Evaluator.evalBodyStatement
+    private EvalNode bodyStatement(Statement statement, boolean tail) {
+        return switch (statement) {
+            case ReturnStatement returnStatement when returnStatement.returnValue() instanceof CallExpression call ->
+                    returnValue(call(call, true));
+            case ExpressionStatement expressionStatement -> switch (expressionStatement.expression()) {
+                case CallExpression call when tail -> call(call, true);
+                case IfExpression ifExpression -> ifElse(expression(ifExpression.condition()),
+                        body(ifExpression.consequence(), tail), body(ifExpression.alternative(), tail));
+                default -> expression(expressionStatement.expression());
+            };
+            case WhileStatement whileStatement -> whileLoop(whileStatement, true);
+            default -> statement(statement);
+        };
+    }
+
+    private EvalNode let(LetStatement letStatement) {
+        var value = expression(letStatement.value());
+        var name = letStatement.name();
+        if (name.isLocal()) {
+            // a `let` always binds in the scope it runs in
+            var slot = name.slot();
+            return frame -> frame.slots[slot] = value.exec(frame);
+        }
+        var identifier = name.value();
+        return frame -> frame.globals.set(identifier, value.exec(frame));
+    }
+
+    private static EvalNode returnValue(EvalNode value) {
+        return frame -> new MonkeyReturn<>(value.exec(frame));
+    }
+
+    private EvalNode loopControl(Token token, boolean isBreak) {
+        if (inLoop) {
+            MonkeyObject<?> signal = isBreak ? MonkeyBreak.INSTANCE : MonkeyContinue.INSTANCE;
+            return frame -> signal;
+        }
+        var keyword = isBreak ? "break" : "continue";
+        return frame -> {
+            throw frame.context.error(RuntimeErrorType.INVALID_CONTROL_FLOW, token, "`%s` not allowed outside loop", keyword);
+        };
+    }
+
+    private static EvalNode ifElse(EvalNode condition, EvalNode consequence, EvalNode alternative) {
+        var otherwise = alternative == null ? NULL : alternative;
+        return frame -> Evaluator.isTruth(condition.exec(frame)) ? consequence.exec(frame) : otherwise.exec(frame);
+    }
+
+    // an `if` used as a value abandons the enclosing expression when it ends in `return`, `break` or `continue`
+    private static EvalNode ifValue(EvalNode ifElse) {
+        return frame -> {
+            var result = ifElse.exec(frame);
+            if (AbruptCompletion.isSignal(result)) {
+                throw new AbruptCompletion(result);
+            }
+            return result;
+        };
+    }
+
+    private EvalNode whileLoop(WhileStatement whileStatement, boolean inBody) {
+        var enclosing = inLoop;
+        inLoop = true;
+        try {
+            var condition = expression(whileStatement.condition());
+            var body = inBody ? body(whileStatement.body(), false) : block(whileStatement.body());
+            return frame -> {
+                MonkeyObject<?> result = MonkeyNull.INSTANCE;
+                while (Evaluator.isTruth(condition.exec(frame))) {
+                    try {
+                        result = body.exec(frame);
+                    } catch (AbruptCompletion abrupt) {
+                        result = abrupt.signal;
+                    }
+
+                    if (result instanceof MonkeyBreak) {
+                        return MonkeyNull.INSTANCE;
+                    }
+                    if (result instanceof MonkeyContinue) {
+                        result = MonkeyNull.INSTANCE;
+                        continue;
+                    }
+                    if (result instanceof MonkeyReturn<?>) {
+                        return result;
+                    }
+                }
+                return result;
+            };
+        } finally {
+            inLoop = enclosing;
+        }
+    }
+
+    private EvalNode[] expressions(Expression[] expressions) {
+        return Arrays.stream(expressions).map(this::expression).toArray(EvalNode[]::new);
+    }
+
+    private EvalNode expression(Expression expression) {
+        return switch (expression) {
+            case IntegerLiteralExpression integerLiteral -> constant(MonkeyInteger.valueOf(integerLiteral.value()));
+            case StringLiteralExpression stringLiteral -> constant(new MonkeyString(stringLiteral.value()));
+            case BooleanExpression booleanLiteral -> constant(MonkeyBoolean.nativeToMonkey(booleanLiteral.value()));
+            case IdentifierExpression identifier -> read(identifier);
+            case PrefixExpression prefix -> prefix(prefix.token(), expression(prefix.right()));
+            case InfixExpression infix -> infix(infix.token(), expression(infix.left()), expression(infix.right()));
+            case IfExpression ifExpression -> ifValue(ifElse(expression(ifExpression.condition()),
+                    block(ifExpression.consequence()), block(ifExpression.alternative())));
+            case FunctionLiteral functionLiteral -> function(functionLiteral);
+            case CallExpression call -> call(call, false);
+            case ArrayLiteral array -> array(expressions(array.elements()));
+            case IndexExpression index -> index(index.token(), expression(index.left()), expression(index.index()));
+            case HashLiteral hash -> hash(hash.token(),
+                    hash.pairs().stream().map(pair -> expression(pair.key())).toArray(EvalNode[]::new),
+                    hash.pairs().stream().map(pair -> expression(pair.value())).toArray(EvalNode[]::new));
+            default -> throw new IllegalStateException("Closure compiler BUG: Unexpected expression: " + expression);
+        };
+    }
+
+    private static EvalNode constant(MonkeyObject<?> value) {
+        return frame -> value;
+    }
+
+    private static EvalNode read(IdentifierExpression identifier) {
+        var name = identifier.value();
+        var builtin = BuiltInFunctions.getFunction(name).orElse(null);
+        var depth = identifier.depth();
+        var slot = identifier.slot();
+
+        if (!identifier.isResolved()) {
+            return frame -> found(frame.lookup(name), builtin, identifier, frame);
+        }
+        if (!identifier.isLocal()) {
+            // unbound in every function scope, so it is a program binding
+            return frame -> found(frame.globals.get(name), builtin, identifier, frame);
+        }
+        if (depth == 0) {
+            return frame -> {
+                var value = frame.slots[slot];
+                return value != null ? value : found(frame.parent.lookup(name), builtin, identifier, frame);
+            };
+        }
+        return frame -> found(frame.up(depth).slotOrOuter(slot, name), builtin, identifier, frame);
+    }
+
+    private static MonkeyObject<?> found(MonkeyObject<?> value, BuiltInFunction builtin, IdentifierExpression identifier, Frame frame) throws EvaluationException {
+        if (value != null) {
+            return value;
+        }
+        if (builtin != null) {
+            return builtin;
+        }
+        throw frame.context.error(RuntimeErrorType.UNKNOWN_IDENTIFIER, identifier.token(), "Identifier not found: %s", identifier.value());
+    }
+
+    private static EvalNode prefix(Token token, EvalNode right) {
+        return switch (token.type()) {
+            case BANG -> frame -> MonkeyBoolean.nativeToMonkey(!Evaluator.isTruth(right.exec(frame)));
+            case MINUS -> frame -> {
+                var value = right.exec(frame);
+                if (value instanceof MonkeyInteger integer) {
+                    return MonkeyInteger.valueOf(-integer.getValue());
+                }
+                return frame.context.applyPrefixOperator(token, value);
+            };
+            default -> frame -> frame.context.applyPrefixOperator(token, right.exec(frame));
+        };
+    }
+
+    private static EvalNode infix(Token token, EvalNode left, EvalNode right) {
+        return switch (token.type()) {
+            case AND -> frame -> MonkeyBoolean.nativeToMonkey(Evaluator.isTruth(left.exec(frame)) && Evaluator.isTruth(right.exec(frame)));
+            case OR -> frame -> MonkeyBoolean.nativeToMonkey(Evaluator.isTruth(left.exec(frame)) || Evaluator.isTruth(right.exec(frame)));
+            case PLUS -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyInteger.valueOf(a.getValue() + b.getValue());
+                }
+                if (l instanceof MonkeyString a && r instanceof MonkeyString b) {
+                    return MonkeyString.concat(a, b);
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case MINUS -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyInteger.valueOf(a.getValue() - b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case ASTERISK -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyInteger.valueOf(a.getValue() * b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case SLASH -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b && b.getValue() != 0) {
+                    return MonkeyInteger.valueOf(a.getValue() / b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case LT -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() < b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case GT -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() > b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case LTE -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() <= b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case GTE -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() >= b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case EQ -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() == b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            case NOT_EQ -> frame -> {
+                var l = left.exec(frame);
+                var r = right.exec(frame);
+                if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                    return MonkeyBoolean.nativeToMonkey(a.getValue() != b.getValue());
+                }
+                return frame.context.applyInfixOperator(token, l, r);
+            };
+            default -> frame -> frame.context.applyInfixOperator(token, left.exec(frame), right.exec(frame));
+        };
+    }
+
+    private static EvalNode array(EvalNode[] elements) {
+        return frame -> MonkeyArray.of(evaluate(elements, frame));
+    }
+
+    private static EvalNode index(Token token, EvalNode left, EvalNode index) {
+        return frame -> {
+            var context = frame.context;
+            var indexable = context.checkIndexable(left.exec(frame), token);
+            var indexValue = index.exec(frame);
+            if (indexable instanceof MonkeyArray array && indexValue instanceof MonkeyInteger integer) {
+                var elements = array.elements();
+                var i = integer.getValue();
+                return i < 0 || i >= elements.size() ? MonkeyNull.INSTANCE : elements.get((int) i);
+            }
+            return context.applyIndex(token, indexable, indexValue);
+        };
+    }
+
+    private static EvalNode hash(Token token, EvalNode[] keys, EvalNode[] values) {
+        return frame -> {
+            var table = new HashTable(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                var key = MonkeyHashable.checkIsHashable(keys[i].exec(frame), token, frame.context);
+                table.put(key, values[i].exec(frame));
+            }
+            return new MonkeyHash(table);
+        };
+    }
+
+    private EvalNode function(FunctionLiteral functionLiteral) {
+        var enclosing = inLoop;
+        inLoop = false;
+        try {
+            var code = new FunctionCode(functionLiteral);
+            var body = body(functionLiteral.body(), true);
+            return frame -> new ClosureFunction(code, body, frame);
+        } finally {
+            inLoop = enclosing;
+        }
+    }
+
+    private EvalNode call(CallExpression call, boolean tail) {
+        var token = call.token();
+        var name = call.function() instanceof IdentifierExpression identifier ? identifier.value() : ANONYMOUS;
+        var callee = expression(call.function());
+        var arguments = expressions(call.arguments());
+        return frame -> {
+            var context = frame.context;
+            var function = context.checkCallable(callee.exec(frame), token);
+            var values = evaluate(arguments, frame);
+            if (function instanceof ClosureFunction closure) {
+                if (tail) {
+                    return closure.tailCall(token, name, values);
+                }
+                return closure.code().call(closure, token, name, values, context);
+            }
+            var functionName = function instanceof BuiltInFunction builtin ? builtin.getName() : name;
+            return context.callFunction(token, function, functionName, values);
+        };
+    }
+
+    private static MonkeyObject<?>[] evaluate(EvalNode[] nodes, Frame frame) throws EvaluationException {
+        var values = new MonkeyObject<?>[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            values[i] = nodes[i].exec(frame);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,37 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.runtime.FunctionCode;
+import com.coolstuff.runtime.LinkedFunction;
+
+final class ClosureFunction extends LinkedFunction {
+    final Frame frame;
+    private final EvalNode body;
+
+    ClosureFunction(FunctionCode code, EvalNode body, Frame frame) {
+        super(code);
+        this.body = body;
+        this.frame = frame;
+    }
+
+    // Only functions created by the program itself: everything they see outside their own slots is in the globals
+    // environment. Nested functions see the slots of enclosing frames, which compiled code cannot reach.
+    @Override
+    protected Environment jitScope() {
+        return frame.parent == null ? frame.globals : null;
+    }
+
+    @Override
+    protected MonkeyObject<?> execute(MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException {
+        var literal = code().literal();
+        var callFrame = frame.call(literal.locals(), context);
+        var parameters = literal.parameters();
+        for (int i = 0; i < parameters.length; i++) {
+            callFrame.slots[parameters[i].slot()] = arguments[i];
+        }
+        return body.exec(callFrame);
+    }
+}
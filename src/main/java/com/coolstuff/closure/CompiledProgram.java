@@ -0,0 +1,32 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyReturn;
+
+/**
+ * Program linked by {@link ClosureCompiler}. Runs in the environment and call stack of the given {@link Evaluator},
+ * which also supplies operator, indexing and builtin semantics.
+ */
+public final class CompiledProgram {
+    private final EvalNode statements;
+
+    CompiledProgram(EvalNode statements) {
+        this.statements = statements;
+    }
+
+    public MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        MonkeyObject<?> result;
+        try {
+            result = statements.exec(Frame.program(context));
+        } catch (AbruptCompletion abrupt) {
+            result = abrupt.signal;
+        }
+        if (result instanceof MonkeyReturn<?> monkeyReturn) {
+            return monkeyReturn.returnValue;
+        }
+        return result;
+    }
+}
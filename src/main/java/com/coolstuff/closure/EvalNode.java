@@ -0,0 +1,10 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+// An AST node after linking: children, constants and the operation are captured by the lambda.
+@FunctionalInterface
+interface EvalNode {
+    MonkeyObject<?> exec(Frame frame) throws EvaluationException;
+}
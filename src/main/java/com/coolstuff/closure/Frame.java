@@ -0,0 +1,60 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+/**
+ * Scope of one call: the function's slots plus the frame it was created in. The program's own frame has no slots,
+ * its bindings live in the {@link Environment} of the evaluator it runs with.
+ */
+final class Frame {
+    private static final String[] NO_NAMES = {};
+
+    final MonkeyObject<?>[] slots;
+    final Frame parent;
+    final Environment globals;
+    final Evaluator context;
+    private final String[] names;
+
+    private Frame(MonkeyObject<?>[] slots, String[] names, Frame parent, Environment globals, Evaluator context) {
+        this.slots = slots;
+        this.names = names;
+        this.parent = parent;
+        this.globals = globals;
+        this.context = context;
+    }
+
+    static Frame program(Evaluator context) {
+        return new Frame(new MonkeyObject<?>[0], NO_NAMES, null, context.getEnvironment(), context);
+    }
+
+    Frame call(String[] names, Evaluator context) {
+        return new Frame(new MonkeyObject<?>[names.length], names, this, globals, context);
+    }
+
+    Frame up(int depth) {
+        var frame = this;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.parent;
+        }
+        return frame;
+    }
+
+    // A slot read before its `let` ran falls through to the enclosing scopes by name, like Environment.get.
+    MonkeyObject<?> slotOrOuter(int slot, String name) {
+        var value = slots[slot];
+        return value != null ? value : parent.lookup(name);
+    }
+
+    MonkeyObject<?> lookup(String name) {
+        for (var frame = this; frame.parent != null; frame = frame.parent) {
+            for (int i = 0; i < frame.names.length; i++) {
+                if (frame.slots[i] != null && frame.names[i].equals(name)) {
+                    return frame.slots[i];
+                }
+            }
+        }
+        return globals.get(name);
+    }
+}
@@ -0,0 +1,14 @@
+package com.coolstuff.compiler;
+
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+/**
+ * @param globalNames names of global slots; unassigned globals fall back to the builtin of the same name
+ * @param callNames   names used in stack frames for call sites, referenced by {@code CALL}
+ */
+public record Bytecode(CompiledFunction main,
+                       MonkeyObject<?>[] constants,
+                       CompiledFunction[] functions,
+                       String[] globalNames,
+                       String[] callNames) {
+}
@@ -0,0 +1,26 @@
+package com.coolstuff.compiler;
+
+import com.coolstuff.ast.FunctionLiteral;
+import com.coolstuff.token.Token;
+
+/**
+ * @param tokens          source token per instruction offset, used for runtime error positions
+ * @param parameterSlots  local slot receiving each argument
+ * @param slotFallbacks   per local slot, the symbol to read while the slot is still unassigned
+ *                        (relative to the frame owning the slot), or {@code null} for parameters
+ * @param literal         source literal, {@code null} for the program body
+ * @param createsClosures whether the body creates closures, which may keep its frame alive after it returns
+ */
+public record CompiledFunction(byte[] instructions,
+                               Token[] tokens,
+                               int numLocals,
+                               int[] parameterSlots,
+                               Symbol[] slotFallbacks,
+                               int maxStackDepth,
+                               FunctionLiteral literal,
+                               boolean createsClosures) {
+
+    public int numParameters() {
+        return parameterSlots.length;
+    }
+}
@@ -0,0 +1,512 @@
+package com.coolstuff.compiler;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyString;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Compiler {
+    private static final String ANONYMOUS = "<anonymous>";
+
+    private final List<MonkeyObject<?>> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+    private final List<CompiledFunction> functions = new ArrayList<>();
+    private final List<String> callNames = new ArrayList<>();
+    private final Map<String, Integer> callNameIndexes = new HashMap<>();
+    private final SymbolTable globals = new SymbolTable();
+
+    private CompilationScope scope;
+
+    public Bytecode compile(Program program) {
+        scope = new CompilationScope(globals);
+        compileBlock(program.statements());
+        emit(Opcode.RETURN_VALUE, null);
+        var main = scope.finish(new int[0], null);
+
+        return new Bytecode(
+                main,
+                constants.toArray(MonkeyObject[]::new),
+                functions.toArray(CompiledFunction[]::new),
+                globals.names(),
+                callNames.toArray(String[]::new)
+        );
+    }
+
+    private void compileBlock(Statement[] statements) {
+        if (statements.length == 0) {
+            emit(Opcode.NULL, null);
+            return;
+        }
+
+        for (int i = 0; i < statements.length; i++) {
+            compileStatement(statements[i]);
+            if (i < statements.length - 1) {
+                emit(Opcode.POP, null);
+            }
+        }
+    }
+
+    // Mirrors Evaluator.evalFunctionBody: the same tail positions become TAIL_CALL in both engines.
+    private void compileBodyBlock(Statement[] statements, boolean tail) {
+        if (statements.length == 0) {
+            emit(Opcode.NULL, null);
+            return;
+        }
+
+        for (int i = 0; i < statements.length; i++) {
+            compileBodyStatement(statements[i], tail && i == statements.length - 1);
+            if (i < statements.length - 1) {
+                emit(Opcode.POP, null);
+            }
+        }
+    }
+
+    private void compileBodyStatement(Statement statement, boolean tail) {
+        switch (statement) {
+            case ReturnStatement returnStatement when returnStatement.returnValue() instanceof CallExpression call -> {
+                compileCallExpression(call, true);
+                emit(Opcode.RETURN_VALUE, returnStatement.token());
+                scope.unreachableValue(scope.stackDepth + 1);
+            }
+            case ExpressionStatement expressionStatement -> {
+                switch (expressionStatement.expression()) {
+                    case CallExpression call when tail -> compileCallExpression(call, true);
+                    case IfExpression ifExpression -> compileIfExpression(ifExpression, true, tail);
+                    default -> compileExpression(expressionStatement.expression());
+                }
+            }
+            case WhileStatement whileStatement -> compileWhileStatement(whileStatement, true);
+            default -> compileStatement(statement);
+        }
+    }
+
+    private void compileStatement(Statement statement) {
+        switch (statement) {
+            case ExpressionStatement expressionStatement -> compileExpression(expressionStatement.expression());
+            case LetStatement letStatement -> compileLetStatement(letStatement);
+            case ReturnStatement returnStatement -> {
+                compileExpression(returnStatement.returnValue());
+                emit(Opcode.RETURN_VALUE, returnStatement.token());
+                scope.unreachableValue(scope.stackDepth + 1);
+            }
+            case WhileStatement whileStatement -> compileWhileStatement(whileStatement, false);
+            case BreakStatement breakStatement -> compileLoopJump(breakStatement.token(), true);
+            case ContinueStatement continueStatement -> compileLoopJump(continueStatement.token(), false);
+            case BlockStatement blockStatement -> compileBlock(blockStatement.statements());
+            default -> throw new IllegalStateException("Compilation BUG: Unexpected statement: " + statement);
+        }
+    }
+
+    private void compileLetStatement(LetStatement letStatement) {
+        compileExpression(letStatement.value());
+
+        var symbol = scope.symbols.resolve(letStatement.name().value());
+        if (symbol.scope() == SymbolScope.GLOBAL) {
+            emit(Opcode.SET_GLOBAL, letStatement.token(), symbol.index());
+        } else {
+            emit(Opcode.SET_LOCAL, letStatement.token(), symbol.index());
+        }
+    }
+
+    private void compileWhileStatement(WhileStatement whileStatement, boolean inBody) {
+        emit(Opcode.NULL, null);
+
+        var loop = new Loop(scope.code.length(), scope.stackDepth - 1);
+        scope.loops.push(loop);
+
+        compileExpression(whileStatement.condition());
+        var exitJump = emit(Opcode.JUMP_IF_FALSE, whileStatement.token(), 0);
+        emit(Opcode.POP, null);
+        if (inBody) {
+            compileBodyBlock(whileStatement.body().statements(), false);
+        } else {
+            compileBlock(whileStatement.body().statements());
+        }
+        emit(Opcode.JUMP, null, loop.start);
+
+        scope.loops.pop();
+        var end = scope.code.length();
+        scope.patchJump(exitJump, end);
+        for (var breakJump : loop.breakJumps) {
+            scope.patchJump(breakJump, end);
+        }
+    }
+
+    private void compileLoopJump(Token token, boolean isBreak) {
+        var depthBefore = scope.stackDepth;
+        var loop = scope.loops.peek();
+        if (loop == null) {
+            var keyword = isBreak ? "break" : "continue";
+            emit(Opcode.RAISE, token, RuntimeErrorType.INVALID_CONTROL_FLOW.ordinal(),
+                    addConstant("`%s` not allowed outside loop".formatted(keyword)));
+            scope.unreachableValue(depthBefore + 1);
+            return;
+        }
+
+        var extra = scope.stackDepth - loop.baseDepth;
+        if (extra > 0) {
+            emit(Opcode.POP_N, null, extra);
+        }
+        emit(Opcode.NULL, null);
+        if (isBreak) {
+            loop.breakJumps.add(emit(Opcode.JUMP, token, 0));
+        } else {
+            emit(Opcode.JUMP, token, loop.start);
+        }
+        scope.unreachableValue(depthBefore + 1);
+    }
+
+    private void compileExpression(Expression expression) {
+        switch (expression) {
+            case IntegerLiteralExpression integerLiteral ->
+                    emit(Opcode.CONSTANT, integerLiteral.token(), addConstant(integerLiteral.value()));
+            case StringLiteralExpression stringLiteral ->
+                    emit(Opcode.CONSTANT, stringLiteral.token(), addConstant(stringLiteral.value()));
+            case BooleanExpression booleanLiteral ->
+                    emit(booleanLiteral.value() ? Opcode.TRUE : Opcode.FALSE, booleanLiteral.token());
+            case PrefixExpression prefixExpression -> {
+                compileExpression(prefixExpression.right());
+                emit(prefixExpression.token().type() == TokenType.BANG ? Opcode.BANG : Opcode.MINUS,
+                        prefixExpression.token());
+            }
+            case InfixExpression infixExpression -> compileInfixExpression(infixExpression);
+            case IfExpression ifExpression -> compileIfExpression(ifExpression, false, false);
+            case IdentifierExpression identifier -> compileIdentifier(identifier);
+            case FunctionLiteral functionLiteral ->
+                    emit(Opcode.CLOSURE, functionLiteral.token(), compileFunction(functionLiteral));
+            case CallExpression callExpression -> compileCallExpression(callExpression, false);
+            case ArrayLiteral arrayLiteral -> {
+                for (var element : arrayLiteral.elements()) {
+                    compileExpression(element);
+                }
+                emit(Opcode.ARRAY, arrayLiteral.token(), arrayLiteral.elements().length);
+            }
+            case HashLiteral hashLiteral -> {
+                for (var pair : hashLiteral.pairs()) {
+                    compileExpression(pair.key());
+                    if (!isLiteral(pair.key())) {
+                        emit(Opcode.CHECK_HASHABLE, hashLiteral.token());
+                    }
+                    compileExpression(pair.value());
+                }
+                emit(Opcode.HASH, hashLiteral.token(), hashLiteral.pairs().size());
+            }
+            case IndexExpression indexExpression -> {
+                compileExpression(indexExpression.left());
+                if (!isLiteral(indexExpression.index())) {
+                    emit(Opcode.CHECK_INDEXABLE, indexExpression.token());
+                }
+                compileExpression(indexExpression.index());
+                emit(Opcode.INDEX, indexExpression.token());
+            }
+            default -> throw new IllegalStateException("Compilation BUG: Unexpected expression: " + expression);
+        }
+    }
+
+    private void compileInfixExpression(InfixExpression infixExpression) {
+        var token = infixExpression.token();
+        switch (token.type()) {
+            case AND, OR -> {
+                var isAnd = token.type() == TokenType.AND;
+                compileExpression(infixExpression.left());
+                var shortCircuit = emit(isAnd ? Opcode.JUMP_IF_FALSE : Opcode.JUMP_IF_TRUE, token, 0);
+                compileExpression(infixExpression.right());
+                emit(Opcode.TO_BOOLEAN, token);
+                var end = emit(Opcode.JUMP, null, 0);
+
+                scope.patchJump(shortCircuit, scope.code.length());
+                scope.stackDepth--;
+                emit(isAnd ? Opcode.FALSE : Opcode.TRUE, token);
+                scope.patchJump(end, scope.code.length());
+                return;
+            }
+        }
+
+        compileExpression(infixExpression.left());
+        compileExpression(infixExpression.right());
+        var opcode = switch (token.type()) {
+            case PLUS -> Opcode.ADD;
+            case MINUS -> Opcode.SUB;
+            case ASTERISK -> Opcode.MUL;
+            case SLASH -> Opcode.DIV;
+            case EQ -> Opcode.EQ;
+            case NOT_EQ -> Opcode.NOT_EQ;
+            case LT -> Opcode.LT;
+            case GT -> Opcode.GT;
+            case LTE -> Opcode.LTE;
+            case GTE -> Opcode.GTE;
+            default -> throw new IllegalStateException("Compilation BUG: Unexpected operator: " + token.token());
+        };
+        emit(opcode, token);
+    }
+
+    private void compileIfExpression(IfExpression ifExpression, boolean inBody, boolean tail) {
+        compileExpression(ifExpression.condition());
+        var elseJump = emit(Opcode.JUMP_IF_FALSE, ifExpression.token(), 0);
+
+        compileBranch(ifExpression.consequence(), inBody, tail);
+        var endJump = emit(Opcode.JUMP, null, 0);
+
+        scope.patchJump(elseJump, scope.code.length());
+        scope.stackDepth--;
+        if (ifExpression.alternative() != null) {
+            compileBranch(ifExpression.alternative(), inBody, tail);
+        } else {
+            emit(Opcode.NULL, null);
+        }
+        scope.patchJump(endJump, scope.code.length());
+    }
+
+    private void compileBranch(BlockStatement block, boolean inBody, boolean tail) {
+        if (inBody) {
+            compileBodyBlock(block.statements(), tail);
+        } else {
+            compileBlock(block.statements());
+        }
+    }
+
+    private void compileIdentifier(IdentifierExpression identifier) {
+        var symbol = scope.symbols.resolve(identifier.value());
+        if (symbol.scope() == SymbolScope.GLOBAL) {
+            emit(Opcode.GET_GLOBAL, identifier.token(), symbol.index());
+        } else if (symbol.depth() == 0) {
+            emit(Opcode.GET_LOCAL, identifier.token(), symbol.index());
+        } else {
+            emit(Opcode.GET_OUTER, identifier.token(), symbol.depth(), symbol.index());
+        }
+    }
+
+    private void compileCallExpression(CallExpression callExpression, boolean tail) {
+        compileExpression(callExpression.function());
+
+        var arguments = callExpression.arguments();
+        if (!Arrays.stream(arguments).allMatch(Compiler::isLiteral)) {
+            emit(Opcode.CHECK_CALLABLE, callExpression.token());
+        }
+        for (var argument : arguments) {
+            compileExpression(argument);
+        }
+
+        var name = callExpression.function() instanceof IdentifierExpression identifier ? identifier.value() : ANONYMOUS;
+        emit(tail ? Opcode.TAIL_CALL : Opcode.CALL, callExpression.token(), arguments.length, addCallName(name));
+    }
+
+    private int compileFunction(FunctionLiteral functionLiteral) {
+        var symbols = new SymbolTable(scope.symbols);
+        var parameters = functionLiteral.parameters();
+        var parameterSlots = new int[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            parameterSlots[i] = symbols.defineParameter(parameters[i].value());
+        }
+        declareLocals(functionLiteral.body(), symbols);
+
+        var enclosing = scope;
+        scope = new CompilationScope(symbols);
+        compileBodyBlock(functionLiteral.body().statements(), true);
+        emit(Opcode.RETURN_VALUE, null);
+        var function = scope.finish(parameterSlots, functionLiteral);
+        scope = enclosing;
+
+        functions.add(function);
+        return functions.size() - 1;
+    }
+
+    private static void declareLocals(Node node, SymbolTable symbols) {
+        switch (node) {
+            case null -> {
+            }
+            case LetStatement letStatement -> {
+                symbols.defineLocal(letStatement.name().value());
+                declareLocals(letStatement.value(), symbols);
+            }
+            case BlockStatement blockStatement -> {
+                for (var statement : blockStatement.statements()) {
+                    declareLocals(statement, symbols);
+                }
+            }
+            case ExpressionStatement expressionStatement -> declareLocals(expressionStatement.expression(), symbols);
+            case ReturnStatement returnStatement -> declareLocals(returnStatement.returnValue(), symbols);
+            case WhileStatement whileStatement -> {
+                declareLocals(whileStatement.condition(), symbols);
+                declareLocals(whileStatement.body(), symbols);
+            }
+            case PrefixExpression prefixExpression -> declareLocals(prefixExpression.right(), symbols);
+            case InfixExpression infixExpression -> {
+                declareLocals(infixExpression.left(), symbols);
+                declareLocals(infixExpression.right(), symbols);
+            }
+            case IfExpression ifExpression -> {
+                declareLocals(ifExpression.condition(), symbols);
+                declareLocals(ifExpression.consequence(), symbols);
+                declareLocals(ifExpression.alternative(), symbols);
+            }
+            case CallExpression callExpression -> {
+                declareLocals(callExpression.function(), symbols);
+                for (var argument : callExpression.arguments()) {
+                    declareLocals(argument, symbols);
+                }
+            }
+            case ArrayLiteral arrayLiteral -> {
+                for (var element : arrayLiteral.elements()) {
+                    declareLocals(element, symbols);
+                }
+            }
+            case HashLiteral hashLiteral -> {
+                for (var pair : hashLiteral.pairs()) {
+                    declareLocals(pair.key(), symbols);
+                    declareLocals(pair.value(), symbols);
+                }
+            }
+            case IndexExpression indexExpression -> {
+                declareLocals(indexExpression.left(), symbols);
+                declareLocals(indexExpression.index(), symbols);
+            }
+            default -> {
+                // literals, identifiers, break/continue and nested function literals declare nothing here
+            }
+        }
+    }
+
+    private static boolean isLiteral(Expression expression) {
+        return expression instanceof IntegerLiteralExpression
+                || expression instanceof StringLiteralExpression
+                || expression instanceof BooleanExpression;
+    }
+
+    private int addConstant(long value) {
+        return constantIndexes.computeIfAbsent(value, ignored -> {
+            constants.add(MonkeyInteger.valueOf(value));
+            return constants.size() - 1;
+        });
+    }
+
+    private int addConstant(String value) {
+        return constantIndexes.computeIfAbsent(value, ignored -> {
+            constants.add(new MonkeyString(value));
+            return constants.size() - 1;
+        });
+    }
+
+    private int addCallName(String name) {
+        return callNameIndexes.computeIfAbsent(name, ignored -> {
+            callNames.add(name);
+            return callNames.size() - 1;
+        });
+    }
+
+    private int emit(byte opcode, Token token, int... operands) {
+        var position = scope.code.length();
+        scope.code.append(Instructions.make(opcode, operands), token);
+        scope.adjustStackDepth(opcode, operands);
+        scope.createsClosures |= opcode == Opcode.CLOSURE;
+        return position;
+    }
+
+    private static final class Loop {
+        private final int start;
+        private final int baseDepth;
+        private final List<Integer> breakJumps = new ArrayList<>();
+
+        private Loop(int start, int baseDepth) {
+            this.start = start;
+            this.baseDepth = baseDepth;
+        }
+    }
+
+    private static final class CompilationScope {
+        private final SymbolTable symbols;
+        private final CodeBuffer code = new CodeBuffer();
+        private final Deque<Loop> loops = new ArrayDeque<>();
+        private int stackDepth;
+        private int maxStackDepth;
+        private boolean createsClosures;
+
+        private CompilationScope(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
+        private void adjustStackDepth(byte opcode, int[] operands) {
+            stackDepth += switch (opcode) {
+                case Opcode.CONSTANT, Opcode.NULL, Opcode.TRUE, Opcode.FALSE,
+                     Opcode.GET_GLOBAL, Opcode.GET_LOCAL, Opcode.GET_OUTER, Opcode.CLOSURE -> 1;
+                case Opcode.POP, Opcode.JUMP_IF_FALSE, Opcode.JUMP_IF_TRUE, Opcode.RETURN_VALUE,
+                     Opcode.ADD, Opcode.SUB, Opcode.MUL, Opcode.DIV, Opcode.EQ, Opcode.NOT_EQ,
+                     Opcode.LT, Opcode.GT, Opcode.LTE, Opcode.GTE, Opcode.INDEX -> -1;
+                case Opcode.POP_N -> -operands[0];
+                case Opcode.ARRAY -> 1 - operands[0];
+                case Opcode.HASH -> 1 - 2 * operands[0];
+                case Opcode.CALL, Opcode.TAIL_CALL -> -operands[0];
+                default -> 0;
+            };
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+        }
+
+        private void unreachableValue(int depth) {
+            stackDepth = depth;
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+        }
+
+        private void patchJump(int position, int target) {
+            code.patchOperand(position + 1, 4, target);
+        }
+
+        private CompiledFunction finish(int[] parameterSlots, FunctionLiteral literal) {
+            var fallbacks = symbols.isGlobal() ? new Symbol[0] : symbols.fallbacks();
+            return new CompiledFunction(
+                    code.instructions(),
+                    code.tokens(),
+                    symbols.isGlobal() ? 0 : symbols.size(),
+                    parameterSlots,
+                    fallbacks,
+                    maxStackDepth,
+                    literal,
+                    createsClosures
+            );
+        }
+    }
+
+    private static final class CodeBuffer {
+        private byte[] instructions = new byte[64];
+        private Token[] tokens = new Token[64];
+        private int length;
+
+        private int length() {
+            return length;
+        }
+
+        private void append(byte[] instruction, Token token) {
+            if (length + instruction.length > instructions.length) {
+                var capacity = Math.max(instructions.length * 2, length + instruction.length);
+                instructions = Arrays.copyOf(instructions, capacity);
+                tokens = Arrays.copyOf(tokens, capacity);
+            }
+            System.arraycopy(instruction, 0, instructions, length, instruction.length);
+            tokens[length] = token;
+            length += instruction.length;
+        }
+
+        private void patchOperand(int offset, int width, int operand) {
+            Instructions.write(instructions, offset, width, operand);
+        }
+
+        private byte[] instructions() {
+            return Arrays.copyOf(instructions, length);
+        }
+
+        private Token[] tokens() {
+            return Arrays.copyOf(tokens, length);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.coolstuff.compiler;
+
+public final class Instructions {
+
+    private Instructions() {
+    }
+
+    public static byte[] make(byte opcode, int... operands) {
+        var definition = Opcode.lookup(opcode);
+        if (operands.length != definition.operandWidths().length) {
+            throw new IllegalArgumentException("Opcode %s expects %d operands, got %d"
+                    .formatted(definition.name(), definition.operandWidths().length, operands.length));
+        }
+
+        var instruction = new byte[definition.width()];
+        instruction[0] = opcode;
+        var offset = 1;
+        for (int i = 0; i < operands.length; i++) {
+            var width = definition.operandWidths()[i];
+            write(instruction, offset, width, operands[i]);
+            offset += width;
+        }
+        return instruction;
+    }
+
+    static void write(byte[] code, int offset, int width, int operand) {
+        switch (width) {
+            case 1 -> code[offset] = (byte) operand;
+            case 2 -> {
+                code[offset] = (byte) (operand >>> 8);
+                code[offset + 1] = (byte) operand;
+            }
+            case 4 -> {
+                code[offset] = (byte) (operand >>> 24);
+                code[offset + 1] = (byte) (operand >>> 16);
+                code[offset + 2] = (byte) (operand >>> 8);
+                code[offset + 3] = (byte) operand;
+            }
+            default -> throw new IllegalArgumentException("Unsupported operand width " + width);
+        }
+    }
+
+    public static int readU8(byte[] code, int offset) {
+        return code[offset] & 0xFF;
+    }
+
+    public static int readU16(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 8) | (code[offset + 1] & 0xFF);
+    }
+
+    public static int readI32(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 24)
+                | ((code[offset + 1] & 0xFF) << 16)
+                | ((code[offset + 2] & 0xFF) << 8)
+                | (code[offset + 3] & 0xFF);
+    }
+
+    public static String disassemble(byte[] code) {
+        var builder = new StringBuilder();
+        var offset = 0;
+        while (offset < code.length) {
+            var definition = Opcode.lookup(code[offset]);
+            builder.append("%04d %s".formatted(offset, definition.name()));
+
+            var operandOffset = offset + 1;
+            for (var width : definition.operandWidths()) {
+                var operand = switch (width) {
+                    case 1 -> readU8(code, operandOffset);
+                    case 2 -> readU16(code, operandOffset);
+                    default -> readI32(code, operandOffset);
+                };
+                builder.append(' ').append(operand);
+                operandOffset += width;
+            }
+
+            builder.append('\n');
+            offset += definition.width();
+        }
+        return builder.toString();
+    }
+}
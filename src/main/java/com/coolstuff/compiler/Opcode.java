@@ -0,0 +1,108 @@
+package com.coolstuff.compiler;
+
+public final class Opcode {
+    public static final byte CONSTANT = 0;
+    public static final byte NULL = 1;
+    public static final byte TRUE = 2;
+    public static final byte FALSE = 3;
+    public static final byte POP = 4;
+    public static final byte POP_N = 5;
+
+    public static final byte ADD = 6;
+    public static final byte SUB = 7;
+    public static final byte MUL = 8;
+    public static final byte DIV = 9;
+    public static final byte EQ = 10;
+    public static final byte NOT_EQ = 11;
+    public static final byte LT = 12;
+    public static final byte GT = 13;
+    public static final byte LTE = 14;
+    public static final byte GTE = 15;
+    public static final byte MINUS = 16;
+    public static final byte BANG = 17;
+    public static final byte TO_BOOLEAN = 18;
+
+    public static final byte JUMP = 19;
+    public static final byte JUMP_IF_FALSE = 20;
+    public static final byte JUMP_IF_TRUE = 21;
+
+    public static final byte GET_GLOBAL = 22;
+    public static final byte SET_GLOBAL = 23;
+    public static final byte GET_LOCAL = 24;
+    public static final byte SET_LOCAL = 25;
+    public static final byte GET_OUTER = 26;
+
+    public static final byte ARRAY = 27;
+    public static final byte HASH = 28;
+    public static final byte CHECK_HASHABLE = 29;
+    public static final byte CHECK_INDEXABLE = 30;
+    public static final byte INDEX = 31;
+
+    public static final byte CLOSURE = 32;
+    public static final byte CHECK_CALLABLE = 33;
+    public static final byte CALL = 34;
+    public static final byte RETURN_VALUE = 35;
+    public static final byte RAISE = 36;
+    public static final byte TAIL_CALL = 37;
+
+    private static final Definition[] DEFINITIONS = {
+            new Definition("CONSTANT", 4),
+            new Definition("NULL"),
+            new Definition("TRUE"),
+            new Definition("FALSE"),
+            new Definition("POP"),
+            new Definition("POP_N", 2),
+            new Definition("ADD"),
+            new Definition("SUB"),
+            new Definition("MUL"),
+            new Definition("DIV"),
+            new Definition("EQ"),
+            new Definition("NOT_EQ"),
+            new Definition("LT"),
+            new Definition("GT"),
+            new Definition("LTE"),
+            new Definition("GTE"),
+            new Definition("MINUS"),
+            new Definition("BANG"),
+            new Definition("TO_BOOLEAN"),
+            new Definition("JUMP", 4),
+            new Definition("JUMP_IF_FALSE", 4),
+            new Definition("JUMP_IF_TRUE", 4),
+            new Definition("GET_GLOBAL", 2),
+            new Definition("SET_GLOBAL", 2),
+            new Definition("GET_LOCAL", 2),
+            new Definition("SET_LOCAL", 2),
+            new Definition("GET_OUTER", 2, 2),
+            new Definition("ARRAY", 4),
+            new Definition("HASH", 4),
+            new Definition("CHECK_HASHABLE"),
+            new Definition("CHECK_INDEXABLE"),
+            new Definition("INDEX"),
+            new Definition("CLOSURE", 2),
+            new Definition("CHECK_CALLABLE"),
+            new Definition("CALL", 2, 2),
+            new Definition("RETURN_VALUE"),
+            new Definition("RAISE", 1, 4),
+            new Definition("TAIL_CALL", 2, 2)
+    };
+
+    private Opcode() {
+    }
+
+    public static Definition lookup(byte opcode) {
+        if (opcode < 0 || opcode >= DEFINITIONS.length) {
+            throw new IllegalArgumentException("Opcode %d undefined".formatted(opcode));
+        }
+        return DEFINITIONS[opcode];
+    }
+
+    public record Definition(String name, int... operandWidths) {
+        public int width() {
+            var width = 1;
+            for (var operandWidth : operandWidths) {
+                width += operandWidth;
+            }
+            return width;
+        }
+    }
+}
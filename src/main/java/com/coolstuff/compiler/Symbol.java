@@ -0,0 +1,8 @@
+package com.coolstuff.compiler;
+
+/**
+ * Resolved variable location. {@code depth} counts function scopes between the
+ * reference and the declaring scope and is always 0 for globals.
+ */
+public record Symbol(String name, SymbolScope scope, int depth, int index) {
+}
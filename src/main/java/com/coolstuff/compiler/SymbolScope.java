@@ -0,0 +1,6 @@
+package com.coolstuff.compiler;
+
+public enum SymbolScope {
+    GLOBAL,
+    LOCAL
+}
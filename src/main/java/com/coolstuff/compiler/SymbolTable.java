@@ -0,0 +1,91 @@
+package com.coolstuff.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compile-time scope. Only the program and function bodies open a scope: blocks of
+ * {@code if}/{@code while} share the bindings of the enclosing function, like
+ * {@code Environment} does in the tree-walking evaluator.
+ */
+final class SymbolTable {
+    private final SymbolTable outer;
+    private final Map<String, Integer> store = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Symbol> fallbacks = new ArrayList<>();
+
+    SymbolTable() {
+        this.outer = null;
+    }
+
+    SymbolTable(SymbolTable outer) {
+        this.outer = outer;
+    }
+
+    boolean isGlobal() {
+        return outer == null;
+    }
+
+    SymbolTable outer() {
+        return outer;
+    }
+
+    int defineParameter(String name) {
+        return store.computeIfAbsent(name, ignored -> {
+            names.add(name);
+            fallbacks.add(null);
+            return names.size() - 1;
+        });
+    }
+
+    /**
+     * Declares a {@code let} binding. Until the {@code let} executes, reads of the slot
+     * fall through to whatever the same name resolves to in the enclosing scope.
+     */
+    void defineLocal(String name) {
+        if (store.containsKey(name)) {
+            return;
+        }
+        names.add(name);
+        fallbacks.add(outer.resolveFrom(name, 1));
+        store.put(name, names.size() - 1);
+    }
+
+    Symbol resolve(String name) {
+        return resolveFrom(name, 0);
+    }
+
+    private Symbol resolveFrom(String name, int depth) {
+        var table = this;
+        while (!table.isGlobal()) {
+            var slot = table.store.get(name);
+            if (slot != null) {
+                return new Symbol(name, SymbolScope.LOCAL, depth, slot);
+            }
+            table = table.outer;
+            depth++;
+        }
+        return new Symbol(name, SymbolScope.GLOBAL, 0, table.globalIndex(name));
+    }
+
+    private int globalIndex(String name) {
+        return store.computeIfAbsent(name, ignored -> {
+            names.add(name);
+            return names.size() - 1;
+        });
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    String[] names() {
+        return names.toArray(String[]::new);
+    }
+
+    Symbol[] fallbacks() {
+        return fallbacks.toArray(Symbol[]::new);
+    }
+}
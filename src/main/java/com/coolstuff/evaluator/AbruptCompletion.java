@@ -0,0 +1,28 @@
+package com.coolstuff.evaluator;
+
+import com.coolstuff.evaluator.object.MonkeyBreak;
+import com.coolstuff.evaluator.object.MonkeyContinue;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyReturn;
+
+/**
+ * Thrown when an {@code if} used as a value ends in {@code return}, {@code break} or {@code continue}, e.g.
+ * {@code let y = if (x) { return 1; };}: the rest of the enclosing expression is abandoned and the signal goes to the
+ * statement list, loop, call or program that consumes it. It has no stack trace, so throwing it costs about as much as
+ * returning. Shared by every engine that runs on the host stack.
+ */
+public final class AbruptCompletion extends RuntimeException {
+    // the evaluator keeps the completion and its value in its own fields, so it throws this one without a signal
+    static final AbruptCompletion INSTANCE = new AbruptCompletion(null);
+
+    public final MonkeyObject<?> signal;
+
+    public AbruptCompletion(MonkeyObject<?> signal) {
+        super(null, null, false, false);
+        this.signal = signal;
+    }
+
+    public static boolean isSignal(MonkeyObject<?> result) {
+        return result instanceof MonkeyReturn<?> || result instanceof MonkeyBreak || result instanceof MonkeyContinue;
+    }
+}
@@ -4,12 +4,48 @@ import com.coolstuff.evaluator.object.MonkeyObject;
 import com.coolstuff.evaluator.object.ObjectType;
 import com.coolstuff.token.Token;
 
+/**
+ * A callable value. Arguments are passed as an array; calls with up to three arguments can also pass them directly,
+ * which lets a function that binds them into its own locals skip the array. By default those entry points pack the
+ * arguments and delegate to the {@link MonkeyFunctionInterface} held by the object.
+ */
 public abstract class AbstractMonkeyFunction extends MonkeyObject<MonkeyFunctionInterface> {
 
+    protected static final MonkeyObject<?>[] NO_ARGUMENTS = {};
+
     public AbstractMonkeyFunction(ObjectType type) {
         super(type);
     }
 
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?>[] arguments, Evaluator evaluator) throws EvaluationException {
+        return getObject().apply(callToken, arguments, evaluator);
+    }
+
+    public MonkeyObject<?> call(Token callToken, Evaluator evaluator) throws EvaluationException {
+        return call(callToken, NO_ARGUMENTS, evaluator);
+    }
+
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, Evaluator evaluator) throws EvaluationException {
+        return call(callToken, new MonkeyObject<?>[]{first}, evaluator);
+    }
+
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, MonkeyObject<?> second, Evaluator evaluator) throws EvaluationException {
+        return call(callToken, new MonkeyObject<?>[]{first, second}, evaluator);
+    }
+
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, MonkeyObject<?> second, MonkeyObject<?> third, Evaluator evaluator) throws EvaluationException {
+        return call(callToken, new MonkeyObject<?>[]{first, second, third}, evaluator);
+    }
+
+    /**
+     * A call of this function in tail position, for the trampoline of the function whose body makes it, or
+     * {@code null} if this kind of function is only called directly. Used by JIT-compiled bodies, which run under
+     * whichever engine created the function.
+     */
+    public MonkeyObject<?> tailCall(Token callToken, String functionName, MonkeyObject<?>[] arguments) {
+        return null;
+    }
+
     public static void checkArgumentCount(int expected, int actual, Token callToken, Evaluator evaluator) throws EvaluationException {
         if (actual != expected) {
             throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Wrong number of arguments. Expected %d, got %d", expected, actual);
@@ -1,66 +1,359 @@
 package com.coolstuff.evaluator;
 
 import com.coolstuff.evaluator.object.*;
+import com.coolstuff.token.Token;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 public enum BuiltInFunctions {
     LEN("len", (callToken, arguments, evaluator) -> {
-        AbstractMonkeyFunction.checkArgumentCount(1, arguments.size(), callToken, evaluator);
-        MonkeyObject<?> argument = arguments.get(0);
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        MonkeyObject<?> argument = arguments[0];
 
         return switch (argument) {
-            case MonkeyString string -> new MonkeyInteger(string.getObject().length());
-            case MonkeyArray array -> new MonkeyInteger(array.getObject().size());
+            case MonkeyString string -> MonkeyInteger.valueOf(string.length());
+            case MonkeyArray array -> MonkeyInteger.valueOf(array.getObject().size());
+            case MonkeyRange range -> MonkeyInteger.valueOf(range.length());
+            case MonkeyOffHeapArray offHeap -> MonkeyInteger.valueOf(MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator).length());
             default -> throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `len` not supported, got %s", argument.getType());
         };
     }),
 
     FIRST("first", (callToken, arguments, evaluator) -> {
-        AbstractMonkeyFunction.checkArgumentCount(1, arguments.size(), callToken, evaluator);
-        MonkeyObject<?> argument = arguments.get(0);
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        MonkeyObject<?> argument = arguments[0];
 
         return switch (argument) {
             case MonkeyArray array -> !array.getObject().isEmpty() ? array.getObject().getFirst() : MonkeyNull.INSTANCE;
+            case MonkeyRange range -> !range.isEmpty() ? range.get(0) : MonkeyNull.INSTANCE;
+            case MonkeyOffHeapArray offHeap -> !MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator).isEmpty() ? offHeap.get(0) : MonkeyNull.INSTANCE;
             default -> throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `first` not supported, got %s", argument.getType());
         };
     }),
 
     LAST("last", (callToken, arguments, evaluator) -> {
-        AbstractMonkeyFunction.checkArgumentCount(1, arguments.size(), callToken, evaluator);
-        MonkeyObject<?> argument = arguments.get(0);
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        MonkeyObject<?> argument = arguments[0];
 
         return switch (argument) {
             case MonkeyArray array -> !array.getObject().isEmpty() ? array.getObject().getLast() : MonkeyNull.INSTANCE;
+            case MonkeyRange range -> !range.isEmpty() ? range.get(range.length() - 1) : MonkeyNull.INSTANCE;
+            case MonkeyOffHeapArray offHeap -> !MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator).isEmpty()
+                    ? offHeap.get(offHeap.length() - 1)
+                    : MonkeyNull.INSTANCE;
             default -> throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `last` not supported, got %s", argument.getType());
         };
     }),
 
     REST("rest", (callToken, arguments, evaluator) -> {
-        AbstractMonkeyFunction.checkArgumentCount(1, arguments.size(), callToken, evaluator);
-        MonkeyObject<?> argument = arguments.get(0);
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        MonkeyObject<?> argument = arguments[0];
 
         return switch (argument) {
-            case MonkeyArray array -> !array.getObject().isEmpty() ? new MonkeyArray(array.getObject().subList(1, array.getObject().size())) : MonkeyNull.INSTANCE;
+            case MonkeyArray array -> !array.getObject().isEmpty() ? array.rest() : MonkeyNull.INSTANCE;
+            case MonkeyRange range -> !range.isEmpty() ? range.rest() : MonkeyNull.INSTANCE;
+            case MonkeyOffHeapArray offHeap -> !MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator).isEmpty() ? offHeap.rest() : MonkeyNull.INSTANCE;
             default -> throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `rest` not supported, got %s", argument.getType());
         };
     }),
 
     PUSH("push", (callToken, arguments, evaluator) -> {
-        AbstractMonkeyFunction.checkArgumentCount(2, arguments.size(), callToken, evaluator);
-        AbstractMonkeyFunction.checkArgumentType(arguments.get(0), ObjectType.ARRAY_OBJ, "push", callToken, evaluator);
-        MonkeyArray array = (MonkeyArray) arguments.get(0);
-        var copy = new ArrayList<>(array.getObject());
-        copy.add(arguments.get(1));
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        AbstractMonkeyFunction.checkArgumentType(arguments[0], ObjectType.ARRAY_OBJ, "push", callToken, evaluator);
+        MonkeyArray array = (MonkeyArray) arguments[0];
 
-        return new MonkeyArray(copy);
+        return array.push(arguments[1]);
+    }),
+
+    RANGE("range", (callToken, arguments, evaluator) -> {
+        if (arguments.length < 1 || arguments.length > 3) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Wrong number of arguments. Expected 1 to 3, got %d", arguments.length);
+        }
+        for (var argument : arguments) {
+            AbstractMonkeyFunction.checkArgumentType(argument, ObjectType.INTEGER, "range", callToken, evaluator);
+        }
+        if (arguments.length == 1) {
+            return new MonkeyRange(0, ((MonkeyInteger) arguments[0]).getValue(), 1);
+        }
+
+        var start = ((MonkeyInteger) arguments[0]).getValue();
+        var end = ((MonkeyInteger) arguments[1]).getValue();
+        var step = arguments.length == 3 ? ((MonkeyInteger) arguments[2]).getValue() : 1;
+        if (step == 0) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Step of `range` must not be 0");
+        }
+        if (MonkeyRange.length(start, end, step) < 0) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Range from %d to %d has too many elements", start, end);
+        }
+        return new MonkeyRange(start, end, step);
+    }),
+
+    OFF_HEAP("offHeap", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        return offHeapCopy(arguments[0], "offHeap", callToken, evaluator);
+    }),
+
+    RELEASE("release", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        AbstractMonkeyFunction.checkArgumentType(arguments[0], ObjectType.OFF_HEAP_ARRAY_OBJ, "release", callToken, evaluator);
+
+        ((MonkeyOffHeapArray) arguments[0]).release();
+        return MonkeyNull.INSTANCE;
+    }),
+
+    // the off-heap copy lives only for the duration of the callback
+    WITH_OFF_HEAP("withOffHeap", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[1], callToken);
+        var offHeap = offHeapCopy(arguments[0], "withOffHeap", callToken, evaluator);
+        try {
+            return evaluator.callFunction(callToken, function, callbackName(function), offHeap);
+        } finally {
+            offHeap.release();
+        }
+    }),
+
+    MMAP_INTS("mmap_ints", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        return mapFile(arguments[0], false, "mmap_ints", callToken, evaluator);
+    }),
+
+    MMAP_BYTES("mmap_bytes", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        return mapFile(arguments[0], true, "mmap_bytes", callToken, evaluator);
+    }),
+
+    LINES("lines", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        var path = path(arguments[0], "lines", callToken, evaluator);
+        try {
+            return MonkeyLines.open(path);
+        } catch (IOException | InvalidPathException e) {
+            throw fileError(e, "read", path, callToken, evaluator);
+        }
+    }),
+
+    NEXT("next", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        AbstractMonkeyFunction.checkArgumentType(arguments[0], ObjectType.LINES_OBJ, "next", callToken, evaluator);
+        var lines = (MonkeyLines) arguments[0];
+        try {
+            var line = lines.next();
+            return line != null ? line : MonkeyNull.INSTANCE;
+        } catch (IOException e) {
+            throw fileError(e, "read", lines.path(), callToken, evaluator);
+        }
+    }),
+
+    READ_FILE("readFile", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        var path = path(arguments[0], "readFile", callToken, evaluator);
+        try (var reader = MonkeyLines.reader(Path.of(path))) {
+            var text = new StringBuilder();
+            var buffer = new char[MonkeyLines.BUFFER_SIZE];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                text.append(buffer, 0, read);
+            }
+            return new MonkeyString(text.toString());
+        } catch (IOException | InvalidPathException e) {
+            throw fileError(e, "read", path, callToken, evaluator);
+        }
+    }),
+
+    WRITE_FILE("writeFile", (callToken, arguments, evaluator) -> writeFile(arguments, false, "writeFile", callToken, evaluator)),
+
+    APPEND_FILE("appendFile", (callToken, arguments, evaluator) -> writeFile(arguments, true, "appendFile", callToken, evaluator)),
+
+    MAP("map", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var elements = sequence(arguments[0], "map", callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[1], callToken);
+        var name = callbackName(function);
+
+        // a lines iterator is mapped as it is read, so the result grows like the one of filter
+        var results = new MonkeyObject<?>[elements instanceof MonkeyLines ? 16 : materializedSize(elements, callToken, evaluator)];
+        var count = 0;
+        for (var element : elements) {
+            if (count == results.length) {
+                results = Arrays.copyOf(results, materializedSize(count * 2L, callToken, evaluator));
+            }
+            results[count++] = evaluator.callFunction(callToken, function, name, element);
+        }
+        return MonkeyArray.of(results, count);
+    }),
+
+    FILTER("filter", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var elements = sequence(arguments[0], "filter", callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[1], callToken);
+        var name = callbackName(function);
+
+        // an array never needs more room than it has elements; a range may be too long to reserve space up front
+        var kept = new MonkeyObject<?>[elements instanceof List<?> list ? list.size() : 16];
+        var count = 0;
+        for (var element : elements) {
+            if (Evaluator.isTruth(evaluator.callFunction(callToken, function, name, element))) {
+                if (count == kept.length) {
+                    kept = Arrays.copyOf(kept, materializedSize(count * 2L, callToken, evaluator));
+                }
+                kept[count++] = element;
+            }
+        }
+        return count == kept.length && arguments[0] instanceof MonkeyArray ? arguments[0] : MonkeyArray.of(kept, count);
+    }),
+
+    REDUCE("reduce", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(3, arguments.length, callToken, evaluator);
+        var elements = sequence(arguments[0], "reduce", callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[2], callToken);
+        var name = callbackName(function);
+
+        var accumulator = arguments[1];
+        for (var element : elements) {
+            accumulator = evaluator.callFunction(callToken, function, name, accumulator, element);
+        }
+        return accumulator;
+    }),
+
+    EACH("each", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var elements = sequence(arguments[0], "each", callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[1], callToken);
+        var name = callbackName(function);
+
+        for (var element : elements) {
+            evaluator.callFunction(callToken, function, name, element);
+        }
+        return MonkeyNull.INSTANCE;
+    }),
+
+    SORT("sort", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        if (arguments[0] instanceof MonkeyArray array && array.elements() instanceof PackedVector packed
+                && packed.elementType() == ObjectType.INTEGER) {
+            var values = packed.toLongArray();
+            Arrays.sort(values);
+            return new MonkeyArray(PackedVector.ofLongs(values));
+        }
+
+        var sorted = toArray(sequence(arguments[0], "sort", callToken, evaluator), "sort", callToken, evaluator);
+
+        Arrays.sort(sorted, ordering(sorted, "sort", callToken, evaluator));
+        return MonkeyArray.of(sorted);
+    }),
+
+    SORT_BY("sortBy", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var elements = toArray(sequence(arguments[0], "sortBy", callToken, evaluator), "sortBy", callToken, evaluator);
+        var function = evaluator.checkCallable(arguments[1], callToken);
+        var name = callbackName(function);
+
+        // each key is computed once, then the positions are sorted by key
+        var keys = new MonkeyObject<?>[elements.length];
+        var order = new Integer[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            keys[i] = evaluator.callFunction(callToken, function, name, elements[i]);
+            order[i] = i;
+        }
+        var byKey = ordering(keys, "sortBy", callToken, evaluator);
+        Arrays.sort(order, (a, b) -> byKey.compare(keys[a], keys[b]));
+
+        var sorted = new MonkeyObject<?>[elements.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = elements[order[i]];
+        }
+        return MonkeyArray.of(sorted);
+    }),
+
+    SUM("sum", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        if (packedIntegers(arguments[0]) instanceof PackedVector packed) {
+            return MonkeyInteger.valueOf(NumericKernels.INSTANCE.sum(packed.longs(), packed.offset(), packed.size()));
+        }
+        if (arguments[0] instanceof MonkeyOffHeapArray offHeap) {
+            MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator);
+            long sum = 0;
+            for (long i = 0; i < offHeap.length(); i++) {
+                sum += offHeap.getLong(i);
+            }
+            return MonkeyInteger.valueOf(sum);
+        }
+
+        long sum = 0;
+        for (var element : sequence(arguments[0], "sum", callToken, evaluator)) {
+            sum += integer(element, "sum", callToken, evaluator);
+        }
+        return MonkeyInteger.valueOf(sum);
+    }),
+
+    MIN("min", (callToken, arguments, evaluator) -> extreme(arguments, false, "min", callToken, evaluator)),
+
+    MAX("max", (callToken, arguments, evaluator) -> extreme(arguments, true, "max", callToken, evaluator)),
+
+    DOT("dot", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var left = integers(arguments[0], "dot", callToken, evaluator);
+        var right = integers(arguments[1], "dot", callToken, evaluator);
+        checkSameLength(left, right, "dot", callToken, evaluator);
+
+        return MonkeyInteger.valueOf(NumericKernels.INSTANCE.dot(left.array(), left.offset(), right.array(), right.offset(), left.length()));
+    }),
+
+    VADD("vadd", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var left = integers(arguments[0], "vadd", callToken, evaluator);
+        var right = integers(arguments[1], "vadd", callToken, evaluator);
+        checkSameLength(left, right, "vadd", callToken, evaluator);
+
+        var result = new long[left.length()];
+        NumericKernels.INSTANCE.add(left.array(), left.offset(), right.array(), right.offset(), result, result.length);
+        return new MonkeyArray(PackedVector.ofLongs(result));
+    }),
+
+    VMUL("vmul", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var left = integers(arguments[0], "vmul", callToken, evaluator);
+        var right = integers(arguments[1], "vmul", callToken, evaluator);
+        checkSameLength(left, right, "vmul", callToken, evaluator);
+
+        var result = new long[left.length()];
+        NumericKernels.INSTANCE.multiply(left.array(), left.offset(), right.array(), right.offset(), result, result.length);
+        return new MonkeyArray(PackedVector.ofLongs(result));
+    }),
+
+    SCALE("scale", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var values = integers(arguments[0], "scale", callToken, evaluator);
+        AbstractMonkeyFunction.checkArgumentType(arguments[1], ObjectType.INTEGER, "scale", callToken, evaluator);
+
+        var result = new long[values.length()];
+        NumericKernels.INSTANCE.scale(values.array(), values.offset(), ((MonkeyInteger) arguments[1]).getValue(), result, result.length);
+        return new MonkeyArray(PackedVector.ofLongs(result));
     }),
 
     PUTS("puts", (callToken, arguments, evaluator) -> {
+        var output = evaluator.getOutput();
         for (var arg : arguments) {
-            System.out.print(arg.inspect());
+            output.print(arg.inspect());
         }
-        System.out.println();
+        output.println();
+        return MonkeyNull.INSTANCE;
+    }),
+
+    FLUSH("flush", (callToken, arguments, evaluator) -> {
+        AbstractMonkeyFunction.checkArgumentCount(0, arguments.length, callToken, evaluator);
+        evaluator.getOutput().flush();
         return MonkeyNull.INSTANCE;
     });
 
@@ -74,6 +367,228 @@ public enum BuiltInFunctions {
         this.builtInFunction = new BuiltInFunction(identifier, functionInterface);
     }
 
+    // arrays and ranges are both walked in order; a range is never copied into an array just to be iterated
+    private static Iterable<MonkeyObject<?>> sequence(MonkeyObject<?> argument, String functionName, Token callToken,
+                                                      Evaluator evaluator) throws EvaluationException {
+        return switch (argument) {
+            case MonkeyArray array -> array.elements();
+            case MonkeyRange range -> range;
+            case MonkeyOffHeapArray offHeap -> MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator);
+            case MonkeyLines lines -> lines;
+            default -> throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `%s` must be %s, %s, %s or %s, got %s",
+                    functionName, ObjectType.ARRAY_OBJ, ObjectType.RANGE_OBJ, ObjectType.OFF_HEAP_ARRAY_OBJ, ObjectType.LINES_OBJ, argument.getType());
+        };
+    }
+
+    // wherever the length must be known before the first element; a lines iterator would have to be read whole first
+    private static Iterable<MonkeyObject<?>> sized(Iterable<MonkeyObject<?>> elements, String functionName, Token callToken,
+                                                   Evaluator evaluator) throws EvaluationException {
+        if (elements instanceof MonkeyLines) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Argument to `%s` must not be %s, collect its lines with `map` first",
+                    functionName, ObjectType.LINES_OBJ);
+        }
+        return elements;
+    }
+
+    private static int materializedSize(Iterable<MonkeyObject<?>> elements, Token callToken, Evaluator evaluator) throws EvaluationException {
+        if (elements instanceof List<?> list) {
+            return list.size();
+        }
+        var length = elements instanceof MonkeyOffHeapArray offHeap ? offHeap.length() : ((MonkeyRange) elements).length();
+        return materializedSize(length, callToken, evaluator);
+    }
+
+    private static int materializedSize(long length, Token callToken, Evaluator evaluator) throws EvaluationException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Array of %d elements is too large", length);
+        }
+        return (int) length;
+    }
+
+    private static MonkeyObject<?>[] toArray(Iterable<MonkeyObject<?>> elements, String functionName, Token callToken,
+                                             Evaluator evaluator) throws EvaluationException {
+        elements = sized(elements, functionName, callToken, evaluator);
+        var array = new MonkeyObject<?>[materializedSize(elements, callToken, evaluator)];
+        var count = 0;
+        for (var element : elements) {
+            array[count++] = element;
+        }
+        return array;
+    }
+
+    private record Longs(long[] array, int offset, int length) {}
+
+    private static PackedVector packedIntegers(MonkeyObject<?> argument) {
+        if (argument instanceof MonkeyArray array && array.elements() instanceof PackedVector packed
+                && packed.elementType() == ObjectType.INTEGER) {
+            return packed;
+        }
+        return null;
+    }
+
+    // a packed integer array is read in place; any other array or range is copied, checking every element
+    private static Longs integers(MonkeyObject<?> argument, String functionName, Token callToken, Evaluator evaluator) throws EvaluationException {
+        if (packedIntegers(argument) instanceof PackedVector packed) {
+            return new Longs(packed.longs(), packed.offset(), packed.size());
+        }
+
+        var elements = sized(sequence(argument, functionName, callToken, evaluator), functionName, callToken, evaluator);
+        var values = new long[materializedSize(elements, callToken, evaluator)];
+        var count = 0;
+        for (var element : elements) {
+            values[count++] = integer(element, functionName, callToken, evaluator);
+        }
+        return new Longs(values, 0, values.length);
+    }
+
+    private static long integer(MonkeyObject<?> element, String functionName, Token callToken, Evaluator evaluator) throws EvaluationException {
+        if (element instanceof MonkeyInteger integer) {
+            return integer.getValue();
+        }
+        throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Argument to `%s` must contain only integers, got %s", functionName, element.getType());
+    }
+
+    private static void checkSameLength(Longs left, Longs right, String functionName, Token callToken, Evaluator evaluator) throws EvaluationException {
+        if (left.length() != right.length()) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Arguments to `%s` must have the same length, got %d and %d",
+                    functionName, left.length(), right.length());
+        }
+    }
+
+    // min or max of the integers in an array or range, or null when it is empty
+    private static MonkeyObject<?> extreme(MonkeyObject<?>[] arguments, boolean max, String functionName, Token callToken,
+                                           Evaluator evaluator) throws EvaluationException {
+        AbstractMonkeyFunction.checkArgumentCount(1, arguments.length, callToken, evaluator);
+        if (packedIntegers(arguments[0]) instanceof PackedVector packed) {
+            if (packed.isEmpty()) {
+                return MonkeyNull.INSTANCE;
+            }
+            var kernels = NumericKernels.INSTANCE;
+            return MonkeyInteger.valueOf(max
+                    ? kernels.max(packed.longs(), packed.offset(), packed.size())
+                    : kernels.min(packed.longs(), packed.offset(), packed.size()));
+        }
+        if (arguments[0] instanceof MonkeyOffHeapArray offHeap) {
+            if (MonkeyOffHeapArray.verifyNotReleased(offHeap, callToken, evaluator).isEmpty()) {
+                return MonkeyNull.INSTANCE;
+            }
+            var result = offHeap.getLong(0);
+            for (long i = 1; i < offHeap.length(); i++) {
+                result = max ? Math.max(result, offHeap.getLong(i)) : Math.min(result, offHeap.getLong(i));
+            }
+            return MonkeyInteger.valueOf(result);
+        }
+
+        MonkeyInteger result = null;
+        for (var element : sequence(arguments[0], functionName, callToken, evaluator)) {
+            var value = integer(element, functionName, callToken, evaluator);
+            if (result == null || (max ? value > result.getValue() : value < result.getValue())) {
+                result = (MonkeyInteger) element;
+            }
+        }
+        return result != null ? result : MonkeyNull.INSTANCE;
+    }
+
+    private static MonkeyOffHeapArray mapFile(MonkeyObject<?> argument, boolean bytes, String functionName, Token callToken,
+                                              Evaluator evaluator) throws EvaluationException {
+        var path = path(argument, functionName, callToken, evaluator);
+        try {
+            return MonkeyOffHeapArray.map(Path.of(path), bytes);
+        } catch (IOException | InvalidPathException | UnsupportedOperationException e) {
+            throw fileError(e, "map", path, callToken, evaluator);
+        }
+    }
+
+    // writes the inspected value, so a string is written as is
+    private static MonkeyObject<?> writeFile(MonkeyObject<?>[] arguments, boolean append, String functionName, Token callToken,
+                                             Evaluator evaluator) throws EvaluationException {
+        AbstractMonkeyFunction.checkArgumentCount(2, arguments.length, callToken, evaluator);
+        var path = path(arguments[0], functionName, callToken, evaluator);
+        var options = append
+                ? new StandardOpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND}
+                : new StandardOpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
+        try (var channel = FileChannel.open(Path.of(path), options);
+             var writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), MonkeyLines.BUFFER_SIZE),
+                     MonkeyLines.BUFFER_SIZE)) {
+            writer.write(arguments[1].inspect());
+        } catch (IOException | InvalidPathException e) {
+            throw fileError(e, "write", path, callToken, evaluator);
+        }
+        return MonkeyNull.INSTANCE;
+    }
+
+    private static String path(MonkeyObject<?> argument, String functionName, Token callToken, Evaluator evaluator) throws EvaluationException {
+        AbstractMonkeyFunction.checkArgumentType(argument, ObjectType.STRING, functionName, callToken, evaluator);
+        return ((MonkeyString) argument).getObject();
+    }
+
+    private static EvaluationException fileError(Throwable error, String action, String path, Token callToken, Evaluator evaluator) {
+        var reason = switch (error) {
+            case NoSuchFileException ignored -> "file not found";
+            case AccessDeniedException ignored -> "permission denied";
+            default -> error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        };
+        return evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Cannot %s %s: %s", action, path, reason);
+    }
+
+    private static MonkeyOffHeapArray offHeapCopy(MonkeyObject<?> argument, String functionName, Token callToken,
+                                                  Evaluator evaluator) throws EvaluationException {
+        var elements = sized(sequence(argument, functionName, callToken, evaluator), functionName, callToken, evaluator);
+        var length = switch (elements) {
+            case List<?> list -> list.size();
+            case MonkeyRange range -> range.length();
+            default -> ((MonkeyOffHeapArray) elements).length();
+        };
+
+        MonkeyOffHeapArray offHeap;
+        try {
+            offHeap = MonkeyOffHeapArray.allocate(length);
+        } catch (OutOfMemoryError e) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "Cannot allocate an off-heap array of %d integers: %s", length, e.getMessage());
+        }
+        try {
+            if (packedIntegers(argument) instanceof PackedVector packed) {
+                var values = packed.longs();
+                for (int i = 0; i < packed.size(); i++) {
+                    offHeap.set(i, values[packed.offset() + i]);
+                }
+            } else {
+                long index = 0;
+                for (var element : elements) {
+                    offHeap.set(index++, integer(element, functionName, callToken, evaluator));
+                }
+            }
+        } catch (EvaluationException | RuntimeException e) {
+            offHeap.release();
+            throw e;
+        }
+        return offHeap;
+    }
+
+    private static String callbackName(AbstractMonkeyFunction function) {
+        return function instanceof BuiltInFunction builtInFunction ? builtInFunction.getName() : "<anonymous>";
+    }
+
+    // sorting is defined for integers and for strings, but not for a mix of both
+    private static Comparator<MonkeyObject<?>> ordering(MonkeyObject<?>[] values, String functionName, Token callToken,
+                                                        Evaluator evaluator) throws EvaluationException {
+        if (values.length == 0) {
+            return (a, b) -> 0;
+        }
+        var type = values[0].getType();
+        if (type != ObjectType.INTEGER && type != ObjectType.STRING) {
+            throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Cannot order %s values in `%s`", type, functionName);
+        }
+        for (var value : values) {
+            if (value.getType() != type) {
+                throw evaluator.error(RuntimeErrorType.TYPE_MISMATCH, callToken, "Cannot order %s and %s values in `%s`", type, value.getType(), functionName);
+            }
+        }
+        return type == ObjectType.INTEGER
+                ? Comparator.comparingLong(value -> ((MonkeyInteger) value).getValue())
+                : Comparator.comparing(value -> ((MonkeyString) value).getObject());
+    }
+
     public static Optional<BuiltInFunction> getFunction(String identifier) {
         if (functionsMap == null) {
             functionsMap = new HashMap<>();
@@ -0,0 +1,74 @@
+package com.coolstuff.evaluator;
+
+import com.coolstuff.token.SourcePosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Call stack of a running program. Frames live in parallel arrays that are reused from call to call, so pushing a
+ * frame allocates nothing; {@link StackFrame} records are only built when an error takes a snapshot.
+ */
+public final class CallStack {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] functionNames = new String[INITIAL_CAPACITY];
+    private SourcePosition[] callSites = new SourcePosition[INITIAL_CAPACITY];
+    private int[] argumentCounts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void push(String functionName, SourcePosition callSite, int argumentCount) {
+        if (size == functionNames.length) {
+            var capacity = size * 2;
+            functionNames = Arrays.copyOf(functionNames, capacity);
+            callSites = Arrays.copyOf(callSites, capacity);
+            argumentCounts = Arrays.copyOf(argumentCounts, capacity);
+        }
+        set(size++, functionName, callSite, argumentCount);
+    }
+
+    public void replaceTop(String functionName, SourcePosition callSite, int argumentCount) {
+        set(size - 1, functionName, callSite, argumentCount);
+    }
+
+    public void pop() {
+        size--;
+    }
+
+    public void truncate(int newSize) {
+        size = Math.min(size, newSize);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public CallStack copy() {
+        var copy = new CallStack();
+        copy.functionNames = Arrays.copyOf(functionNames, size);
+        copy.callSites = Arrays.copyOf(callSites, size);
+        copy.argumentCounts = Arrays.copyOf(argumentCounts, size);
+        copy.size = size;
+        return copy;
+    }
+
+    // most recent call first
+    public List<StackFrame> snapshot() {
+        var frames = new ArrayList<StackFrame>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            frames.add(new StackFrame(functionNames[i], callSites[i], argumentCounts[i]));
+        }
+        return frames;
+    }
+
+    private void set(int index, String functionName, SourcePosition callSite, int argumentCount) {
+        functionNames[index] = functionName;
+        callSites[index] = callSite;
+        argumentCounts[index] = argumentCount;
+    }
+}
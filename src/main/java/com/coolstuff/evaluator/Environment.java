@@ -2,43 +2,136 @@ package com.coolstuff.evaluator;
 
 import com.coolstuff.evaluator.object.MonkeyObject;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 public class Environment {
-    private final HashMap<String, MonkeyObject<?>> bindings = new HashMap<>();
+    private static final String[] NO_SLOTS = {};
+
+    private HashMap<String, MonkeyObject<?>> bindings;
+    private final String[] slotNames;
+    private final MonkeyObject<?>[] slots;
     private final Environment upper;
+    // the first `captured` slots live in `captures`, see the function scope constructor
+    private final int captured;
+    private final Environment captures;
+    private Environment closureScope;
 
     public Environment() {
-        this.upper = null;
+        this(null);
     }
 
     public Environment(Environment upper) {
         this.upper = upper;
+        this.bindings = new HashMap<>();
+        this.slotNames = NO_SLOTS;
+        this.slots = new MonkeyObject<?>[0];
+        this.captured = 0;
+        this.captures = null;
+        this.closureScope = this;
+    }
+
+    // Array-backed scope for a resolved function body, slot i holds slotNames[i].
+    public Environment(Environment upper, String[] slotNames) {
+        this.upper = upper;
+        this.slotNames = slotNames;
+        this.slots = new MonkeyObject<?>[slotNames.length];
+        this.captured = 0;
+        this.captures = null;
+        this.closureScope = this;
+    }
+
+    /**
+     * Scope of a resolved function body whose first {@code captured} slots are referenced by nested functions. Those
+     * slots are kept in a separate environment, and closures created here hold on to that one instead of this, so a
+     * closure keeps alive only the variables it can refer to and never the other locals of the call.
+     */
+    public Environment(Environment upper, String[] slotNames, int captured) {
+        this.upper = upper;
+        this.slotNames = slotNames;
+        this.slots = new MonkeyObject<?>[slotNames.length];
+        this.captured = captured;
+        this.captures = captured == 0 ? null : new Environment(upper, Arrays.copyOf(slotNames, captured));
+        this.closureScope = captures;
+    }
+
+    // Creation environment for functions defined in this scope. It stands at the same depth as this scope, so a
+    // function scope that captures nothing still gets an empty one.
+    public Environment closureScope() {
+        if (closureScope == null) {
+            closureScope = new Environment(upper, NO_SLOTS);
+        }
+        return closureScope;
     }
 
     public <T> MonkeyObject<T> set(String name, MonkeyObject<T> value) {
+        for (int i = 0; i < slotNames.length; i++) {
+            if (slotNames[i].equals(name)) {
+                return setSlot(i, value);
+            }
+        }
+
+        if (bindings == null) {
+            bindings = new HashMap<>();
+        }
         bindings.put(name, value);
         return value;
     }
 
-    public Optional<MonkeyObject<?>> get(String name) {
-        var value = bindings.get(name);
+    public <T> MonkeyObject<T> setSlot(int slot, MonkeyObject<T> value) {
+        if (slot < captured) {
+            captures.slots[slot] = value;
+        } else {
+            slots[slot] = value;
+        }
+        return value;
+    }
 
-        if (value == null) {
-            if (upper == null) {
-                return Optional.empty();
+    public MonkeyObject<?> get(String name) {
+        for (var environment = this; environment != null; environment = environment.upper) {
+            var value = environment.getOwn(name);
+            if (value != null) {
+                return value;
             }
-            return upper.get(name);
         }
+        return null;
+    }
+
+    public MonkeyObject<?> get(int depth, int slot, String name) {
+        var environment = this;
+        for (int i = 0; i < depth; i++) {
+            environment = environment.upper;
+        }
+
+        if (slot < 0) {
+            return environment.get(name);
+        }
+        if (slot < environment.captured) {
+            environment = environment.captures;
+        }
+
+        var value = environment.slots[slot];
+        if (value == null && environment.upper != null) {
+            // declared in that scope but its `let` hasn't run yet
+            return environment.upper.get(name);
+        }
+        return value;
+    }
 
-        return Optional.of(value);
+    private MonkeyObject<?> getOwn(String name) {
+        for (int i = 0; i < slotNames.length; i++) {
+            var value = slot(i);
+            if (value != null && slotNames[i].equals(name)) {
+                return value;
+            }
+        }
+        return bindings == null ? null : bindings.get(name);
     }
 
     public Map<String, MonkeyObject<?>> snapshotCurrentScope() {
-        return Map.copyOf(bindings);
+        return Map.copyOf(currentScope());
     }
 
     public Map<String, MonkeyObject<?>> snapshotMergedScopes() {
@@ -46,7 +139,25 @@ public class Environment {
         if (upper != null) {
             merged.putAll(upper.snapshotMergedScopes());
         }
-        merged.putAll(bindings);
+        merged.putAll(currentScope());
         return Map.copyOf(merged);
     }
+
+    private Map<String, MonkeyObject<?>> currentScope() {
+        var current = new HashMap<String, MonkeyObject<?>>();
+        if (bindings != null) {
+            current.putAll(bindings);
+        }
+        for (int i = 0; i < slotNames.length; i++) {
+            var value = slot(i);
+            if (value != null) {
+                current.put(slotNames[i], value);
+            }
+        }
+        return current;
+    }
+
+    private MonkeyObject<?> slot(int slot) {
+        return slot < captured ? captures.slots[slot] : slots[slot];
+    }
 }
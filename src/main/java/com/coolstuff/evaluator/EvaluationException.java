@@ -12,6 +12,12 @@ public class EvaluationException extends Exception {
         this.runtimeError = runtimeError;
     }
 
+    // for subclasses that build their error later; no stack trace is filled in
+    EvaluationException() {
+        super(null, null, false, false);
+        this.runtimeError = null;
+    }
+
     public RuntimeError getRuntimeError() {
         return runtimeError;
     }
@@ -0,0 +1,82 @@
+package com.coolstuff.evaluator;
+
+/**
+ * Thread whose stack is deep enough for {@link Evaluator#DEFAULT_MAX_CALL_DEPTH} nested calls. The evaluator, node
+ * interpreter and closure compiler use the Java stack for every call that is not in tail position, and a default
+ * thread stack runs out after a few hundred of them in a fresh JVM, so programs run on one of these instead. The
+ * stack is reserved address space; only the part a program actually recurses into is committed.
+ */
+public final class EvaluationThread extends Thread {
+    // in bytes; a million nested non-tail calls need about 512 MiB on the tree-walking engines
+    public static final long STACK_SIZE = Long.getLong("monkey.stackSize", 1L << 30);
+
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final Task<?, ?> task;
+    private Object result;
+    private Throwable failure;
+
+    private EvaluationThread(Task<?, ?> task) {
+        super(null, null, "monkey-evaluation", STACK_SIZE);
+        this.task = task;
+    }
+
+    /**
+     * Runs the task on a new evaluation thread and waits for it, returning its result or rethrowing what it threw.
+     * Tasks started on an evaluation thread, and tasks for which no such thread can be created, run on the caller.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, E extends Exception> T run(Task<T, E> task) throws E {
+        if (Thread.currentThread() instanceof EvaluationThread) {
+            return task.run();
+        }
+
+        var thread = new EvaluationThread(task);
+        try {
+            thread.start();
+        } catch (OutOfMemoryError e) {
+            return task.run();
+        }
+        join(thread);
+
+        var failure = thread.failure;
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        if (failure != null) {
+            throw (E) failure;
+        }
+        return (T) thread.result;
+    }
+
+    // the program cannot be abandoned halfway, so an interrupt is passed on once it has finished
+    private static void join(Thread thread) {
+        var interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            result = task.run();
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+}
@@ -10,59 +10,97 @@ import java.util.*;
 
 public class Evaluator {
 
-    private final Environment environment;
-    private final Deque<StackFrame> callStack;
+    public static final int DEFAULT_MAX_CALL_DEPTH = Integer.getInteger("monkey.maxCallDepth", 1_000_000);
+
+    private Environment environment;
+    private final CallStack callStack;
+    private final int maxCallDepth;
+    private final OutputSink output;
     private int loopDepth = 0;
+    private Completion completion = Completion.NORMAL;
+    private MonkeyObject<?> abruptValue;
+
+    /**
+     * How the statement that just ran completed. Anything but {@code NORMAL} makes the enclosing statement lists stop
+     * and hand their last value up to the loop or function body that consumes it, so {@code return}, {@code break}
+     * and {@code continue} travel as a field instead of as wrapper objects checked after every statement.
+     */
+    private enum Completion { NORMAL, RETURN, BREAK, CONTINUE }
+
+    static {
+        // link the exception while there is stack to spare; it is first needed where there is none
+        new StackExhaustedException(new CallStack(), SourcePosition.UNKNOWN);
+    }
 
     public Evaluator() {
-        this(new Environment(), new ArrayDeque<>());
+        this(new Environment(), new CallStack());
+    }
+
+    public Evaluator(OutputSink output) {
+        this(new Environment(), new CallStack(), DEFAULT_MAX_CALL_DEPTH, output);
     }
 
     public Evaluator(Environment environment) {
-        this(environment, new ArrayDeque<>());
+        this(environment, new CallStack());
+    }
+
+    public Evaluator(Environment environment, CallStack callStack) {
+        this(environment, callStack, DEFAULT_MAX_CALL_DEPTH);
     }
 
-    private Evaluator(Environment environment, Deque<StackFrame> callStack) {
+    public Evaluator(Environment environment, CallStack callStack, int maxCallDepth) {
+        this(environment, callStack, maxCallDepth, OutputSink.CONSOLE);
+    }
+
+    public Evaluator(Environment environment, CallStack callStack, int maxCallDepth, OutputSink output) {
         this.environment = environment;
         this.callStack = callStack;
+        this.maxCallDepth = maxCallDepth;
+        this.output = output;
     }
 
     public Evaluator child(Environment env) {
-        return new Evaluator(env, callStack);
+        return new Evaluator(env, callStack, maxCallDepth, output);
     }
 
     public Environment getEnvironment() {
         return environment;
     }
 
+    public OutputSink getOutput() {
+        return output;
+    }
+
     public EvaluationException error(RuntimeErrorType type, Token token, String message, Object... args) {
         return EvaluationException.from(type, token.position(), snapshotStack(), message, args);
     }
 
     private List<StackFrame> snapshotStack() {
-        return callStack.stream().toList();
+        return callStack.snapshot();
     }
 
     public MonkeyObject<?> eval(Node node) throws EvaluationException {
         return switch (node) {
             case Program astProgram -> evalStatements(astProgram.statements(), true);
+            case ExpressionStatement expressionStatement when expressionStatement.expression() instanceof IfExpression ifExpression ->
+                    evalIfExpression(ifExpression, false, false);
             case ExpressionStatement expressionStatement -> eval(expressionStatement.expression());
-            case IntegerLiteralExpression integerLiteral -> new MonkeyInteger(integerLiteral.value());
+            case IntegerLiteralExpression integerLiteral -> MonkeyInteger.valueOf(integerLiteral.value());
             case BooleanExpression booleanLiteral -> MonkeyBoolean.nativeToMonkey(booleanLiteral.value());
             case PrefixExpression prefixExpression -> evalPrefixExpression(prefixExpression);
             case InfixExpression infixExpression -> evalInfixExpression(infixExpression);
             case BlockStatement blockStatement -> evalStatements(blockStatement.statements(), false);
-            case IfExpression ifExpression -> evalIfExpression(ifExpression);
+            case IfExpression ifExpression -> evalIfValue(ifExpression);
             case ReturnStatement returnStatement -> evalReturnStatement(returnStatement);
             case LetStatement letStatement -> evalLetStatement(letStatement);
             case IdentifierExpression identifierExpression -> evalIdentifierExpression(identifierExpression);
             case FunctionLiteral functionLiteral -> evalFunction(functionLiteral);
-            case CallExpression callExpression -> evalCallExpression(callExpression);
+            case CallExpression callExpression -> evalCallExpression(callExpression, false);
             case StringLiteralExpression stringLiteral -> new MonkeyString(stringLiteral.value());
-            case ArrayLiteral arrayLiteral -> new MonkeyArray(List.of(evalExpressions(arrayLiteral.elements())));
+            case ArrayLiteral arrayLiteral -> MonkeyArray.of(evalExpressions(arrayLiteral.elements()));
             case IndexExpression indexExpression -> evalIndexExpression(indexExpression);
             case HashLiteral hashLiteral -> evalHashLiteral(hashLiteral);
-            case WhileStatement whileStatement -> evalWhileStatement(whileStatement);
+            case WhileStatement whileStatement -> evalWhileStatement(whileStatement, false);
             case BreakStatement breakStatement -> evalBreakStatement(breakStatement);
             case ContinueStatement continueStatement -> evalContinueStatement(continueStatement);
             default -> throw EvaluationException.from(RuntimeErrorType.UNSUPPORTED_OPERATION, SourcePosition.UNKNOWN, snapshotStack(), "Unexpected value: %s", node);
@@ -70,58 +108,154 @@ public class Evaluator {
     }
 
     private MonkeyObject<?> evalHashLiteral(HashLiteral literal) throws EvaluationException {
-        Map<HashKey, MonkeyObject<?>> map = new HashMap<>();
+        var table = new HashTable(literal.pairs().size());
         for (var pair : literal.pairs()) {
             var key = eval(pair.key());
-            var hashKey = MonkeyHashable.checkIsHashable(key, literal.token(), this).hashKey();
+            var hashable = MonkeyHashable.checkIsHashable(key, literal.token(), this);
             var value = eval(pair.value());
 
-            map.put(hashKey, value);
+            table.put(hashable, value);
         }
-        return new MonkeyHash(map);
+        return new MonkeyHash(table);
     }
 
     private MonkeyObject<?> evalIndexExpression(IndexExpression node) throws EvaluationException {
-        var left = eval(node.left());
+        var left = checkIndexable(eval(node.left()), node.token());
+        return applyIndex(node.token(), left, eval(node.index()));
+    }
+
+    public MonkeyObject<?> checkIndexable(MonkeyObject<?> left, Token token) throws EvaluationException {
+        if (left instanceof MonkeyArray || left instanceof MonkeyHash || left instanceof MonkeyRange || left instanceof MonkeyOffHeapArray) {
+            return left;
+        }
+        throw error(RuntimeErrorType.INVALID_INDEX, token, "Index operator not supported for %s", left.getType());
+    }
+
+    public MonkeyObject<?> applyIndex(Token token, MonkeyObject<?> left, MonkeyObject<?> indexValue) throws EvaluationException {
         return switch (left) {
             case MonkeyArray array -> {
-                var index = MonkeyArray.verifyIndexIsInteger(eval(node.index()), node.token(), this);
-                if (index.getObject() < 0 || index.getObject() >= array.getObject().size()) {
+                var index = MonkeyArray.verifyIndexIsInteger(indexValue, token, this);
+                if (index.getValue() < 0 || index.getValue() >= array.getObject().size()) {
                     yield MonkeyNull.INSTANCE;
                 }
-                yield array.getObject().get(index.getObject().intValue());
+                yield array.getObject().get((int) index.getValue());
 
             }
+            case MonkeyRange range -> {
+                var element = range.get(MonkeyArray.verifyIndexIsInteger(indexValue, token, this).getValue());
+                yield element != null ? element : MonkeyNull.INSTANCE;
+            }
+            case MonkeyOffHeapArray offHeap -> {
+                var index = MonkeyArray.verifyIndexIsInteger(indexValue, token, this).getValue();
+                var element = MonkeyOffHeapArray.verifyNotReleased(offHeap, token, this).get(index);
+                yield element != null ? element : MonkeyNull.INSTANCE;
+            }
             case MonkeyHash hash -> {
-                var key = eval(node.index());
-                var hashKey = MonkeyHashable.checkIsHashable(key, node.token(), this).hashKey();
-                var res = hash.getObject().get(hashKey);
+                var res = hash.get(MonkeyHashable.checkIsHashable(indexValue, token, this));
                 if (res == null) {
                     yield MonkeyNull.INSTANCE;
                 }
                 yield res;
             }
-            default -> throw error(RuntimeErrorType.INVALID_INDEX, node.token(), "Index operator not supported for %s", left.getType());
+            default -> throw error(RuntimeErrorType.INVALID_INDEX, token, "Index operator not supported for %s", left.getType());
         };
     }
 
-    private MonkeyObject<?> evalCallExpression(CallExpression node) throws EvaluationException {
-        var function = eval(node.function());
+    private MonkeyObject<?> evalCallExpression(CallExpression node, boolean tail) throws EvaluationException {
+        var token = node.token();
+        var function = checkCallable(eval(node.function()), token);
+        var functionName = resolveFunctionName(function, node.function());
+        var arguments = node.arguments();
+        if (tail && function instanceof MonkeyFunction monkeyFunction) {
+            return new MonkeyTailCall(token, monkeyFunction, functionName, evalExpressions(arguments));
+        }
 
+        // calls with up to three arguments pass them directly instead of through an array
+        MonkeyObject<?> first = null, second = null, third = null;
+        MonkeyObject<?>[] values = null;
+        switch (arguments.length) {
+            case 0 -> {
+            }
+            case 1 -> first = eval(arguments[0]);
+            case 2 -> {
+                first = eval(arguments[0]);
+                second = eval(arguments[1]);
+            }
+            case 3 -> {
+                first = eval(arguments[0]);
+                second = eval(arguments[1]);
+                third = eval(arguments[2]);
+            }
+            default -> values = evalExpressions(arguments);
+        }
+
+        return invoke(token, function, functionName, arguments.length, first, second, third, values);
+    }
+
+    public AbstractMonkeyFunction checkCallable(MonkeyObject<?> function, Token callToken) throws EvaluationException {
         if (!(function instanceof AbstractMonkeyFunction functionToCall)) {
-            throw error(RuntimeErrorType.NOT_CALLABLE, node.token(), "Not a function: %s", function.inspect());
+            throw error(RuntimeErrorType.NOT_CALLABLE, callToken, "Not a function: %s", function.inspect());
         }
+        return functionToCall;
+    }
 
-        var args = evalExpressions(node.arguments());
-        var functionName = resolveFunctionName(function, node.function());
-        callStack.push(new StackFrame(functionName, node.token().position(), args.length));
+    public MonkeyObject<?> callFunction(Token callToken, AbstractMonkeyFunction function, String functionName, MonkeyObject<?>[] args) throws EvaluationException {
+        return invoke(callToken, function, functionName, args.length, null, null, null, args);
+    }
+
+    public MonkeyObject<?> callFunction(Token callToken, AbstractMonkeyFunction function, String functionName,
+                                        MonkeyObject<?> argument) throws EvaluationException {
+        return invoke(callToken, function, functionName, 1, argument, null, null, null);
+    }
+
+    public MonkeyObject<?> callFunction(Token callToken, AbstractMonkeyFunction function, String functionName,
+                                        MonkeyObject<?> first, MonkeyObject<?> second) throws EvaluationException {
+        return invoke(callToken, function, functionName, 2, first, second, null, null);
+    }
+
+    // arguments come either in the first/second/third slots or, when values is not null, as an array
+    private MonkeyObject<?> invoke(Token callToken, AbstractMonkeyFunction function, String functionName, int argumentCount,
+                                   MonkeyObject<?> first, MonkeyObject<?> second, MonkeyObject<?> third,
+                                   MonkeyObject<?>[] values) throws EvaluationException {
+        pushFrame(functionName, callToken, argumentCount);
         try {
-            return functionToCall.getObject().apply(node.token(), Arrays.stream(args).toList(), this);
+            if (values != null) {
+                return function.call(callToken, values, this);
+            }
+            return switch (argumentCount) {
+                case 0 -> function.call(callToken, this);
+                case 1 -> function.call(callToken, first, this);
+                case 2 -> function.call(callToken, first, second, this);
+                default -> function.call(callToken, first, second, third, this);
+            };
+        } catch (StackOverflowError e) {
+            throw stackExhausted(callToken);
         } finally {
             callStack.pop();
         }
     }
 
+    // called from a catch of StackOverflowError, so it must not format anything (see StackExhaustedException)
+    public EvaluationException stackExhausted(Token callToken) {
+        return new StackExhaustedException(callStack, callToken.position());
+    }
+
+    public void pushFrame(String functionName, Token callToken, int argumentCount) throws EvaluationException {
+        if (callStack.size() >= maxCallDepth) {
+            throw error(RuntimeErrorType.STACK_OVERFLOW, callToken, "Maximum call depth of %d exceeded", maxCallDepth);
+        }
+        callStack.push(functionName, callToken.position(), argumentCount);
+    }
+
+    // A self tail call reuses the caller's frame, so a tail-recursive loop keeps the stack flat.
+    public void replaceFrame(String functionName, Token callToken, int argumentCount) {
+        callStack.replaceTop(functionName, callToken.position(), argumentCount);
+    }
+
+    public void popFrames(int count) {
+        callStack.truncate(callStack.size() - count);
+    }
+
     private String resolveFunctionName(MonkeyObject<?> function, Expression functionExpr) {
         if (function instanceof BuiltInFunction builtInFunction) {
             return builtInFunction.getName();
@@ -133,79 +267,92 @@ public class Evaluator {
     }
 
     private MonkeyObject<?>[] evalExpressions(Expression[] expressions) throws EvaluationException {
-        try {
-            return Arrays.stream(expressions).map(expr -> {
-                try {
-                    return eval(expr);
-                } catch (EvaluationException e) {
-                    throw new RuntimeException(e);
-                }
-            }).toList().toArray(MonkeyObject[]::new);
-        } catch (RuntimeException e) {
-            if (e.getCause() instanceof EvaluationException) {
-                throw (EvaluationException) e.getCause();
-            }
-            throw e;
+        var values = new MonkeyObject<?>[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            values[i] = eval(expressions[i]);
         }
+        return values;
     }
 
     private MonkeyObject<?> evalFunction(FunctionLiteral functionLiteral) {
-        return new MonkeyFunction(environment, functionLiteral);
+        return new MonkeyFunction(environment.closureScope(), functionLiteral);
     }
 
     private MonkeyObject<?> evalIdentifierExpression(IdentifierExpression identifierExpression) throws EvaluationException {
-        Optional<MonkeyObject<?>> resolvedValue = environment.get(identifierExpression.value());
+        var resolvedValue = identifierExpression.isResolved()
+                ? environment.get(identifierExpression.depth(), identifierExpression.slot(), identifierExpression.value())
+                : environment.get(identifierExpression.value());
 
-        if (resolvedValue.isEmpty()) {
+        if (resolvedValue == null) {
             return BuiltInFunctions.getFunction(identifierExpression.value()).orElseThrow(() ->
                     error(RuntimeErrorType.UNKNOWN_IDENTIFIER, identifierExpression.token(), "Identifier not found: %s", identifierExpression.value()));
         }
 
-        return resolvedValue.get();
+        return resolvedValue;
     }
 
     private MonkeyObject<?> evalLetStatement(LetStatement letStatement) throws EvaluationException {
         var resolvedValue = eval(letStatement.value());
-        return environment.set(letStatement.name().value(), resolvedValue);
+        var name = letStatement.name();
+        if (name.isLocal()) {
+            return environment.setSlot(name.slot(), resolvedValue);
+        }
+        return environment.set(name.value(), resolvedValue);
     }
 
     private MonkeyObject<?> evalReturnStatement(ReturnStatement returnStatement) throws EvaluationException {
         var returnValue = eval(returnStatement.returnValue());
+        completion = Completion.RETURN;
+        return returnValue;
+    }
 
-        return new MonkeyReturn<>(returnValue);
+    private MonkeyObject<?> evalIfValue(IfExpression ifExpression) throws EvaluationException {
+        var value = evalIfExpression(ifExpression, false, false);
+        if (completion != Completion.NORMAL) {
+            abruptValue = value;
+            throw AbruptCompletion.INSTANCE;
+        }
+        return value;
     }
 
-    private MonkeyObject<?> evalIfExpression(IfExpression ifExpression) throws EvaluationException {
+    private MonkeyObject<?> evalIfExpression(IfExpression ifExpression, boolean inBody, boolean tail) throws EvaluationException {
         var condition = eval(ifExpression.condition());
 
         if (isTruth(condition)) {
-            return eval(ifExpression.consequence());
+            return evalBlock(ifExpression.consequence(), inBody, tail);
         } else if (ifExpression.alternative() != null) {
-            return eval(ifExpression.alternative());
+            return evalBlock(ifExpression.alternative(), inBody, tail);
         } else {
             return MonkeyNull.INSTANCE;
         }
     }
 
-    private MonkeyObject<?> evalWhileStatement(WhileStatement whileStatement) throws EvaluationException {
+    private MonkeyObject<?> evalBlock(BlockStatement block, boolean inBody, boolean tail) throws EvaluationException {
+        return inBody ? evalBodyStatements(block.statements(), tail) : eval(block);
+    }
+
+    private MonkeyObject<?> evalWhileStatement(WhileStatement whileStatement, boolean inBody) throws EvaluationException {
         MonkeyObject<?> result = MonkeyNull.INSTANCE;
         loopDepth++;
 
         try {
             while (isTruth(eval(whileStatement.condition()))) {
-                result = eval(whileStatement.body());
-
-                if (result instanceof MonkeyBreak) {
-                    return MonkeyNull.INSTANCE;
-                }
-
-                if (result instanceof MonkeyContinue) {
-                    result = MonkeyNull.INSTANCE;
-                    continue;
-                }
-
-                if (result instanceof MonkeyReturn<?>) {
-                    return result;
+                result = evalBlock(whileStatement.body(), inBody, false);
+
+                switch (completion) {
+                    case NORMAL -> {
+                    }
+                    case BREAK -> {
+                        completion = Completion.NORMAL;
+                        return MonkeyNull.INSTANCE;
+                    }
+                    case CONTINUE -> {
+                        completion = Completion.NORMAL;
+                        result = MonkeyNull.INSTANCE;
+                    }
+                    case RETURN -> {
+                        return result;
+                    }
                 }
             }
         } finally {
@@ -220,7 +367,8 @@ public class Evaluator {
             throw error(RuntimeErrorType.INVALID_CONTROL_FLOW, statement.token(), "`break` not allowed outside loop");
         }
 
-        return MonkeyBreak.INSTANCE;
+        completion = Completion.BREAK;
+        return MonkeyNull.INSTANCE;
     }
 
     private MonkeyObject<?> evalContinueStatement(ContinueStatement statement) throws EvaluationException {
@@ -228,7 +376,8 @@ public class Evaluator {
             throw error(RuntimeErrorType.INVALID_CONTROL_FLOW, statement.token(), "`continue` not allowed outside loop");
         }
 
-        return MonkeyContinue.INSTANCE;
+        completion = Completion.CONTINUE;
+        return MonkeyNull.INSTANCE;
     }
 
     private MonkeyObject<?> evalInfixExpression(InfixExpression infixExpression) throws EvaluationException {
@@ -254,14 +403,17 @@ public class Evaluator {
         }
 
         var right = eval(infixExpression.right());
+        return applyInfixOperator(infixExpression.token(), left, right);
+    }
 
+    public MonkeyObject<?> applyInfixOperator(Token operator, MonkeyObject<?> left, MonkeyObject<?> right) throws EvaluationException {
         if (left.getType() == ObjectType.INTEGER && right.getType() == ObjectType.INTEGER) {
-            return evalIntegerInfixExpression((MonkeyInteger) left, (MonkeyInteger) right, infixExpression);
+            return evalIntegerInfixExpression((MonkeyInteger) left, (MonkeyInteger) right, operator);
         } else if (left.getType() == ObjectType.STRING && right.getType() == ObjectType.STRING) {
-            return evalStringInfixExpression((MonkeyString) left, (MonkeyString) right, infixExpression);
+            return evalStringInfixExpression((MonkeyString) left, (MonkeyString) right, operator);
         }
 
-        switch (infixExpression.token().type()) {
+        switch (operator.type()) {
             case EQ -> {
                 return MonkeyBoolean.nativeToMonkey(((MonkeyBoolean) left).getObject() == ((MonkeyBoolean) right).getObject());
             }
@@ -270,58 +422,63 @@ public class Evaluator {
             }
         }
 
-        throw error(RuntimeErrorType.TYPE_MISMATCH, infixExpression.token(), "Operation %s not supported for types %s and %s", infixExpression.token().token(), left.getType(), right.getType());
+        throw error(RuntimeErrorType.TYPE_MISMATCH, operator, "Operation %s not supported for types %s and %s", operator.token(), left.getType(), right.getType());
     }
 
-    private MonkeyObject<?> evalIntegerInfixExpression(MonkeyInteger left, MonkeyInteger right, InfixExpression infixExpression) throws EvaluationException {
-        return switch (infixExpression.token().type()) {
-            case PLUS -> new MonkeyInteger(left.getObject() + right.getObject());
-            case MINUS -> new MonkeyInteger(left.getObject() - right.getObject());
-            case ASTERISK -> new MonkeyInteger(left.getObject() * right.getObject());
+    private MonkeyObject<?> evalIntegerInfixExpression(MonkeyInteger left, MonkeyInteger right, Token operator) throws EvaluationException {
+        long l = left.getValue();
+        long r = right.getValue();
+        return switch (operator.type()) {
+            case PLUS -> MonkeyInteger.valueOf(l + r);
+            case MINUS -> MonkeyInteger.valueOf(l - r);
+            case ASTERISK -> MonkeyInteger.valueOf(l * r);
             case SLASH -> {
-                if (right.getObject().equals(0L)) {
-                    throw error(RuntimeErrorType.DIVISION_BY_ZERO, infixExpression.token(), "Cannot divide by 0!");
+                if (r == 0) {
+                    throw error(RuntimeErrorType.DIVISION_BY_ZERO, operator, "Cannot divide by 0!");
                 }
-                yield new MonkeyInteger(left.getObject() / right.getObject());
+                yield MonkeyInteger.valueOf(l / r);
             }
-            case LT -> MonkeyBoolean.nativeToMonkey(left.getObject() < right.getObject());
-            case GT -> MonkeyBoolean.nativeToMonkey(left.getObject() > right.getObject());
-            case LTE -> MonkeyBoolean.nativeToMonkey(left.getObject() <= right.getObject());
-            case GTE -> MonkeyBoolean.nativeToMonkey(left.getObject() >= right.getObject());
-            case EQ -> MonkeyBoolean.nativeToMonkey(left.getObject().equals(right.getObject()));
-            case NOT_EQ -> MonkeyBoolean.nativeToMonkey(!left.getObject().equals(right.getObject()));
-            default -> throw new IllegalStateException("Evaluation BUG: Unexpected value(unreachable code): " + infixExpression.token().token());
+            case LT -> MonkeyBoolean.nativeToMonkey(l < r);
+            case GT -> MonkeyBoolean.nativeToMonkey(l > r);
+            case LTE -> MonkeyBoolean.nativeToMonkey(l <= r);
+            case GTE -> MonkeyBoolean.nativeToMonkey(l >= r);
+            case EQ -> MonkeyBoolean.nativeToMonkey(l == r);
+            case NOT_EQ -> MonkeyBoolean.nativeToMonkey(l != r);
+            default -> throw new IllegalStateException("Evaluation BUG: Unexpected value(unreachable code): " + operator.token());
         };
     }
 
-    private MonkeyObject<?> evalStringInfixExpression(MonkeyString left, MonkeyString right, InfixExpression infixExpression) throws EvaluationException {
-        return switch (infixExpression.token().type()) {
-            case PLUS -> new MonkeyString(left.getObject() + right.getObject());
-            default -> throw error(RuntimeErrorType.UNSUPPORTED_OPERATION, infixExpression.token(), "Operation %s not supported for types %s and %s", infixExpression.token().token(), left.getType(), right.getType());
+    private MonkeyObject<?> evalStringInfixExpression(MonkeyString left, MonkeyString right, Token operator) throws EvaluationException {
+        return switch (operator.type()) {
+            case PLUS -> MonkeyString.concat(left, right);
+            default -> throw error(RuntimeErrorType.UNSUPPORTED_OPERATION, operator, "Operation %s not supported for types %s and %s", operator.token(), left.getType(), right.getType());
         };
     }
 
     private MonkeyObject<?> evalPrefixExpression(PrefixExpression prefixExpression) throws EvaluationException {
         var expressionResult = eval(prefixExpression.right());
+        return applyPrefixOperator(prefixExpression.token(), expressionResult);
+    }
 
-        return switch (prefixExpression.token().type()) {
+    public MonkeyObject<?> applyPrefixOperator(Token operator, MonkeyObject<?> expressionResult) throws EvaluationException {
+        return switch (operator.type()) {
             case BANG -> MonkeyBoolean.nativeToMonkey(!isTruth(expressionResult));
             case MINUS -> {
                 if (expressionResult instanceof MonkeyInteger integer) {
-                    yield new MonkeyInteger(-integer.getObject());
+                    yield MonkeyInteger.valueOf(-integer.getValue());
                 }
 
                 if (expressionResult instanceof MonkeyNull nullInstance) {
                     yield nullInstance;
                 }
 
-                throw error(RuntimeErrorType.TYPE_MISMATCH, prefixExpression.token(), "Operation - not supported for type %s", expressionResult.getType().name());
+                throw error(RuntimeErrorType.TYPE_MISMATCH, operator, "Operation - not supported for type %s", expressionResult.getType().name());
             }
-            default -> throw new IllegalStateException("Evaluation BUG: Unexpected value(unreachable code): " + prefixExpression.token().token());
+            default -> throw new IllegalStateException("Evaluation BUG: Unexpected value(unreachable code): " + operator.token());
         };
     }
 
-    private static boolean isTruth(MonkeyObject<?> object) {
+    public static boolean isTruth(MonkeyObject<?> object) {
         return switch (object) {
             case MonkeyBoolean bool -> bool.getObject();
             case MonkeyNull ignored -> false;
@@ -329,25 +486,87 @@ public class Evaluator {
         };
     }
 
-    public MonkeyObject<?> evalStatements(Statement[] statements, boolean unwrapReturn) throws EvaluationException {
+    /**
+     * Evaluates a function body. Calls to Monkey functions in tail position ({@code return f(x)}, or the value of the
+     * last statement, including through {@code if} branches) come back as {@link MonkeyTailCall} for the caller's
+     * trampoline in {@link MonkeyFunction} instead of growing the Java stack.
+     * <p>
+     * The body runs on this evaluator with {@code environment} swapped in for the duration of the call, rather than on
+     * a child evaluator allocated per call.
+     */
+    public MonkeyObject<?> evalFunctionBody(BlockStatement body, Environment environment) throws EvaluationException {
+        var callerEnvironment = this.environment;
+        var callerLoopDepth = loopDepth;
+        this.environment = environment;
+        loopDepth = 0;
+        try {
+            return evalBodyStatements(body.statements(), true);
+        } finally {
+            this.environment = callerEnvironment;
+            loopDepth = callerLoopDepth;
+            completion = Completion.NORMAL;
+        }
+    }
+
+    private MonkeyObject<?> evalBodyStatements(Statement[] statements, boolean tail) throws EvaluationException {
         MonkeyObject<?> result = MonkeyNull.INSTANCE;
 
-        for (var stmt : statements) {
-            result = eval(stmt);
+        for (int i = 0; i < statements.length; i++) {
+            result = evalBodyStatement(statements[i], tail && i == statements.length - 1);
+
+            if (completion != Completion.NORMAL) {
+                return result;
+            }
+        }
+
+        return result;
+    }
 
-            if (result instanceof MonkeyReturn<?> monkeyReturn) {
-                if (unwrapReturn) {
-                    return monkeyReturn.returnValue;
+    private MonkeyObject<?> evalBodyStatement(Statement statement, boolean tail) throws EvaluationException {
+        try {
+            return switch (statement) {
+                case ReturnStatement returnStatement when returnStatement.returnValue() instanceof CallExpression call -> {
+                    var tailCall = evalCallExpression(call, true);
+                    completion = Completion.RETURN;
+                    yield tailCall;
                 }
+                case ExpressionStatement expressionStatement -> switch (expressionStatement.expression()) {
+                    case CallExpression call when tail -> evalCallExpression(call, true);
+                    case IfExpression ifExpression -> evalIfExpression(ifExpression, true, tail);
+                    default -> eval(expressionStatement.expression());
+                };
+                case WhileStatement whileStatement -> evalWhileStatement(whileStatement, true);
+                default -> eval(statement);
+            };
+        } catch (AbruptCompletion e) {
+            return takeAbruptValue();
+        }
+    }
+
+    public MonkeyObject<?> evalStatements(Statement[] statements, boolean unwrapReturn) throws EvaluationException {
+        MonkeyObject<?> result = MonkeyNull.INSTANCE;
 
-                return monkeyReturn;
+        for (var stmt : statements) {
+            try {
+                result = eval(stmt);
+            } catch (AbruptCompletion e) {
+                result = takeAbruptValue();
             }
 
-            if (result instanceof MonkeyBreak || result instanceof MonkeyContinue) {
+            if (completion != Completion.NORMAL) {
+                if (unwrapReturn && completion == Completion.RETURN) {
+                    completion = Completion.NORMAL;
+                }
                 return result;
             }
         }
 
         return result;
     }
+
+    private MonkeyObject<?> takeAbruptValue() {
+        var value = abruptValue;
+        abruptValue = null;
+        return value;
+    }
 }
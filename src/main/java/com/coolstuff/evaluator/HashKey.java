@@ -1,18 +1,16 @@
 package com.coolstuff.evaluator;
 
 import com.coolstuff.evaluator.object.MonkeyObject;
-import com.coolstuff.evaluator.object.ObjectType;
-
-import java.util.Objects;
 
 public class HashKey {
-    private final ObjectType type;
-    private final long value;
-    private final MonkeyObject originalObject;
+    private final MonkeyHashable key;
+    private final MonkeyObject<?> originalObject;
 
     public HashKey(MonkeyObject<?> object) {
-        this.type = object.getType();
-        this.value = object.getObject().hashCode();
+        if (!(object instanceof MonkeyHashable hashable)) {
+            throw new IllegalArgumentException("Not a hashable object: " + object.getType());
+        }
+        this.key = hashable;
         this.originalObject = object;
     }
 
@@ -25,7 +23,7 @@ public class HashKey {
             return false;
         }
         HashKey hashKey = (HashKey) o;
-        return value == hashKey.value && type == hashKey.type;
+        return key.keyEquals(hashKey.originalObject);
     }
 
     public MonkeyObject getOriginalObject() {
@@ -34,6 +32,11 @@ public class HashKey {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, value);
+        return key.keyHash();
+    }
+
+    @Override
+    public String toString() {
+        return "HashKey[%s %s]".formatted(originalObject.getType(), originalObject.inspect());
     }
 }
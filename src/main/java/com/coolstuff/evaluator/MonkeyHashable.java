@@ -7,6 +7,10 @@ public interface MonkeyHashable {
 
     HashKey hashKey();
 
+    int keyHash();
+
+    boolean keyEquals(MonkeyObject<?> other);
+
     static MonkeyHashable checkIsHashable(MonkeyObject<?> object, Token token, Evaluator evaluator) throws EvaluationException {
         if (object instanceof MonkeyHashable hashable) {
             return hashable;
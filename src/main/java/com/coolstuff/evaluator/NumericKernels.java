@@ -0,0 +1,39 @@
+package com.coolstuff.evaluator;
+
+/**
+ * Loops behind the numeric builtins, over slices of {@code long} arrays. Arithmetic wraps around like the {@code +}
+ * and {@code *} operators. When the JVM runs with {@code --add-modules jdk.incubator.vector} the SIMD implementation in
+ * {@link VectorKernels} is used, otherwise (or with {@code -Dmonkey.simd=false}) the scalar loops.
+ */
+abstract class NumericKernels {
+    static final NumericKernels INSTANCE = select();
+
+    abstract long sum(long[] values, int from, int length);
+
+    // length must be positive
+    abstract long min(long[] values, int from, int length);
+
+    // length must be positive
+    abstract long max(long[] values, int from, int length);
+
+    abstract long dot(long[] left, int leftFrom, long[] right, int rightFrom, int length);
+
+    abstract void add(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length);
+
+    abstract void multiply(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length);
+
+    abstract void scale(long[] values, int from, long factor, long[] result, int length);
+
+    private static NumericKernels select() {
+        if (Boolean.parseBoolean(System.getProperty("monkey.simd", "true"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded by name: the class cannot even be linked unless the incubator module is resolved
+                return (NumericKernels) Class.forName("com.coolstuff.evaluator.VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarKernels();
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,63 @@
+package com.coolstuff.evaluator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Where {@code puts} writes, owned by the {@link Evaluator}. Text is collected in a buffer and written out when the
+ * buffer fills, after every {@code flushLines} lines (never when it is 0) and on {@link #flush}, so a script printing
+ * many lines costs one write per buffer instead of one locked, flushed {@code System.out} call per line.
+ */
+public class OutputSink {
+    public static final int DEFAULT_BUFFER_SIZE = Integer.getInteger("monkey.output.bufferSize", 1 << 16);
+
+    // interactive default: every line reaches System.out as soon as it is printed
+    public static final OutputSink CONSOLE = new OutputSink(System.out, System.out.charset(), 8192, 1);
+
+    private final Writer writer;
+    private final int flushLines;
+    private int pendingLines;
+
+    public OutputSink(OutputStream out, Charset charset, int bufferSize, int flushLines) {
+        this(new OutputStreamWriter(out, charset), bufferSize, flushLines);
+    }
+
+    public OutputSink(Writer out, int bufferSize, int flushLines) {
+        this.writer = new BufferedWriter(out, bufferSize);
+        this.flushLines = flushLines;
+    }
+
+    public void print(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    public void println() {
+        print(System.lineSeparator());
+        if (flushLines > 0 && ++pendingLines >= flushLines) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        pendingLines = 0;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    // reported by the builtin that was writing, like a failed read of a file
+    private static UncheckedIOException failure(IOException e) {
+        return new UncheckedIOException("Cannot write output: " + e.getMessage(), e);
+    }
+}
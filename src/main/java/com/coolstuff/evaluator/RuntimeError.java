@@ -5,6 +5,8 @@ import com.coolstuff.token.SourcePosition;
 import java.util.List;
 
 public record RuntimeError(RuntimeErrorType type, String message, SourcePosition position, List<StackFrame> stackFrames) {
+    // deep recursion can leave up to monkey.maxCallDepth frames; only the ends of such a trace are printed
+    private static final int TRACE_EDGE_FRAMES = 32;
 
     public String formatSingleLine() {
         return "Error[%s] at %s: %s".formatted(type, position, message);
@@ -18,8 +20,13 @@ public record RuntimeError(RuntimeErrorType type, String message, SourcePosition
             return builder.toString();
         }
 
-        for (var frame : stackFrames) {
-            builder.append("  ").append(frame).append("\n");
+        var size = stackFrames.size();
+        for (int i = 0; i < size; i++) {
+            if (size > 2 * TRACE_EDGE_FRAMES && i == TRACE_EDGE_FRAMES) {
+                builder.append("  ... ").append(size - 2 * TRACE_EDGE_FRAMES).append(" more frames\n");
+                i = size - TRACE_EDGE_FRAMES;
+            }
+            builder.append("  ").append(stackFrames.get(i)).append("\n");
         }
         builder.append("  at <repl>(0 args) @ 1:1");
         return builder.toString();
@@ -10,5 +10,6 @@ public enum RuntimeErrorType {
     INVALID_INDEX,
     INVALID_HASH_KEY,
     DIVISION_BY_ZERO,
-    UNSUPPORTED_OPERATION
+    UNSUPPORTED_OPERATION,
+    STACK_OVERFLOW
 }
@@ -0,0 +1,61 @@
+package com.coolstuff.evaluator;
+
+final class ScalarKernels extends NumericKernels {
+
+    @Override
+    long sum(long[] values, int from, int length) {
+        long sum = 0;
+        for (int i = from; i < from + length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    long min(long[] values, int from, int length) {
+        var min = values[from];
+        for (int i = from + 1; i < from + length; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    long max(long[] values, int from, int length) {
+        var max = values[from];
+        for (int i = from + 1; i < from + length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    long dot(long[] left, int leftFrom, long[] right, int rightFrom, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += left[leftFrom + i] * right[rightFrom + i];
+        }
+        return sum;
+    }
+
+    @Override
+    void add(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = left[leftFrom + i] + right[rightFrom + i];
+        }
+    }
+
+    @Override
+    void multiply(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = left[leftFrom + i] * right[rightFrom + i];
+        }
+    }
+
+    @Override
+    void scale(long[] values, int from, long factor, long[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = values[from + i] * factor;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.coolstuff.evaluator;
+
+import com.coolstuff.token.SourcePosition;
+
+import java.util.List;
+
+/**
+ * Raised where the Java stack ran out. Only the call stack is copied there; the {@link RuntimeError} is built when it
+ * is first asked for, after the exception has unwound to a shallow frame, because formatting a message can load
+ * classes, compile regular expressions or link lambdas, none of which fits on an exhausted stack.
+ */
+final class StackExhaustedException extends EvaluationException {
+    private final CallStack frames;
+    private final SourcePosition position;
+    private RuntimeError runtimeError;
+
+    StackExhaustedException(CallStack callStack, SourcePosition position) {
+        this.frames = callStack.copy();
+        this.position = position;
+    }
+
+    @Override
+    public RuntimeError getRuntimeError() {
+        if (runtimeError == null) {
+            runtimeError = new RuntimeError(RuntimeErrorType.STACK_OVERFLOW,
+                    "Java stack exhausted at call depth %d".formatted(frames.size()), position, List.copyOf(frames.snapshot()));
+        }
+        return runtimeError;
+    }
+
+    @Override
+    public String getMessage() {
+        return getRuntimeError().formatSingleLine();
+    }
+}
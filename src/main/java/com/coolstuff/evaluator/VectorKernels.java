@@ -0,0 +1,108 @@
+package com.coolstuff.evaluator;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loaded through NumericKernels when jdk.incubator.vector is available. Each loop handles full lanes with SIMD
+// and finishes the remaining elements one at a time.
+final class VectorKernels extends NumericKernels {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    long sum(long[] values, int from, int length) {
+        var lanes = LongVector.zero(SPECIES);
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            lanes = lanes.add(LongVector.fromArray(SPECIES, values, from + i));
+        }
+        var sum = lanes.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += values[from + i];
+        }
+        return sum;
+    }
+
+    @Override
+    long min(long[] values, int from, int length) {
+        var lanes = LongVector.broadcast(SPECIES, Long.MAX_VALUE);
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            lanes = lanes.min(LongVector.fromArray(SPECIES, values, from + i));
+        }
+        var min = lanes.reduceLanes(VectorOperators.MIN);
+        for (; i < length; i++) {
+            min = Math.min(min, values[from + i]);
+        }
+        return min;
+    }
+
+    @Override
+    long max(long[] values, int from, int length) {
+        var lanes = LongVector.broadcast(SPECIES, Long.MIN_VALUE);
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            lanes = lanes.max(LongVector.fromArray(SPECIES, values, from + i));
+        }
+        var max = lanes.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            max = Math.max(max, values[from + i]);
+        }
+        return max;
+    }
+
+    @Override
+    long dot(long[] left, int leftFrom, long[] right, int rightFrom, int length) {
+        var lanes = LongVector.zero(SPECIES);
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            var products = LongVector.fromArray(SPECIES, left, leftFrom + i).mul(LongVector.fromArray(SPECIES, right, rightFrom + i));
+            lanes = lanes.add(products);
+        }
+        var sum = lanes.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += left[leftFrom + i] * right[rightFrom + i];
+        }
+        return sum;
+    }
+
+    @Override
+    void add(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length) {
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, left, leftFrom + i).add(LongVector.fromArray(SPECIES, right, rightFrom + i)).intoArray(result, i);
+        }
+        for (; i < length; i++) {
+            result[i] = left[leftFrom + i] + right[rightFrom + i];
+        }
+    }
+
+    @Override
+    void multiply(long[] left, int leftFrom, long[] right, int rightFrom, long[] result, int length) {
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, left, leftFrom + i).mul(LongVector.fromArray(SPECIES, right, rightFrom + i)).intoArray(result, i);
+        }
+        for (; i < length; i++) {
+            result[i] = left[leftFrom + i] * right[rightFrom + i];
+        }
+    }
+
+    @Override
+    void scale(long[] values, int from, long factor, long[] result, int length) {
+        var bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, values, from + i).mul(factor).intoArray(result, i);
+        }
+        for (; i < length; i++) {
+            result[i] = values[from + i] * factor;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.coolstuff.evaluator.object;
 
 import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
 import com.coolstuff.evaluator.MonkeyFunctionInterface;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.token.Token;
+
+import java.io.UncheckedIOException;
 
 public class BuiltInFunction extends AbstractMonkeyFunction {
     private final String name;
@@ -16,6 +22,19 @@ public class BuiltInFunction extends AbstractMonkeyFunction {
         return name;
     }
 
+    // a file read while a builtin iterates over MonkeyLines, or a write of puts output, can fail in the middle of a call,
+    // and so can a read of an off-heap array that a callback released
+    @Override
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?>[] arguments, Evaluator evaluator) throws EvaluationException {
+        try {
+            return super.call(callToken, arguments, evaluator);
+        } catch (UncheckedIOException e) {
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "%s", e.getMessage());
+        } catch (MonkeyOffHeapArray.ReleasedException e) {
+            throw evaluator.error(RuntimeErrorType.UNSUPPORTED_OPERATION, callToken, "%s", e.getMessage());
+        }
+    }
+
     @Override
     public String inspect() {
         return "builtin function";
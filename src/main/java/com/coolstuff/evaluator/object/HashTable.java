@@ -0,0 +1,170 @@
+package com.coolstuff.evaluator.object;
+
+import com.coolstuff.evaluator.HashKey;
+import com.coolstuff.evaluator.MonkeyHashable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Insertion-ordered open-addressing table behind {@link MonkeyHash}. Entries live in dense arrays in insertion
+ * order, {@code slots} is a linear-probing index into them (entry + 1, 0 = empty). Lookups by a
+ * {@link MonkeyHashable} allocate nothing; the {@link Map} view is read-only and wraps keys in {@link HashKey}.
+ */
+public class HashTable extends AbstractMap<HashKey, MonkeyObject<?>> {
+    private static final int MIN_CAPACITY = 8;
+
+    private MonkeyObject<?>[] keys;
+    private MonkeyObject<?>[] values;
+    private int[] hashes;
+    private int[] slots;
+    private int size;
+
+    public HashTable() {
+        this(0);
+    }
+
+    public HashTable(int expectedSize) {
+        var capacity = Math.max(MIN_CAPACITY, expectedSize);
+        keys = new MonkeyObject<?>[capacity];
+        values = new MonkeyObject<?>[capacity];
+        hashes = new int[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    public static HashTable copyOf(Map<HashKey, MonkeyObject<?>> pairs) {
+        if (pairs instanceof HashTable table) {
+            return table;
+        }
+        var table = new HashTable(pairs.size());
+        for (var pair : pairs.entrySet()) {
+            table.put((MonkeyHashable) pair.getKey().getOriginalObject(), pair.getValue());
+        }
+        return table;
+    }
+
+    public MonkeyObject<?> get(MonkeyHashable key) {
+        var hash = key.keyHash();
+        var mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            var entry = slots[slot] - 1;
+            if (entry < 0) {
+                return null;
+            }
+            if (hashes[entry] == hash && key.keyEquals(keys[entry])) {
+                return values[entry];
+            }
+        }
+    }
+
+    // A repeated key keeps its first position and takes the latest value.
+    public void put(MonkeyHashable key, MonkeyObject<?> value) {
+        var hash = key.keyHash();
+        var mask = slots.length - 1;
+        var slot = spread(hash) & mask;
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            var entry = slots[slot] - 1;
+            if (hashes[entry] == hash && key.keyEquals(keys[entry])) {
+                values[entry] = value;
+                return;
+            }
+        }
+
+        if (size == keys.length) {
+            grow();
+            put(key, value);
+            return;
+        }
+        keys[size] = (MonkeyObject<?>) key;
+        values[size] = value;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+    }
+
+    public MonkeyObject<?> keyAt(int entry) {
+        return keys[entry];
+    }
+
+    public MonkeyObject<?> valueAt(int entry) {
+        return values[entry];
+    }
+
+    private void grow() {
+        var capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        slots = new int[tableSizeFor(capacity)];
+
+        var mask = slots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            var slot = spread(hashes[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    // keeps the load factor at or below 1/2
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 2;
+    }
+
+    private static int spread(int hash) {
+        var h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MonkeyObject<?> get(Object key) {
+        return key instanceof HashKey hashKey ? get((MonkeyHashable) hashKey.getOriginalObject()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<HashKey, MonkeyObject<?>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<HashKey, MonkeyObject<?>>> iterator() {
+                return new Iterator<>() {
+                    private int entry;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entry < size;
+                    }
+
+                    @Override
+                    public Entry<HashKey, MonkeyObject<?>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<HashKey, MonkeyObject<?>> next = Map.entry(new HashKey(keys[entry]), values[entry]);
+                        entry++;
+                        return next;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
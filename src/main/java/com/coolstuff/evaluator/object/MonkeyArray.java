@@ -5,7 +5,6 @@ import com.coolstuff.evaluator.Evaluator;
 import com.coolstuff.evaluator.RuntimeErrorType;
 import com.coolstuff.token.Token;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -13,7 +12,46 @@ public class MonkeyArray extends MonkeyObject<List<MonkeyObject<?>>> {
 
     public MonkeyArray(List<MonkeyObject<?>> elements) {
         super(ObjectType.ARRAY_OBJ);
-        setObject(Collections.unmodifiableList(elements));
+        if (elements instanceof PersistentVector || elements instanceof PackedVector) {
+            setObject(elements);
+        } else {
+            var array = elements.toArray(MonkeyObject<?>[]::new);
+            setObject(representation(array, array.length));
+        }
+    }
+
+    public static MonkeyArray of(MonkeyObject<?>... elements) {
+        return of(elements, elements.length);
+    }
+
+    // the first length elements of the array; arrays of only integers or only booleans are packed
+    public static MonkeyArray of(MonkeyObject<?>[] elements, int length) {
+        return new MonkeyArray(representation(elements, length));
+    }
+
+    private static List<MonkeyObject<?>> representation(MonkeyObject<?>[] elements, int length) {
+        var packed = PackedVector.pack(elements, length);
+        return packed != null ? packed : PersistentVector.of(elements, length);
+    }
+
+    public List<MonkeyObject<?>> elements() {
+        return getObject();
+    }
+
+    public MonkeyArray push(MonkeyObject<?> element) {
+        if (getObject() instanceof PackedVector packed) {
+            var pushed = packed.push(element);
+            // the first element of another type turns the array into a generic one for good
+            return new MonkeyArray(pushed != null ? pushed : PersistentVector.copyOf(packed).push(element));
+        }
+        return new MonkeyArray(((PersistentVector) getObject()).push(element));
+    }
+
+    public MonkeyArray rest() {
+        if (getObject() instanceof PackedVector packed) {
+            return new MonkeyArray(packed.rest());
+        }
+        return new MonkeyArray(((PersistentVector) getObject()).rest());
     }
 
     @Override
@@ -26,4 +26,14 @@ public class MonkeyBoolean extends MonkeyObject<Boolean> implements MonkeyHashab
     public HashKey hashKey() {
         return new HashKey(this);
     }
+
+    @Override
+    public int keyHash() {
+        return Boolean.hashCode(getObject());
+    }
+
+    @Override
+    public boolean keyEquals(MonkeyObject<?> other) {
+        return other instanceof MonkeyBoolean bool && bool.getObject().equals(getObject());
+    }
 }
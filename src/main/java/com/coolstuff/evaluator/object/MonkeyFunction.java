@@ -3,31 +3,127 @@ package com.coolstuff.evaluator.object;
 import com.coolstuff.ast.FunctionLiteral;
 import com.coolstuff.evaluator.AbstractMonkeyFunction;
 import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.jit.JitCode;
+import com.coolstuff.jit.JitCompiler;
+import com.coolstuff.token.Token;
 
 import java.util.Arrays;
 
 public class MonkeyFunction extends AbstractMonkeyFunction {
 
+    private final Environment creationEnv;
     private final FunctionLiteral functionLiteral;
+    private int calls;
+    private JitCode compiled;
 
     public MonkeyFunction(Environment creationEnv, FunctionLiteral functionLiteral) {
         super(ObjectType.FUNCTION_OBJ);
+        this.creationEnv = creationEnv;
         this.functionLiteral = functionLiteral;
 
-        setObject(((callToken, arguments, evaluator) -> {
-            var parameters = functionLiteral.parameters();
-            var body = functionLiteral.body();
+        setObject((callToken, arguments, evaluator) -> trampoline(invoke(callToken, arguments, evaluator), evaluator));
+    }
+
+    @Override
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, Evaluator evaluator) throws EvaluationException {
+        checkArgumentCount(functionLiteral.parameters().length, 1, callToken, evaluator);
+        if (jitCode() != null) {
+            return trampoline(compiled.run(creationEnv, new MonkeyObject<?>[]{first}, evaluator), evaluator);
+        }
 
-            checkArgumentCount(parameters.length, arguments.size(), callToken, evaluator);
+        var environment = newEnvironment();
+        bind(environment, 0, first);
+        return trampoline(evaluator.evalFunctionBody(functionLiteral.body(), environment), evaluator);
+    }
 
-            var environment = new Environment(creationEnv);
-            for (int i = 0; i < parameters.length; i++) {
-                var parameter = parameters[i];
-                environment.set(parameter.value(), arguments.get(i));
+    @Override
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, MonkeyObject<?> second, Evaluator evaluator) throws EvaluationException {
+        checkArgumentCount(functionLiteral.parameters().length, 2, callToken, evaluator);
+        if (jitCode() != null) {
+            return trampoline(compiled.run(creationEnv, new MonkeyObject<?>[]{first, second}, evaluator), evaluator);
+        }
+
+        var environment = newEnvironment();
+        bind(environment, 0, first);
+        bind(environment, 1, second);
+        return trampoline(evaluator.evalFunctionBody(functionLiteral.body(), environment), evaluator);
+    }
+
+    @Override
+    public MonkeyObject<?> call(Token callToken, MonkeyObject<?> first, MonkeyObject<?> second, MonkeyObject<?> third, Evaluator evaluator) throws EvaluationException {
+        checkArgumentCount(functionLiteral.parameters().length, 3, callToken, evaluator);
+        if (jitCode() != null) {
+            return trampoline(compiled.run(creationEnv, new MonkeyObject<?>[]{first, second, third}, evaluator), evaluator);
+        }
+
+        var environment = newEnvironment();
+        bind(environment, 0, first);
+        bind(environment, 1, second);
+        bind(environment, 2, third);
+        return trampoline(evaluator.evalFunctionBody(functionLiteral.body(), environment), evaluator);
+    }
+
+    @Override
+    public MonkeyObject<?> tailCall(Token callToken, String functionName, MonkeyObject<?>[] arguments) {
+        return new MonkeyTailCall(callToken, this, functionName, arguments);
+    }
+
+    private MonkeyObject<?> trampoline(MonkeyObject<?> result, Evaluator evaluator) throws EvaluationException {
+        // frames pushed for tail calls to other functions; the caller pops the frame of this call
+        MonkeyFunction current = this;
+        var tailFrames = 0;
+        try {
+            while (result instanceof MonkeyTailCall tailCall) {
+                var next = tailCall.getFunction();
+                if (next == current) {
+                    evaluator.replaceFrame(tailCall.getFunctionName(), tailCall.getCallToken(), tailCall.getArguments().length);
+                } else {
+                    evaluator.pushFrame(tailCall.getFunctionName(), tailCall.getCallToken(), tailCall.getArguments().length);
+                    tailFrames++;
+                }
+                current = next;
+                result = next.invoke(tailCall.getCallToken(), tailCall.getArguments(), evaluator);
             }
+        } finally {
+            evaluator.popFrames(tailFrames);
+        }
+        return result;
+    }
+
+    private MonkeyObject<?> invoke(Token callToken, MonkeyObject<?>[] arguments, Evaluator evaluator) throws EvaluationException {
+        checkArgumentCount(functionLiteral.parameters().length, arguments.length, callToken, evaluator);
+        if (jitCode() != null) {
+            return compiled.run(creationEnv, arguments, evaluator);
+        }
+
+        var environment = newEnvironment();
+        for (int i = 0; i < arguments.length; i++) {
+            bind(environment, i, arguments[i]);
+        }
+        return evaluator.evalFunctionBody(functionLiteral.body(), environment);
+    }
 
-            return evaluator.child(environment).eval(body);
-        }));
+    private JitCode jitCode() {
+        if (compiled == null && ++calls == JitCompiler.THRESHOLD) {
+            compiled = JitCompiler.compiled(functionLiteral);
+        }
+        return compiled;
+    }
+
+    private Environment newEnvironment() {
+        var locals = functionLiteral.locals();
+        return locals == null ? new Environment(creationEnv) : new Environment(creationEnv, locals, functionLiteral.captured());
+    }
+
+    private void bind(Environment environment, int index, MonkeyObject<?> argument) {
+        var parameter = functionLiteral.parameters()[index];
+        if (parameter.isLocal()) {
+            environment.setSlot(parameter.slot(), argument);
+        } else {
+            environment.set(parameter.value(), argument);
+        }
     }
 
     public FunctionLiteral getFunctionLiteral() {
@@ -36,6 +132,10 @@ public class MonkeyFunction extends AbstractMonkeyFunction {
 
     @Override
     public String inspect() {
+        return inspect(functionLiteral);
+    }
+
+    public static String inspect(FunctionLiteral functionLiteral) {
         return "fn(%s){\n%s\n}".formatted(Arrays.toString(functionLiteral.parameters()), functionLiteral.body().string());
     }
 }
@@ -1,26 +1,36 @@
 package com.coolstuff.evaluator.object;
 
 import com.coolstuff.evaluator.HashKey;
+import com.coolstuff.evaluator.MonkeyHashable;
 
-import java.util.Collections;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class MonkeyHash extends MonkeyObject<Map<HashKey, MonkeyObject<?>>>{
+    private final HashTable table;
 
     public MonkeyHash(Map<HashKey, MonkeyObject<?>> pairs) {
+        this(HashTable.copyOf(pairs));
+    }
+
+    public MonkeyHash(HashTable table) {
         super(ObjectType.HASH_OBJ);
-        setObject(Collections.unmodifiableMap(pairs));
+        this.table = table;
+        setObject(table);
+    }
+
+    public MonkeyObject<?> get(MonkeyHashable key) {
+        return table.get(key);
     }
 
     @Override
     public String inspect() {
-        var pairsString = getObject()
-                .entrySet()
-                .stream()
-                .map(pair -> "%s : %s".formatted(pair.getKey().getOriginalObject().inspect(), pair.getValue().inspect()))
-                .collect(Collectors.joining(", "));
-
-        return "{%s}".formatted(pairsString);
+        var builder = new StringBuilder("{");
+        for (int i = 0; i < table.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(table.keyAt(i).inspect()).append(" : ").append(table.valueAt(i).inspect());
+        }
+        return builder.append('}').toString();
     }
 }
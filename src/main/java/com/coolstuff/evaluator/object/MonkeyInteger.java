@@ -4,19 +4,57 @@ import com.coolstuff.evaluator.HashKey;
 import com.coolstuff.evaluator.MonkeyHashable;
 
 public class MonkeyInteger extends MonkeyObject<Long> implements MonkeyHashable {
+    private static final int CACHE_LOW = Integer.getInteger("monkey.integerCache.low", -128);
+    private static final int CACHE_HIGH = Integer.getInteger("monkey.integerCache.high", 1024);
+    private static final MonkeyInteger[] CACHE = new MonkeyInteger[Math.max(0, CACHE_HIGH - CACHE_LOW + 1)];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new MonkeyInteger(CACHE_LOW + i);
+        }
+    }
+
+    private final long value;
 
     public MonkeyInteger(long value) {
         super(ObjectType.INTEGER);
-        setObject(value);
+        this.value = value;
+    }
+
+    public static MonkeyInteger valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) (value - CACHE_LOW)];
+        }
+        return new MonkeyInteger(value);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    // boxes the value; code that knows it holds an integer calls getValue
+    @Override
+    public Long getObject() {
+        return value;
     }
 
     @Override
     public String inspect() {
-        return String.valueOf(getObject());
+        return String.valueOf(value);
     }
 
     @Override
     public HashKey hashKey() {
         return new HashKey(this);
     }
+
+    @Override
+    public int keyHash() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public boolean keyEquals(MonkeyObject<?> other) {
+        return other instanceof MonkeyInteger integer && integer.value == value;
+    }
 }
@@ -0,0 +1,126 @@
+package com.coolstuff.evaluator.object;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Single-pass iterator over the lines of a UTF-8 text file. The file is read through a 64 KiB channel buffer and
+ * decoded chunk by chunk, so only the current line is held in memory. The file is closed once the last line has been
+ * read, or when the iterator becomes unreachable before that.
+ */
+public class MonkeyLines extends MonkeyObject<Void> implements Iterable<MonkeyObject<?>> {
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final String path;
+    private final BufferedReader reader;
+    private final Cleaner.Cleanable cleanable;
+    private boolean exhausted;
+
+    private MonkeyLines(String path, BufferedReader reader) {
+        super(ObjectType.LINES_OBJ);
+        this.path = path;
+        this.reader = reader;
+        // the action must not capture this object, or it would never become unreachable
+        this.cleanable = CLEANER.register(this, () -> {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+                // nothing was written, so there is nothing to lose
+            }
+        });
+    }
+
+    public static MonkeyLines open(String path) throws IOException {
+        return new MonkeyLines(path, reader(Path.of(path)));
+    }
+
+    // malformed input is replaced with U+FFFD instead of failing the whole read; a directory fails here, since
+    // opening one succeeds and only the first read would fail
+    public static BufferedReader reader(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            throw new IOException("is a directory");
+        }
+        var decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new BufferedReader(Channels.newReader(channel, decoder, BUFFER_SIZE), BUFFER_SIZE);
+    }
+
+    public String path() {
+        return path;
+    }
+
+    // the next line without its terminator, or null once the file is exhausted
+    public MonkeyString next() throws IOException {
+        if (exhausted) {
+            return null;
+        }
+        String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        if (line == null) {
+            close();
+            return null;
+        }
+        return new MonkeyString(line);
+    }
+
+    private void close() {
+        exhausted = true;
+        cleanable.clean();
+    }
+
+    // iterating consumes the lines that have not been read yet; read errors surface as UncheckedIOException
+    @Override
+    public Iterator<MonkeyObject<?>> iterator() {
+        return new Iterator<>() {
+            private MonkeyString line;
+
+            @Override
+            public boolean hasNext() {
+                if (line == null) {
+                    try {
+                        line = MonkeyLines.this.next();
+                    } catch (IOException e) {
+                        var reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                        throw new UncheckedIOException("Cannot read %s: %s".formatted(path, reason), e);
+                    }
+                }
+                return line != null;
+            }
+
+            @Override
+            public MonkeyObject<?> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var result = line;
+                line = null;
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public String inspect() {
+        return "lines(%s)".formatted(path);
+    }
+}
@@ -10,7 +10,8 @@ public abstract class MonkeyObject<T> {
 
     public abstract String inspect();
 
-    public void setObject(T object) {
+    // only for subclasses setting up their value; MonkeyInteger keeps a primitive instead and never calls it
+    protected final void setObject(T object) {
         this.object = object;
     }
 
@@ -0,0 +1,229 @@
+package com.coolstuff.evaluator.object;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.token.Token;
+
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only integer array stored outside the Java heap in direct {@link ByteBuffer}s, so even very large arrays add
+ * nothing to GC work. {@link #rest} and other slices share the storage. {@link #release} frees the native memory (or
+ * unmaps the file) right away; afterwards every array on that storage reports {@link #isReleased()} and any read,
+ * including one by an iteration already in progress, throws {@link ReleasedException}.
+ * <p>
+ * {@link #map} backs the array with a memory-mapped file instead, read as little-endian 64-bit integers or as
+ * unsigned bytes; pages are loaded by the OS only when they are accessed.
+ */
+public class MonkeyOffHeapArray extends MonkeyObject<Void> implements Iterable<MonkeyObject<?>> {
+    // a ByteBuffer holds at most 2 GiB, so the elements are spread over chunks of 2^27 bytes (128 MiB)
+    private static final int CHUNK_BYTE_BITS = 27;
+
+    private static final int LONG_SHIFT = 3;
+    private static final int BYTE_SHIFT = 0;
+
+    // frees a direct buffer's memory or mapping; java.lang.foreign.Arena does this too, but is a preview API in JDK 21
+    private static final Unsafe UNSAFE = unsafe();
+
+    private static final String RELEASED_MESSAGE = "Off-heap array has been released";
+
+    /** Thrown by any read of a released array; {@link BuiltInFunction} reports it as a runtime error. */
+    public static final class ReleasedException extends IllegalStateException {
+        private ReleasedException() {
+            super(RELEASED_MESSAGE);
+        }
+    }
+
+    private static final class Storage {
+        private ByteBuffer[] chunks;
+        // log2 of the element width in bytes: longs or unsigned bytes
+        private final int elementShift;
+        private final int chunkBits;
+        private final long chunkMask;
+        private final String description;
+
+        private Storage(ByteBuffer[] chunks, int elementShift, int chunkByteBits, String description) {
+            this.chunks = chunks;
+            this.elementShift = elementShift;
+            this.chunkBits = chunkByteBits - elementShift;
+            this.chunkMask = (1L << chunkBits) - 1;
+            this.description = description;
+        }
+
+        private ByteBuffer[] chunks() {
+            var current = chunks;
+            if (current == null) {
+                throw new ReleasedException();
+            }
+            return current;
+        }
+
+        private long read(long position) {
+            var chunk = chunks()[(int) (position >>> chunkBits)];
+            var byteIndex = (int) (position & chunkMask) << elementShift;
+            return elementShift == LONG_SHIFT ? chunk.getLong(byteIndex) : Byte.toUnsignedLong(chunk.get(byteIndex));
+        }
+    }
+
+    private final Storage storage;
+    private final long offset;
+    private final long length;
+
+    private MonkeyOffHeapArray(Storage storage, long offset, long length) {
+        super(ObjectType.OFF_HEAP_ARRAY_OBJ);
+        this.storage = storage;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static MonkeyOffHeapArray allocate(long length) {
+        return allocate(length, CHUNK_BYTE_BITS);
+    }
+
+    // chunks of 2^chunkByteBits bytes; smaller than the default only so tests can cross chunks cheaply
+    static MonkeyOffHeapArray allocate(long length, int chunkByteBits) {
+        var size = length << LONG_SHIFT;
+        var chunks = new ByteBuffer[chunkCount(size, chunkByteBits)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkSize(size, i, chunkByteBits)).order(ByteOrder.nativeOrder());
+        }
+        return new MonkeyOffHeapArray(new Storage(chunks, LONG_SHIFT, chunkByteBits, "offHeap"), 0, length);
+    }
+
+    /**
+     * Maps the whole file read-only, as 64-bit little-endian integers or, with {@code bytes}, as unsigned bytes.
+     * The mapping stays valid after the file is closed.
+     */
+    public static MonkeyOffHeapArray map(Path path, boolean bytes) throws IOException {
+        var elementShift = bytes ? BYTE_SHIFT : LONG_SHIFT;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if ((size & ((1L << elementShift) - 1)) != 0) {
+                throw new IOException("size of %d bytes is not a multiple of %d".formatted(size, 1 << elementShift));
+            }
+            var chunks = new ByteBuffer[chunkCount(size, CHUNK_BYTE_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, (long) i << CHUNK_BYTE_BITS,
+                        chunkSize(size, i, CHUNK_BYTE_BITS)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            var storage = new Storage(chunks, elementShift, CHUNK_BYTE_BITS, "mmap");
+            return new MonkeyOffHeapArray(storage, 0, size >>> elementShift);
+        }
+    }
+
+    private static Unsafe unsafe() {
+        try {
+            var field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int chunkCount(long size, int chunkByteBits) {
+        return (int) ((size + (1L << chunkByteBits) - 1) >>> chunkByteBits);
+    }
+
+    private static int chunkSize(long size, int chunk, int chunkByteBits) {
+        return (int) Math.min(1L << chunkByteBits, size - ((long) chunk << chunkByteBits));
+    }
+
+    // only while an allocated array is being filled, before it is handed to a program
+    public void set(long index, long value) {
+        var position = offset + index;
+        storage.chunks()[(int) (position >>> storage.chunkBits)].putLong((int) (position & storage.chunkMask) << LONG_SHIFT, value);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public boolean isReleased() {
+        return storage.chunks == null;
+    }
+
+    public long getLong(long index) {
+        return storage.read(offset + index);
+    }
+
+    // null when the index is out of range
+    public MonkeyInteger get(long index) {
+        if (index < 0 || index >= length) {
+            return null;
+        }
+        return MonkeyInteger.valueOf(getLong(index));
+    }
+
+    public MonkeyOffHeapArray rest() {
+        return new MonkeyOffHeapArray(storage, offset + 1, Math.max(0, length - 1));
+    }
+
+    /**
+     * Frees the storage of this array and every slice of it, so later uses fail. Releasing again does nothing. Without
+     * access to the buffers' cleaner the memory goes back only when the garbage collector reclaims them.
+     */
+    public void release() {
+        var chunks = storage.chunks;
+        if (chunks == null) {
+            return;
+        }
+        storage.chunks = null;
+        if (UNSAFE != null) {
+            for (var chunk : chunks) {
+                UNSAFE.invokeCleaner(chunk);
+            }
+        }
+    }
+
+    // reading past a release throws ReleasedException
+    @Override
+    public Iterator<MonkeyObject<?>> iterator() {
+        return new Iterator<>() {
+            private long index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public MonkeyObject<?> next() {
+                if (index >= length) {
+                    throw new NoSuchElementException();
+                }
+                return MonkeyInteger.valueOf(storage.read(offset + index++));
+            }
+        };
+    }
+
+    public static MonkeyOffHeapArray verifyNotReleased(MonkeyOffHeapArray array, Token token, Evaluator evaluator) throws EvaluationException {
+        if (array.isReleased()) {
+            throw evaluator.error(RuntimeErrorType.UNSUPPORTED_OPERATION, token, RELEASED_MESSAGE);
+        }
+        return array;
+    }
+
+    @Override
+    public String inspect() {
+        if (isReleased()) {
+            return storage.description + "(released)";
+        }
+        var unit = storage.elementShift == LONG_SHIFT ? "integers" : "bytes";
+        return "%s(%d %s)".formatted(storage.description, length, unit);
+    }
+}
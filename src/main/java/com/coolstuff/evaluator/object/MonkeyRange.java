@@ -0,0 +1,81 @@
+package com.coolstuff.evaluator.object;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Integers from start (inclusive) to end (exclusive) by step. The elements are computed on access, so a range of any
+ * length takes constant memory.
+ */
+public class MonkeyRange extends MonkeyObject<Void> implements Iterable<MonkeyObject<?>> {
+    private final long start;
+    private final long end;
+    private final long step;
+    private final long length;
+
+    public MonkeyRange(long start, long end, long step) {
+        super(ObjectType.RANGE_OBJ);
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.length = length(start, end, step);
+        if (step == 0 || length < 0) {
+            throw new IllegalArgumentException("invalid range(%d, %d, %d)".formatted(start, end, step));
+        }
+    }
+
+    // negative when the range has more elements than a long can count
+    public static long length(long start, long end, long step) {
+        // unsigned arithmetic keeps the distance exact even when end - start overflows a long
+        if (step > 0) {
+            return start < end ? Long.divideUnsigned(end - start - 1, step) + 1 : 0;
+        }
+        return start > end ? Long.divideUnsigned(start - end - 1, -step) + 1 : 0;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    // null when the index is out of range
+    public MonkeyInteger get(long index) {
+        if (index < 0 || index >= length) {
+            return null;
+        }
+        return MonkeyInteger.valueOf(start + index * step);
+    }
+
+    public MonkeyRange rest() {
+        // start + step can only overflow when it is past the end anyway
+        return length <= 1 ? new MonkeyRange(end, end, step) : new MonkeyRange(start + step, end, step);
+    }
+
+    @Override
+    public Iterator<MonkeyObject<?>> iterator() {
+        return new Iterator<>() {
+            private long index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public MonkeyObject<?> next() {
+                if (index >= length) {
+                    throw new NoSuchElementException();
+                }
+                return MonkeyInteger.valueOf(start + index++ * step);
+            }
+        };
+    }
+
+    @Override
+    public String inspect() {
+        return step == 1 ? "range(%d, %d)".formatted(start, end) : "range(%d, %d, %d)".formatted(start, end, step);
+    }
+}
@@ -3,11 +3,70 @@ package com.coolstuff.evaluator.object;
 import com.coolstuff.evaluator.HashKey;
 import com.coolstuff.evaluator.MonkeyHashable;
 
+import java.util.ArrayDeque;
+
 public class MonkeyString extends MonkeyObject<String> implements MonkeyHashable {
+    // concatenations up to this length are copied right away, longer ones become rope nodes
+    private static final int FLAT_CONCAT_LIMIT = 64;
+
+    private final int length;
+    private MonkeyString left;
+    private MonkeyString right;
 
     public MonkeyString(String value) {
         super(ObjectType.STRING);
         setObject(value);
+        this.length = value.length();
+    }
+
+    private MonkeyString(MonkeyString left, MonkeyString right) {
+        super(ObjectType.STRING);
+        this.length = Math.addExact(left.length, right.length);
+        this.left = left;
+        this.right = right;
+    }
+
+    public static MonkeyString concat(MonkeyString left, MonkeyString right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length + right.length <= FLAT_CONCAT_LIMIT) {
+            return new MonkeyString(left.getObject() + right.getObject());
+        }
+        return new MonkeyString(left, right);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String getObject() {
+        if (left != null) {
+            setObject(flatten());
+            left = null;
+            right = null;
+        }
+        return super.getObject();
+    }
+
+    private String flatten() {
+        var builder = new StringBuilder(length);
+        var pending = new ArrayDeque<MonkeyString>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            var node = pending.pop();
+            if (node.left == null) {
+                builder.append(node.getObject());
+            } else {
+                pending.push(node.right);
+                pending.push(node.left);
+            }
+        }
+        return builder.toString();
     }
 
     @Override
@@ -19,4 +78,14 @@ public class MonkeyString extends MonkeyObject<String> implements MonkeyHashable
     public HashKey hashKey() {
         return new HashKey(this);
     }
+
+    @Override
+    public int keyHash() {
+        return getObject().hashCode();
+    }
+
+    @Override
+    public boolean keyEquals(MonkeyObject<?> other) {
+        return other instanceof MonkeyString string && string.length == length && string.getObject().equals(getObject());
+    }
 }
@@ -0,0 +1,44 @@
+package com.coolstuff.evaluator.object;
+
+import com.coolstuff.token.Token;
+
+/**
+ * A call in tail position that has been evaluated up to its arguments but not yet performed. It never escapes a
+ * function body: the trampoline in {@link MonkeyFunction} performs it in place of the returning call.
+ */
+public class MonkeyTailCall extends MonkeyObject<Void> {
+
+    private final Token callToken;
+    private final MonkeyFunction function;
+    private final String functionName;
+    private final MonkeyObject<?>[] arguments;
+
+    public MonkeyTailCall(Token callToken, MonkeyFunction function, String functionName, MonkeyObject<?>[] arguments) {
+        super(ObjectType.TAIL_CALL_OBJ);
+        this.callToken = callToken;
+        this.function = function;
+        this.functionName = functionName;
+        this.arguments = arguments;
+    }
+
+    public Token getCallToken() {
+        return callToken;
+    }
+
+    public MonkeyFunction getFunction() {
+        return function;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public MonkeyObject<?>[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String inspect() {
+        return "tail call %s(%d args)".formatted(functionName, arguments.length);
+    }
+}
@@ -1,5 +1,5 @@
 package com.coolstuff.evaluator.object;
 
 public enum ObjectType {
-    INTEGER, BOOLEAN, NULL, RETURN_VALUE_OBJ, FUNCTION_OBJ, STRING, BUILTIN_OBJ, ARRAY_OBJ, HASH_OBJ, BREAK_OBJ, CONTINUE_OBJ
+    INTEGER, BOOLEAN, NULL, RETURN_VALUE_OBJ, FUNCTION_OBJ, STRING, BUILTIN_OBJ, ARRAY_OBJ, RANGE_OBJ, OFF_HEAP_ARRAY_OBJ, LINES_OBJ, HASH_OBJ, BREAK_OBJ, CONTINUE_OBJ, TAIL_CALL_OBJ
 }
@@ -0,0 +1,165 @@
+package com.coolstuff.evaluator.object;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Immutable vector of only integers or only booleans, backing {@link MonkeyArray} in place of a
+ * {@link PersistentVector}. Integers are stored as a {@code long[]} and booleans as a bitset, and elements are boxed
+ * on access. Vectors share one growable buffer: {@link #push} appends in place when the vector ends where the buffer's
+ * written part ends, and copies otherwise, so every vector still sees only its own prefix.
+ */
+public final class PackedVector extends AbstractList<MonkeyObject<?>> implements RandomAccess {
+    private static final int MIN_CAPACITY = 8;
+
+    public static final PackedVector EMPTY = new PackedVector(ObjectType.INTEGER, new Buffer(new long[0], 0), 0, 0);
+
+    private static final class Buffer {
+        private final long[] words;
+        // number of elements written, counted from the start of the buffer
+        private int used;
+
+        private Buffer(long[] words, int used) {
+            this.words = words;
+            this.used = used;
+        }
+    }
+
+    private final ObjectType elementType;
+    private final Buffer buffer;
+    private final int offset;
+    private final int size;
+
+    private PackedVector(ObjectType elementType, Buffer buffer, int offset, int size) {
+        this.elementType = elementType;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    // null unless the first length elements are all integers or all booleans
+    public static PackedVector pack(MonkeyObject<?>[] elements, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        var elementType = elements[0].getType();
+        if (elementType != ObjectType.INTEGER && elementType != ObjectType.BOOLEAN) {
+            return null;
+        }
+        for (int i = 1; i < length; i++) {
+            if (elements[i].getType() != elementType) {
+                return null;
+            }
+        }
+
+        var words = new long[wordsFor(elementType, length)];
+        for (int i = 0; i < length; i++) {
+            write(elementType, words, i, elements[i]);
+        }
+        return new PackedVector(elementType, new Buffer(words, length), 0, length);
+    }
+
+    // the vector takes ownership of the array
+    public static PackedVector ofLongs(long[] values) {
+        return new PackedVector(ObjectType.INTEGER, new Buffer(values, values.length), 0, values.length);
+    }
+
+    public ObjectType elementType() {
+        return elementType;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MonkeyObject<?> get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index %d out of bounds for length %d".formatted(index, size));
+        }
+        var position = index + offset;
+        var words = buffer.words;
+        if (elementType == ObjectType.INTEGER) {
+            return MonkeyInteger.valueOf(words[position]);
+        }
+        return MonkeyBoolean.nativeToMonkey((words[position >>> 6] & (1L << position)) != 0);
+    }
+
+    // storage shared with other vectors, never to be modified: an integer vector's elements are
+    // longs()[offset() .. offset() + size())
+    public long[] longs() {
+        return buffer.words;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    // only for integer vectors
+    public long[] toLongArray() {
+        return Arrays.copyOfRange(buffer.words, offset, offset + size);
+    }
+
+    // null when the element does not fit the packed type
+    public PackedVector push(MonkeyObject<?> element) {
+        var type = element.getType();
+        if (size == 0 && type != elementType && (type == ObjectType.INTEGER || type == ObjectType.BOOLEAN)) {
+            return new PackedVector(type, new Buffer(new long[0], 0), 0, 0).push(element);
+        }
+        if (type != elementType) {
+            return null;
+        }
+
+        var end = offset + size;
+        if (end == buffer.used && end < capacity(buffer.words)) {
+            write(elementType, buffer.words, end, element);
+            buffer.used++;
+            return new PackedVector(elementType, buffer, offset, size + 1);
+        }
+
+        // another vector already appended past our end, or the buffer is full
+        var grown = Math.max(MIN_CAPACITY, size * 2);
+        var words = new long[wordsFor(elementType, grown)];
+        copyRange(buffer.words, offset, words, size);
+        write(elementType, words, size, element);
+        return new PackedVector(elementType, new Buffer(words, size + 1), 0, size + 1);
+    }
+
+    public PackedVector rest() {
+        if (size <= 1) {
+            return EMPTY;
+        }
+        return new PackedVector(elementType, buffer, offset + 1, size - 1);
+    }
+
+    private int capacity(long[] words) {
+        return elementType == ObjectType.INTEGER ? words.length : words.length * Long.SIZE;
+    }
+
+    private void copyRange(long[] from, int start, long[] to, int length) {
+        if (elementType == ObjectType.INTEGER) {
+            System.arraycopy(from, start, to, 0, length);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            var position = start + i;
+            if ((from[position >>> 6] & (1L << position)) != 0) {
+                to[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    private static int wordsFor(ObjectType elementType, int length) {
+        return elementType == ObjectType.INTEGER ? length : (length + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static void write(ObjectType elementType, long[] words, int position, MonkeyObject<?> element) {
+        if (elementType == ObjectType.INTEGER) {
+            words[position] = ((MonkeyInteger) element).getValue();
+        } else if (((MonkeyBoolean) element).getObject()) {
+            words[position >>> 6] |= 1L << position;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.coolstuff.evaluator.object;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Immutable bit-partitioned vector (32-way trie plus a tail) backing {@link MonkeyArray}. {@link #push} copies at most
+ * one path of the trie, {@link #rest} only moves {@code offset}, so both share structure with the original.
+ */
+public final class PersistentVector extends AbstractList<MonkeyObject<?>> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final Object[] EMPTY_TAIL = new Object[0];
+
+    public static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_NODE, EMPTY_TAIL, 0);
+
+    // count includes the `offset` elements dropped by rest()
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+    private final int offset;
+
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail, int offset) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.offset = offset;
+    }
+
+    public static PersistentVector of(MonkeyObject<?>... elements) {
+        return of(elements, elements.length);
+    }
+
+    // the first length elements of the array
+    public static PersistentVector of(MonkeyObject<?>[] elements, int length) {
+        var vector = EMPTY;
+        var position = 0;
+        // fill whole leaves at once instead of growing the tail one element at a time
+        while (length - position > WIDTH) {
+            vector = vector.pushLeaf(Arrays.copyOfRange(elements, position, position + WIDTH, Object[].class));
+            position += WIDTH;
+        }
+        var tail = Arrays.copyOfRange(elements, position, length, Object[].class);
+        return new PersistentVector(vector.count + tail.length, vector.shift, vector.root, tail, 0);
+    }
+
+    public static PersistentVector copyOf(Collection<? extends MonkeyObject<?>> elements) {
+        if (elements instanceof PersistentVector vector) {
+            return vector;
+        }
+        return of(elements.toArray(MonkeyObject<?>[]::new));
+    }
+
+    @Override
+    public int size() {
+        return count - offset;
+    }
+
+    @Override
+    public MonkeyObject<?> get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index %d out of bounds for length %d".formatted(index, size()));
+        }
+        var position = index + offset;
+        return (MonkeyObject<?>) leafFor(position)[position & MASK];
+    }
+
+    public PersistentVector push(MonkeyObject<?> element) {
+        if (count - tailOffset() < WIDTH) {
+            var newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector(count + 1, shift, root, newTail, offset);
+        }
+
+        var vector = pushLeaf(tail);
+        return new PersistentVector(count + 1, vector.shift, vector.root, new Object[]{element}, offset);
+    }
+
+    public PersistentVector rest() {
+        if (size() <= 1) {
+            return EMPTY;
+        }
+        return new PersistentVector(count, shift, root, tail, offset + 1);
+    }
+
+    // Moves a full leaf into the trie; the result has an empty tail and is only an intermediate value.
+    private PersistentVector pushLeaf(Object[] leaf) {
+        var leafStart = tailOffset();
+        if (leafStart >= 1L << (shift + BITS)) {
+            var newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, leaf);
+            return new PersistentVector(leafStart + WIDTH, shift + BITS, newRoot, EMPTY_TAIL, offset);
+        }
+        return new PersistentVector(leafStart + WIDTH, shift, pushLeaf(leafStart, shift, root, leaf), EMPTY_TAIL, offset);
+    }
+
+    private static Object[] pushLeaf(int leafStart, int level, Object[] parent, Object[] leaf) {
+        var index = (leafStart >>> level) & MASK;
+        var node = parent.clone();
+        if (level == BITS) {
+            node[index] = leaf;
+        } else {
+            var child = (Object[]) parent[index];
+            node[index] = child != null ? pushLeaf(leafStart, level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        var node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private int tailOffset() {
+        return count - tail.length;
+    }
+
+    private Object[] leafFor(int position) {
+        if (position >= tailOffset()) {
+            return tail;
+        }
+        var node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(position >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @Override
+    public Iterator<MonkeyObject<?>> iterator() {
+        return new Iterator<>() {
+            private int position = offset;
+            private Object[] leaf = position < count ? leafFor(position) : null;
+
+            @Override
+            public boolean hasNext() {
+                return position < count;
+            }
+
+            @Override
+            public MonkeyObject<?> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (position != offset && (position & MASK) == 0) {
+                    leaf = leafFor(position);
+                }
+                return (MonkeyObject<?>) leaf[position++ & MASK];
+            }
+        };
+    }
+}
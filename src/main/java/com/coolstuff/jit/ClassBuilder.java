@@ -0,0 +1,432 @@
+package com.coolstuff.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for {@link JitCompiler}: a constant pool, fields and methods with a Code
+ * attribute. Classes are written as version 49 so the JVM infers frames itself and no StackMapTable is needed.
+ */
+final class ClassBuilder {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+    private static final int MAX_U2 = 0xFFFF;
+
+    /** The class would exceed a class file limit, e.g. a method with more than 32 KiB of code, whose jumps could not reach. */
+    static final class LimitExceeded extends RuntimeException {
+        LimitExceeded(String limit) {
+            super(limit, null, false, false);
+        }
+    }
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<MethodBuilder> methods = new ArrayList<>();
+
+    ClassBuilder(String name, String superName, String... interfaceNames) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = Arrays.stream(interfaceNames).mapToInt(this::classRef).toArray();
+    }
+
+    int utf8(String value) {
+        return constant("U".concat(value), out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        var name = utf8(internalName);
+        return constant("C".concat(internalName), out -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I".concat(Integer.toString(value)), out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var ownerIndex = classRef(owner);
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        var nameAndType = constant(String.join(":", "N", name, descriptor), out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant(String.join(":", Integer.toString(tag), owner, name, descriptor), out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    // keys are built with concat/join rather than +, whose invokedynamic bootstraps would add to the first compile
+    private int constant(String key, PoolEntry entry) {
+        var index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (poolCount == MAX_U2) {
+            throw new LimitExceeded("constant pool is full");
+        }
+        try {
+            entry.write(poolOut);
+        } catch (UTFDataFormatException e) {
+            throw new LimitExceeded("constant string is too long");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    void field(int access, String name, String descriptor) {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    MethodBuilder method(int access, String name, String descriptor) {
+        var method = new MethodBuilder(this, access, name, descriptor);
+        methods.add(method);
+        return method;
+    }
+
+    byte[] toByteArray() {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        try {
+            // resolve the pool entries of the method headers before the pool is written
+            var code = utf8("Code");
+            var methodHeaders = methods.stream().map(m -> new int[]{m.access, utf8(m.name), utf8(m.descriptor)}).toList();
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (var anInterface : interfaces) {
+                out.writeShort(anInterface);
+            }
+            out.writeShort(fields.size());
+            for (var field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (int i = 0; i < methods.size(); i++) {
+                var header = methodHeaders.get(i);
+                out.writeShort(header[0]);
+                out.writeShort(header[1]);
+                out.writeShort(header[2]);
+                out.writeShort(1);
+                methods.get(i).writeCode(out, code);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface PoolEntry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    static final class Label {
+        private int position = -1;
+        private int stack = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    /**
+     * Appends instructions and tracks the operand stack depth. After an unconditional jump, return or throw the depth
+     * is unknown until the next {@link #bind}.
+     */
+    static final class MethodBuilder {
+        static final int ACONST_NULL = 0x01;
+        static final int AALOAD = 0x32;
+        static final int AASTORE = 0x53;
+        static final int POP = 0x57;
+        static final int DUP = 0x59;
+        static final int IFEQ = 0x99;
+        static final int IFNE = 0x9a;
+        static final int GOTO = 0xa7;
+        static final int ARETURN = 0xb0;
+        static final int RETURN = 0xb1;
+        static final int ATHROW = 0xbf;
+        static final int IFNONNULL = 0xc7;
+
+        private final ClassBuilder owner;
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final List<Label> labels = new ArrayList<>();
+        private byte[] code = new byte[256];
+        private int length;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+
+        private MethodBuilder(ClassBuilder owner, int access, String name, String descriptor) {
+            this.owner = owner;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = argumentSlots(descriptor) + 1;
+        }
+
+        void op(int opcode) {
+            u1(opcode);
+            switch (opcode) {
+                case ACONST_NULL, DUP -> push(1);
+                case AALOAD, POP, ARETURN, ATHROW -> push(-1);
+                case AASTORE -> push(-3);
+                default -> {
+                }
+            }
+            if (opcode == ARETURN || opcode == RETURN || opcode == ATHROW) {
+                stack = -1;
+            }
+        }
+
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(0x03 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(0x10);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(0x11);
+                u2(value);
+            } else {
+                u1(0x13);
+                u2(owner.integer(value));
+            }
+            push(1);
+        }
+
+        void load(int local) {
+            local(0x19, local);
+            push(1);
+        }
+
+        void store(int local) {
+            local(0x3a, local);
+            push(-1);
+        }
+
+        private void local(int opcode, int local) {
+            if (local > 255) {
+                u1(0xc4);
+                u1(opcode);
+                u2(local);
+            } else {
+                u1(opcode);
+                u1(local);
+            }
+            maxLocals = Math.max(maxLocals, local + 1);
+        }
+
+        void getStatic(String owner, String name, String descriptor) {
+            u1(0xb2);
+            u2(this.owner.fieldRef(owner, name, descriptor));
+            push(1);
+        }
+
+        void getField(String owner, String name, String descriptor) {
+            u1(0xb4);
+            u2(this.owner.fieldRef(owner, name, descriptor));
+        }
+
+        void putField(String owner, String name, String descriptor) {
+            u1(0xb5);
+            u2(this.owner.fieldRef(owner, name, descriptor));
+            push(-2);
+        }
+
+        void invokeStatic(String owner, String name, String descriptor) {
+            u1(0xb8);
+            u2(this.owner.methodRef(owner, name, descriptor));
+            push(returnSlots(descriptor) - argumentSlots(descriptor));
+        }
+
+        void invokeVirtual(String owner, String name, String descriptor) {
+            u1(0xb6);
+            u2(this.owner.methodRef(owner, name, descriptor));
+            push(returnSlots(descriptor) - argumentSlots(descriptor) - 1);
+        }
+
+        void invokeSpecial(String owner, String name, String descriptor) {
+            u1(0xb7);
+            u2(this.owner.methodRef(owner, name, descriptor));
+            push(returnSlots(descriptor) - argumentSlots(descriptor) - 1);
+        }
+
+        void invokeInterface(String owner, String name, String descriptor) {
+            var arguments = argumentSlots(descriptor);
+            u1(0xb9);
+            u2(this.owner.interfaceMethodRef(owner, name, descriptor));
+            u1(arguments + 1);
+            u1(0);
+            push(returnSlots(descriptor) - arguments - 1);
+        }
+
+        void newArray(String elementType) {
+            u1(0xbd);
+            u2(owner.classRef(elementType));
+        }
+
+        void checkCast(String type) {
+            u1(0xc0);
+            u2(owner.classRef(type));
+        }
+
+        Label label() {
+            var label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        void jump(int opcode, Label label) {
+            if (opcode != GOTO) {
+                push(-1);
+            }
+            label.stack = stack;
+            label.jumps.add(length);
+            u1(opcode);
+            u2(0);
+            if (opcode == GOTO) {
+                stack = -1;
+            }
+        }
+
+        void bind(Label label) {
+            label.position = length;
+            if (stack < 0) {
+                stack = label.stack;
+            }
+        }
+
+        boolean isReachable() {
+            return stack >= 0;
+        }
+
+        private void push(int slots) {
+            stack += slots;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void u1(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >>> 8);
+            u1(value);
+        }
+
+        int length() {
+            return length;
+        }
+
+        private void writeCode(DataOutputStream out, int codeName) throws IOException {
+            // jump offsets are signed 16-bit, so code up to Short.MAX_VALUE bytes keeps every target in reach
+            if (length > Short.MAX_VALUE || maxStack > MAX_U2 || maxLocals > MAX_U2) {
+                throw new LimitExceeded("method %s is too large".formatted(name));
+            }
+            for (var label : labels) {
+                for (var jump : label.jumps) {
+                    var offset = label.position - jump;
+                    code[jump + 1] = (byte) (offset >>> 8);
+                    code[jump + 2] = (byte) offset;
+                }
+            }
+
+            out.writeShort(codeName);
+            out.writeInt(2 + 2 + 4 + length + 2 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private static int argumentSlots(String descriptor) {
+            var slots = 0;
+            for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+                var c = descriptor.charAt(i);
+                while (c == '[') {
+                    c = descriptor.charAt(++i);
+                }
+                if (c == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+                slots += (c == 'J' || c == 'D') && descriptor.charAt(i - 1) != '[' ? 2 : 1;
+            }
+            return slots;
+        }
+
+        private static int returnSlots(String descriptor) {
+            return switch (descriptor.charAt(descriptor.indexOf(')') + 1)) {
+                case 'V' -> 0;
+                case 'J', 'D' -> 2;
+                default -> 1;
+            };
+        }
+    }
+}
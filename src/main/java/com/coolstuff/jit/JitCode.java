@@ -0,0 +1,15 @@
+package com.coolstuff.jit;
+
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+/**
+ * The body of a function literal compiled by {@link JitCompiler}. Takes the place of
+ * {@link Evaluator#evalFunctionBody} for arguments whose count has already been checked.
+ */
+@FunctionalInterface
+public interface JitCode {
+    MonkeyObject<?> run(Environment closure, MonkeyObject<?>[] arguments, Evaluator evaluator) throws EvaluationException;
+}
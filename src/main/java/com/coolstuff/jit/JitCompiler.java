@@ -0,0 +1,496 @@
+package com.coolstuff.jit;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+import com.coolstuff.evaluator.object.MonkeyBoolean;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyString;
+import com.coolstuff.jit.ClassBuilder.Label;
+import com.coolstuff.jit.ClassBuilder.MethodBuilder;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+import static com.coolstuff.jit.ClassBuilder.MethodBuilder.*;
+
+/**
+ * Translates function literals into JVM classes that are loaded as hidden classes, so HotSpot can compile and inline
+ * Monkey functions like any other Java code. Parameters and {@code let} bindings live in JVM locals, operators and
+ * calls go through {@link JitRuntime}.
+ *
+ * <p>Functions that create closures are not compiled, since their scope has to stay an {@code Environment} the closures
+ * can capture. {@code return}, {@code break} and {@code continue} are only compiled where they end statements of the
+ * function body, a loop body or an {@code if} used as a statement. Anything else, or a function too large for one
+ * JVM method, makes {@link #compile} return {@code null} and the function keeps being interpreted.
+ */
+public class JitCompiler {
+    /** Calls of one function value before its literal is compiled, {@code 0} disables compilation. */
+    public static final int THRESHOLD = Integer.getInteger("monkey.jit.threshold", 1000);
+
+    private static final Map<FunctionLiteral, Optional<JitCode>> COMPILED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final String CLASS_NAME = "com/coolstuff/jit/CompiledFunction";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String RUNTIME = "com/coolstuff/jit/JitRuntime";
+    private static final String MONKEY_OBJECT = "com/coolstuff/evaluator/object/MonkeyObject";
+    private static final String FUNCTION = "com/coolstuff/evaluator/AbstractMonkeyFunction";
+    private static final String EVALUATOR = "com/coolstuff/evaluator/Evaluator";
+    private static final String TOKEN = "com/coolstuff/token/Token";
+    private static final String HASH_TABLE = "com/coolstuff/evaluator/object/HashTable";
+    private static final String HASHABLE = "com/coolstuff/evaluator/MonkeyHashable";
+
+    private static final String OBJ = "L" + MONKEY_OBJECT + ";";
+    private static final String TOK = "L" + TOKEN + ";";
+    private static final String EVAL = "L" + EVALUATOR + ";";
+    private static final String BINARY = "(" + OBJ + OBJ + TOK + EVAL + ")" + OBJ;
+    private static final String CALL = "(L" + FUNCTION + ";[" + OBJ + "Ljava/lang/String;" + TOK + EVAL + ")" + OBJ;
+
+    private static final int CLOSURE = 1;
+    private static final int ARGUMENTS = 2;
+    private static final int EVALUATOR_LOCAL = 3;
+    private static final int FIRST_SLOT = 4;
+
+    /** Compiled code for {@code literal}, shared by every function value created from it; {@code null} if unsupported. */
+    public static JitCode compiled(FunctionLiteral literal) {
+        return COMPILED.computeIfAbsent(literal, key -> Optional.ofNullable(new JitCompiler().compile(key))).orElse(null);
+    }
+
+    public JitCode compile(FunctionLiteral literal) {
+        var locals = literal.locals();
+        if (locals == null) {
+            return null;
+        }
+
+        var translation = new Translation(locals.length);
+        byte[] bytes;
+        try {
+            bytes = translation.translate(literal);
+        } catch (Unsupported | ClassBuilder.LimitExceeded e) {
+            return null;
+        }
+
+        // a class the verifier rejects is a translator bug, so its VerifyError is not caught
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (JitCode) lookup.lookupClass().getConstructor(Object[].class).newInstance((Object) translation.constants.toArray());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("JIT BUG: cannot instantiate compiled function", e);
+        }
+    }
+
+    private static final class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Loop {
+        final Label top;
+        final Label exit;
+        final int result;
+        boolean broken;
+
+        Loop(Label top, Label exit, int result) {
+            this.top = top;
+            this.exit = exit;
+            this.result = result;
+        }
+    }
+
+    private static final class Translation {
+        final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+        private final ClassBuilder classBuilder = new ClassBuilder(CLASS_NAME, OBJECT, "com/coolstuff/jit/JitCode");
+        private final int slots;
+        private int nextTemp;
+        private MethodBuilder code;
+
+        Translation(int slots) {
+            this.slots = slots;
+            this.nextTemp = FIRST_SLOT + slots;
+        }
+
+        byte[] translate(FunctionLiteral literal) {
+            classBuilder.field(ClassBuilder.ACC_PRIVATE | ClassBuilder.ACC_FINAL, "constants", "[Ljava/lang/Object;");
+
+            var init = classBuilder.method(ClassBuilder.ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V");
+            init.load(0);
+            init.invokeSpecial(OBJECT, "<init>", "()V");
+            init.load(0);
+            init.load(1);
+            init.putField(CLASS_NAME, "constants", "[Ljava/lang/Object;");
+            init.op(RETURN);
+
+            code = classBuilder.method(ClassBuilder.ACC_PUBLIC, "run",
+                    "(Lcom/coolstuff/evaluator/Environment;[" + OBJ + EVAL + ")" + OBJ);
+            // every slot starts unassigned, like a fresh slot environment
+            for (int slot = 0; slot < slots; slot++) {
+                code.op(ACONST_NULL);
+                code.store(FIRST_SLOT + slot);
+            }
+            var parameters = literal.parameters();
+            for (int i = 0; i < parameters.length; i++) {
+                if (!parameters[i].isLocal()) {
+                    throw new Unsupported();
+                }
+                code.load(ARGUMENTS);
+                code.pushInt(i);
+                code.op(AALOAD);
+                code.store(FIRST_SLOT + parameters[i].slot());
+            }
+
+            if (bodyStatements(literal.body().statements(), true, null)) {
+                code.op(ARETURN);
+            }
+            if (code.length() > Short.MAX_VALUE) {
+                // jump offsets are 16 bit
+                throw new Unsupported();
+            }
+            return classBuilder.toByteArray();
+        }
+
+        // Statements of a function, loop or `if` body, see Evaluator.evalBodyStatements. Leaves the value of the last
+        // statement on the stack and returns true, or returns false if control always leaves the sequence.
+        private boolean bodyStatements(Statement[] statements, boolean tail, Loop loop) {
+            if (statements.length == 0) {
+                nullValue();
+                return true;
+            }
+            for (int i = 0; i < statements.length; i++) {
+                var last = i == statements.length - 1;
+                if (!bodyStatement(statements[i], tail && last, loop)) {
+                    return false;
+                }
+                if (!last) {
+                    code.op(POP);
+                }
+            }
+            return true;
+        }
+
+        private boolean bodyStatement(Statement statement, boolean tail, Loop loop) {
+            switch (statement) {
+                case ReturnStatement returnStatement -> {
+                    if (returnStatement.returnValue() instanceof CallExpression call) {
+                        call(call, true);
+                    } else {
+                        expression(returnStatement.returnValue());
+                    }
+                    code.op(ARETURN);
+                    return false;
+                }
+                case BreakStatement breakStatement -> {
+                    if (loop == null) {
+                        misplaced("break", breakStatement.token());
+                    } else {
+                        loop.broken = true;
+                        code.jump(GOTO, loop.exit);
+                    }
+                    return false;
+                }
+                case ContinueStatement continueStatement -> {
+                    if (loop == null) {
+                        misplaced("continue", continueStatement.token());
+                    } else {
+                        nullValue();
+                        code.store(loop.result);
+                        code.jump(GOTO, loop.top);
+                    }
+                    return false;
+                }
+                case ExpressionStatement expressionStatement when expressionStatement.expression() instanceof CallExpression call && tail -> {
+                    call(call, true);
+                    return true;
+                }
+                case ExpressionStatement expressionStatement when expressionStatement.expression() instanceof IfExpression ifExpression -> {
+                    return bodyIf(ifExpression, tail, loop);
+                }
+                case WhileStatement whileStatement -> {
+                    bodyWhile(whileStatement);
+                    return true;
+                }
+                default -> {
+                    statement(statement);
+                    return true;
+                }
+            }
+        }
+
+        private boolean bodyIf(IfExpression ifExpression, boolean tail, Loop loop) {
+            var otherwise = code.label();
+            var end = code.label();
+            condition(ifExpression.condition(), otherwise);
+            if (bodyStatements(ifExpression.consequence().statements(), tail, loop)) {
+                code.jump(GOTO, end);
+            }
+            code.bind(otherwise);
+            if (ifExpression.alternative() == null) {
+                nullValue();
+            } else if (!bodyStatements(ifExpression.alternative().statements(), tail, loop)) {
+                code.bind(end);
+                return code.isReachable();
+            }
+            code.bind(end);
+            return true;
+        }
+
+        private void bodyWhile(WhileStatement whileStatement) {
+            var loop = new Loop(code.label(), code.label(), nextTemp++);
+            var done = code.label();
+            var end = code.label();
+
+            nullValue();
+            code.store(loop.result);
+            code.bind(loop.top);
+            condition(whileStatement.condition(), done);
+            if (bodyStatements(whileStatement.body().statements(), false, loop)) {
+                code.store(loop.result);
+                code.jump(GOTO, loop.top);
+            }
+            code.bind(done);
+            code.load(loop.result);
+            if (loop.broken) {
+                code.jump(GOTO, end);
+                code.bind(loop.exit);
+                nullValue();
+            }
+            code.bind(end);
+        }
+
+        private void misplaced(String keyword, Token token) {
+            constant(keyword, "java/lang/String");
+            constant(token, TOKEN);
+            code.load(EVALUATOR_LOCAL);
+            code.invokeStatic(RUNTIME, "misplacedControlFlow",
+                    "(Ljava/lang/String;" + TOK + EVAL + ")Lcom/coolstuff/evaluator/EvaluationException;");
+            code.op(ATHROW);
+        }
+
+        // Statements outside of body position, see Evaluator.evalStatements. Control flow there would abandon the enclosing expression.
+        private void statement(Statement statement) {
+            switch (statement) {
+                case LetStatement letStatement when letStatement.name().isLocal() && letStatement.name().depth() == 0 -> {
+                    expression(letStatement.value());
+                    code.op(DUP);
+                    code.store(FIRST_SLOT + letStatement.name().slot());
+                }
+                case ExpressionStatement expressionStatement -> expression(expressionStatement.expression());
+                case null, default -> throw new Unsupported();
+            }
+        }
+
+        private void block(BlockStatement block) {
+            var statements = block.statements();
+            if (statements.length == 0) {
+                nullValue();
+            }
+            for (int i = 0; i < statements.length; i++) {
+                statement(statements[i]);
+                if (i < statements.length - 1) {
+                    code.op(POP);
+                }
+            }
+        }
+
+        private void condition(Expression condition, Label otherwise) {
+            truth(condition);
+            code.jump(IFEQ, otherwise);
+        }
+
+        private void truth(Expression expression) {
+            expression(expression);
+            code.invokeStatic(RUNTIME, "isTruth", "(" + OBJ + ")Z");
+        }
+
+        private void expression(Expression expression) {
+            switch (expression) {
+                case IntegerLiteralExpression integer -> constant(MonkeyInteger.valueOf(integer.value()), MONKEY_OBJECT);
+                case BooleanExpression bool -> constant(MonkeyBoolean.nativeToMonkey(bool.value()), MONKEY_OBJECT);
+                case StringLiteralExpression string -> constant(new MonkeyString(string.value()), MONKEY_OBJECT);
+                case IdentifierExpression identifier -> identifier(identifier);
+                case PrefixExpression prefix -> {
+                    expression(prefix.right());
+                    switch (prefix.token().type()) {
+                        case BANG -> code.invokeStatic(RUNTIME, "not", "(" + OBJ + ")" + OBJ);
+                        case MINUS -> {
+                            constant(prefix.token(), TOKEN);
+                            code.load(EVALUATOR_LOCAL);
+                            code.invokeStatic(RUNTIME, "negate", "(" + OBJ + TOK + EVAL + ")" + OBJ);
+                        }
+                        default -> throw new Unsupported();
+                    }
+                }
+                case InfixExpression infix -> infix(infix);
+                case IfExpression ifExpression -> {
+                    var otherwise = code.label();
+                    var end = code.label();
+                    condition(ifExpression.condition(), otherwise);
+                    block(ifExpression.consequence());
+                    code.jump(GOTO, end);
+                    code.bind(otherwise);
+                    if (ifExpression.alternative() != null) {
+                        block(ifExpression.alternative());
+                    } else {
+                        nullValue();
+                    }
+                    code.bind(end);
+                }
+                case CallExpression call -> call(call, false);
+                case IndexExpression index -> {
+                    code.load(EVALUATOR_LOCAL);
+                    expression(index.left());
+                    constant(index.token(), TOKEN);
+                    code.invokeVirtual(EVALUATOR, "checkIndexable", "(" + OBJ + TOK + ")" + OBJ);
+                    expression(index.index());
+                    constant(index.token(), TOKEN);
+                    code.load(EVALUATOR_LOCAL);
+                    code.invokeStatic(RUNTIME, "index", BINARY);
+                }
+                case ArrayLiteral array -> {
+                    expressionArray(array.elements());
+                    code.invokeStatic(RUNTIME, "array", "([" + OBJ + ")" + OBJ);
+                }
+                case HashLiteral hash -> {
+                    code.pushInt(hash.pairs().size());
+                    code.invokeStatic(RUNTIME, "table", "(I)L" + HASH_TABLE + ";");
+                    for (var pair : hash.pairs()) {
+                        expression(pair.key());
+                        constant(hash.token(), TOKEN);
+                        code.load(EVALUATOR_LOCAL);
+                        code.invokeStatic(RUNTIME, "hashKey", "(" + OBJ + TOK + EVAL + ")L" + HASHABLE + ";");
+                        expression(pair.value());
+                        code.invokeStatic(RUNTIME, "put", "(L" + HASH_TABLE + ";L" + HASHABLE + ";" + OBJ + ")L" + HASH_TABLE + ";");
+                    }
+                    code.invokeStatic(RUNTIME, "hash", "(L" + HASH_TABLE + ";)" + OBJ);
+                }
+                case null, default -> throw new Unsupported();
+            }
+        }
+
+        private void identifier(IdentifierExpression identifier) {
+            if (!identifier.isResolved() || identifier.depth() == 0 && !identifier.isLocal()) {
+                throw new Unsupported();
+            }
+            if (identifier.depth() == 0 && identifier.isLocal()) {
+                var assigned = code.label();
+                code.load(FIRST_SLOT + identifier.slot());
+                code.op(DUP);
+                code.jump(IFNONNULL, assigned);
+                code.op(POP);
+                code.load(CLOSURE);
+                constant(identifier.value(), "java/lang/String");
+                constant(identifier.token(), TOKEN);
+                code.load(EVALUATOR_LOCAL);
+                code.invokeStatic(RUNTIME, "readUnassigned",
+                        "(Lcom/coolstuff/evaluator/Environment;Ljava/lang/String;" + TOK + EVAL + ")" + OBJ);
+                code.bind(assigned);
+                return;
+            }
+            // the closure is the scope one level up from the function's own
+            code.load(CLOSURE);
+            code.pushInt(identifier.depth() - 1);
+            code.pushInt(identifier.slot());
+            constant(identifier.value(), "java/lang/String");
+            constant(identifier.token(), TOKEN);
+            code.load(EVALUATOR_LOCAL);
+            code.invokeStatic(RUNTIME, "read",
+                    "(Lcom/coolstuff/evaluator/Environment;IILjava/lang/String;" + TOK + EVAL + ")" + OBJ);
+        }
+
+        private void infix(InfixExpression infix) {
+            var type = infix.token().type();
+            if (type == TokenType.AND || type == TokenType.OR) {
+                // see Evaluator.evalInfixExpression: the left side can decide, otherwise the truth of the right one
+                var isAnd = type == TokenType.AND;
+                var decided = code.label();
+                var end = code.label();
+                var jump = isAnd ? IFEQ : IFNE;
+                truth(infix.left());
+                code.jump(jump, decided);
+                truth(infix.right());
+                code.jump(jump, decided);
+                bool(isAnd);
+                code.jump(GOTO, end);
+                code.bind(decided);
+                bool(!isAnd);
+                code.bind(end);
+                return;
+            }
+
+            var method = switch (type) {
+                case PLUS -> "add";
+                case MINUS -> "subtract";
+                case ASTERISK -> "multiply";
+                case SLASH -> "divide";
+                case LT -> "lessThan";
+                case GT -> "greaterThan";
+                case LTE -> "lessOrEqual";
+                case GTE -> "greaterOrEqual";
+                case EQ -> "equal";
+                case NOT_EQ -> "notEqual";
+                default -> throw new Unsupported();
+            };
+            expression(infix.left());
+            expression(infix.right());
+            constant(infix.token(), TOKEN);
+            code.load(EVALUATOR_LOCAL);
+            code.invokeStatic(RUNTIME, method, BINARY);
+        }
+
+        private void call(CallExpression call, boolean tail) {
+            code.load(EVALUATOR_LOCAL);
+            expression(call.function());
+            constant(call.token(), TOKEN);
+            code.invokeVirtual(EVALUATOR, "checkCallable", "(" + OBJ + TOK + ")L" + FUNCTION + ";");
+            expressionArray(call.arguments());
+            if (call.function() instanceof IdentifierExpression identifier) {
+                constant(identifier.value(), "java/lang/String");
+            } else {
+                code.op(ACONST_NULL);
+            }
+            constant(call.token(), TOKEN);
+            code.load(EVALUATOR_LOCAL);
+            code.invokeStatic(RUNTIME, tail ? "tailCall" : "call", CALL);
+        }
+
+        private void expressionArray(Expression[] expressions) {
+            code.pushInt(expressions.length);
+            code.newArray(MONKEY_OBJECT);
+            for (int i = 0; i < expressions.length; i++) {
+                code.op(DUP);
+                code.pushInt(i);
+                expression(expressions[i]);
+                code.op(AASTORE);
+            }
+        }
+
+        private void bool(boolean value) {
+            code.getStatic("com/coolstuff/evaluator/object/MonkeyBoolean", value ? "TRUE" : "FALSE",
+                    "Lcom/coolstuff/evaluator/object/MonkeyBoolean;");
+        }
+
+        private void nullValue() {
+            code.getStatic("com/coolstuff/evaluator/object/MonkeyNull", "INSTANCE", "Lcom/coolstuff/evaluator/object/MonkeyNull;");
+        }
+
+        private void constant(Object value, String type) {
+            var index = constantIndex.computeIfAbsent(value, key -> {
+                constants.add(key);
+                return constants.size() - 1;
+            });
+            code.load(0);
+            code.getField(CLASS_NAME, "constants", "[Ljava/lang/Object;");
+            code.pushInt(index);
+            code.op(AALOAD);
+            code.checkCast(type);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.coolstuff.jit;
+
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.MonkeyHashable;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.object.*;
+import com.coolstuff.token.Token;
+
+/**
+ * Operations called from compiled functions. Integer operands take a fast path, everything else goes through the same
+ * {@link Evaluator} methods the tree walker uses, so results and errors match it.
+ */
+final class JitRuntime {
+
+    private JitRuntime() {
+    }
+
+    static MonkeyObject<?> read(Environment closure, int depth, int slot, String name, Token token, Evaluator evaluator) throws EvaluationException {
+        var value = closure.get(depth, slot, name);
+        return value != null ? value : builtin(name, token, evaluator);
+    }
+
+    // a local read before its `let` ran falls through to the enclosing scopes
+    static MonkeyObject<?> readUnassigned(Environment closure, String name, Token token, Evaluator evaluator) throws EvaluationException {
+        var value = closure.get(name);
+        return value != null ? value : builtin(name, token, evaluator);
+    }
+
+    private static MonkeyObject<?> builtin(String name, Token token, Evaluator evaluator) throws EvaluationException {
+        return BuiltInFunctions.getFunction(name).orElseThrow(() ->
+                evaluator.error(RuntimeErrorType.UNKNOWN_IDENTIFIER, token, "Identifier not found: %s", name));
+    }
+
+    static boolean isTruth(MonkeyObject<?> object) {
+        return Evaluator.isTruth(object);
+    }
+
+    static MonkeyObject<?> negate(MonkeyObject<?> operand, Token token, Evaluator evaluator) throws EvaluationException {
+        if (operand instanceof MonkeyInteger integer) {
+            return MonkeyInteger.valueOf(-integer.getValue());
+        }
+        return evaluator.applyPrefixOperator(token, operand);
+    }
+
+    static MonkeyObject<?> not(MonkeyObject<?> operand) {
+        return MonkeyBoolean.nativeToMonkey(!Evaluator.isTruth(operand));
+    }
+
+    static MonkeyObject<?> add(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyInteger.valueOf(l.getValue() + r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> subtract(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyInteger.valueOf(l.getValue() - r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> multiply(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyInteger.valueOf(l.getValue() * r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> divide(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r && r.getValue() != 0) {
+            return MonkeyInteger.valueOf(l.getValue() / r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> lessThan(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() < r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> greaterThan(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() > r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> lessOrEqual(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() <= r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> greaterOrEqual(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() >= r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> equal(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() == r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> notEqual(MonkeyObject<?> left, MonkeyObject<?> right, Token token, Evaluator evaluator) throws EvaluationException {
+        if (left instanceof MonkeyInteger l && right instanceof MonkeyInteger r) {
+            return MonkeyBoolean.nativeToMonkey(l.getValue() != r.getValue());
+        }
+        return evaluator.applyInfixOperator(token, left, right);
+    }
+
+    static MonkeyObject<?> index(MonkeyObject<?> left, MonkeyObject<?> index, Token token, Evaluator evaluator) throws EvaluationException {
+        return evaluator.applyIndex(token, left, index);
+    }
+
+    static MonkeyObject<?> array(MonkeyObject<?>[] elements) {
+        return MonkeyArray.of(elements);
+    }
+
+    static HashTable table(int size) {
+        return new HashTable(size);
+    }
+
+    static MonkeyHashable hashKey(MonkeyObject<?> key, Token token, Evaluator evaluator) throws EvaluationException {
+        return MonkeyHashable.checkIsHashable(key, token, evaluator);
+    }
+
+    static HashTable put(HashTable table, MonkeyHashable key, MonkeyObject<?> value) {
+        table.put(key, value);
+        return table;
+    }
+
+    static MonkeyObject<?> hash(HashTable table) {
+        return new MonkeyHash(table);
+    }
+
+    static MonkeyObject<?> call(AbstractMonkeyFunction function, MonkeyObject<?>[] arguments, String name, Token token, Evaluator evaluator) throws EvaluationException {
+        return evaluator.callFunction(token, function, functionName(function, name), arguments);
+    }
+
+    static MonkeyObject<?> tailCall(AbstractMonkeyFunction function, MonkeyObject<?>[] arguments, String name, Token token, Evaluator evaluator) throws EvaluationException {
+        var tailCall = function.tailCall(token, functionName(function, name), arguments);
+        return tailCall != null ? tailCall : call(function, arguments, name, token, evaluator);
+    }
+
+    // same naming as Evaluator.resolveFunctionName, `name` is null unless the callee is an identifier
+    private static String functionName(AbstractMonkeyFunction function, String name) {
+        if (function instanceof BuiltInFunction builtInFunction) {
+            return builtInFunction.getName();
+        }
+        return name != null ? name : "<anonymous>";
+    }
+
+    static EvaluationException misplacedControlFlow(String keyword, Token token, Evaluator evaluator) {
+        return evaluator.error(RuntimeErrorType.INVALID_CONTROL_FLOW, token, "`%s` not allowed outside loop", keyword);
+    }
+}
@@ -0,0 +1,28 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyArray;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+final class ArrayNode extends ExecNode {
+    private final ExecNode[] elements;
+
+    ArrayNode(ExecNode[] elements) {
+        this.elements = adopt(elements);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var values = new MonkeyObject<?>[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            values[i] = elements[i].execute(context);
+        }
+        return MonkeyArray.of(values);
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        replaceIn(elements, child, replacement);
+    }
+}
@@ -0,0 +1,131 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.BuiltInFunction;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.runtime.FunctionCode;
+import com.coolstuff.token.Token;
+
+/**
+ * Call site with an inline cache. After the first call it becomes a {@link BuiltinCall} for the builtin it saw, a
+ * {@link ClosureCall} for closures of the function literal it saw, or {@link Generic}; a cached variant that sees a
+ * different callee rewrites itself to {@link Generic}.
+ */
+abstract class CallNode extends ExecNode {
+    final Token token;
+    final String calleeName;
+    final boolean tail;
+    ExecNode callee;
+    final ExecNode[] arguments;
+
+    CallNode(Token token, String calleeName, boolean tail, ExecNode callee, ExecNode[] arguments) {
+        this.token = token;
+        this.calleeName = calleeName;
+        this.tail = tail;
+        this.callee = adopt(callee);
+        this.arguments = adopt(arguments);
+    }
+
+    @Override
+    final MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        return dispatch(callee.execute(context), context);
+    }
+
+    abstract MonkeyObject<?> dispatch(MonkeyObject<?> function, Evaluator context) throws EvaluationException;
+
+    final MonkeyObject<?>[] evaluateArguments(Evaluator context) throws EvaluationException {
+        var values = new MonkeyObject<?>[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].execute(context);
+        }
+        return values;
+    }
+
+    final MonkeyObject<?> callClosure(NodeFunction function, Evaluator context) throws EvaluationException {
+        var values = evaluateArguments(context);
+        if (tail) {
+            return function.tailCall(token, calleeName, values);
+        }
+        return function.code().call(function, token, calleeName, values, context);
+    }
+
+    final MonkeyObject<?> deoptimize(MonkeyObject<?> function, Evaluator context) throws EvaluationException {
+        return replace(new Generic(this)).dispatch(function, context);
+    }
+
+    @Override
+    final void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == callee) {
+            callee = replacement;
+        } else {
+            replaceIn(arguments, child, replacement);
+        }
+    }
+
+    static final class Uninitialized extends CallNode {
+        Uninitialized(Token token, String calleeName, boolean tail, ExecNode callee, ExecNode[] arguments) {
+            super(token, calleeName, tail, callee, arguments);
+        }
+
+        @Override
+        MonkeyObject<?> dispatch(MonkeyObject<?> function, Evaluator context) throws EvaluationException {
+            CallNode specialized = switch (function) {
+                case BuiltInFunction builtin -> new BuiltinCall(this, builtin);
+                case NodeFunction closure -> new ClosureCall(this, closure.code());
+                default -> new Generic(this);
+            };
+            return replace(specialized).dispatch(function, context);
+        }
+    }
+
+    static final class Generic extends CallNode {
+        Generic(CallNode node) {
+            super(node.token, node.calleeName, node.tail, node.callee, node.arguments);
+        }
+
+        @Override
+        MonkeyObject<?> dispatch(MonkeyObject<?> function, Evaluator context) throws EvaluationException {
+            var callable = context.checkCallable(function, token);
+            if (callable instanceof NodeFunction closure) {
+                return callClosure(closure, context);
+            }
+            var name = callable instanceof BuiltInFunction builtin ? builtin.getName() : calleeName;
+            return context.callFunction(token, callable, name, evaluateArguments(context));
+        }
+    }
+
+    static final class BuiltinCall extends CallNode {
+        private final BuiltInFunction builtin;
+
+        BuiltinCall(CallNode node, BuiltInFunction builtin) {
+            super(node.token, node.calleeName, node.tail, node.callee, node.arguments);
+            this.builtin = builtin;
+        }
+
+        @Override
+        MonkeyObject<?> dispatch(MonkeyObject<?> function, Evaluator context) throws EvaluationException {
+            if (function != builtin) {
+                return deoptimize(function, context);
+            }
+            return context.callFunction(token, builtin, builtin.getName(), evaluateArguments(context));
+        }
+    }
+
+    static final class ClosureCall extends CallNode {
+        private final FunctionCode code;
+
+        ClosureCall(CallNode node, FunctionCode code) {
+            super(node.token, node.calleeName, node.tail, node.callee, node.arguments);
+            this.code = code;
+        }
+
+        @Override
+        MonkeyObject<?> dispatch(MonkeyObject<?> function, Evaluator context) throws EvaluationException {
+            if (!(function instanceof NodeFunction closure) || closure.code() != code) {
+                return deoptimize(function, context);
+            }
+            return callClosure(closure, context);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+final class ConstantNode extends ExecNode {
+    private final MonkeyObject<?> value;
+
+    ConstantNode(MonkeyObject<?> value) {
+        this.value = value;
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) {
+        return value;
+    }
+}
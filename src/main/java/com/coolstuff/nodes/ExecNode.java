@@ -0,0 +1,49 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+/**
+ * Executable counterpart of an AST node, linked once by {@link NodeCompiler}. Nodes that observe their operands
+ * (infix operators, calls) {@link #replace} themselves with a specialized node and fall back to a generic one when a
+ * later execution breaks the specialization's assumptions.
+ */
+abstract class ExecNode {
+    private ExecNode parent;
+
+    abstract MonkeyObject<?> execute(Evaluator context) throws EvaluationException;
+
+    final <T extends ExecNode> T adopt(T child) {
+        if (child != null) {
+            ((ExecNode) child).parent = this;
+        }
+        return child;
+    }
+
+    final <T extends ExecNode> T[] adopt(T[] children) {
+        for (var child : children) {
+            adopt(child);
+        }
+        return children;
+    }
+
+    final <T extends ExecNode> T replace(T replacement) {
+        parent.replaceChild(this, replacement);
+        return parent.adopt(replacement);
+    }
+
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        throw new IllegalStateException("Node BUG: %s has no replaceable children".formatted(getClass().getSimpleName()));
+    }
+
+    static boolean replaceIn(ExecNode[] children, ExecNode child, ExecNode replacement) {
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] == child) {
+                children[i] = replacement;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.runtime.FunctionCode;
+
+final class FunctionNode extends ExecNode {
+    private final FunctionCode code;
+    private final SequenceNode body;
+
+    FunctionNode(FunctionCode code, SequenceNode body) {
+        this.code = code;
+        this.body = body;
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) {
+        return new NodeFunction(context.getEnvironment().closureScope(), code, body);
+    }
+}
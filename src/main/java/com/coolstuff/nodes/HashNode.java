@@ -0,0 +1,38 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.MonkeyHashable;
+import com.coolstuff.evaluator.object.HashTable;
+import com.coolstuff.evaluator.object.MonkeyHash;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.token.Token;
+
+final class HashNode extends ExecNode {
+    private final Token token;
+    private final ExecNode[] keys;
+    private final ExecNode[] values;
+
+    HashNode(Token token, ExecNode[] keys, ExecNode[] values) {
+        this.token = token;
+        this.keys = adopt(keys);
+        this.values = adopt(values);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var table = new HashTable(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            var key = MonkeyHashable.checkIsHashable(keys[i].execute(context), token, context);
+            table.put(key, values[i].execute(context));
+        }
+        return new MonkeyHash(table);
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        if (!replaceIn(keys, child, replacement)) {
+            replaceIn(values, child, replacement);
+        }
+    }
+}
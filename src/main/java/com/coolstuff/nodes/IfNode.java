@@ -0,0 +1,41 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyNull;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+final class IfNode extends ExecNode {
+    private ExecNode condition;
+    private final SequenceNode consequence;
+    private final SequenceNode alternative;
+    // used as a value rather than as a statement
+    private final boolean value;
+
+    IfNode(ExecNode condition, SequenceNode consequence, SequenceNode alternative, boolean value) {
+        this.condition = adopt(condition);
+        this.consequence = adopt(consequence);
+        this.alternative = adopt(alternative);
+        this.value = value;
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        MonkeyObject<?> result = MonkeyNull.INSTANCE;
+        if (Evaluator.isTruth(condition.execute(context))) {
+            result = consequence.execute(context);
+        } else if (alternative != null) {
+            result = alternative.execute(context);
+        }
+        if (value && AbruptCompletion.isSignal(result)) {
+            throw new AbruptCompletion(result);
+        }
+        return result;
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        condition = replacement;
+    }
+}
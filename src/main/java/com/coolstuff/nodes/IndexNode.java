@@ -0,0 +1,42 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyArray;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyNull;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.token.Token;
+
+final class IndexNode extends ExecNode {
+    private final Token token;
+    private ExecNode left;
+    private ExecNode index;
+
+    IndexNode(Token token, ExecNode left, ExecNode index) {
+        this.token = token;
+        this.left = adopt(left);
+        this.index = adopt(index);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var target = context.checkIndexable(left.execute(context), token);
+        var position = index.execute(context);
+        if (target instanceof MonkeyArray array && position instanceof MonkeyInteger integer) {
+            var elements = array.getObject();
+            var i = integer.getValue();
+            return i < 0 || i >= elements.size() ? MonkeyNull.INSTANCE : elements.get((int) i);
+        }
+        return context.applyIndex(token, target, position);
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == left) {
+            left = replacement;
+        } else {
+            index = replacement;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyBoolean;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyString;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+/**
+ * Arithmetic and comparison operator. Starts {@link Uninitialized}, rewrites itself on the first execution to the
+ * variant matching the operand types it saw, and to {@link Generic} once a later execution sees other types.
+ */
+abstract class InfixNode extends ExecNode {
+    final Token operator;
+    ExecNode left;
+    ExecNode right;
+
+    InfixNode(Token operator, ExecNode left, ExecNode right) {
+        this.operator = operator;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    final MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var l = left.execute(context);
+        var r = right.execute(context);
+        return apply(l, r, context);
+    }
+
+    abstract MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException;
+
+    final MonkeyObject<?> deoptimize(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+        return replace(new Generic(operator, left, right)).apply(l, r, context);
+    }
+
+    @Override
+    final void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == left) {
+            left = replacement;
+        } else {
+            right = replacement;
+        }
+    }
+
+    static final class Uninitialized extends InfixNode {
+        Uninitialized(Token operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+            InfixNode specialized;
+            if (l instanceof MonkeyInteger && r instanceof MonkeyInteger) {
+                specialized = IntegerOperation.create(operator, left, right);
+            } else if (l instanceof MonkeyString && r instanceof MonkeyString && operator.type() == TokenType.PLUS) {
+                specialized = new StringConcat(operator, left, right);
+            } else if (l instanceof MonkeyBoolean && r instanceof MonkeyBoolean) {
+                specialized = new BooleanOperation(operator, left, right);
+            } else {
+                specialized = new Generic(operator, left, right);
+            }
+            return replace(specialized).apply(l, r, context);
+        }
+    }
+
+    static final class Generic extends InfixNode {
+        Generic(Token operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+            return context.applyInfixOperator(operator, l, r);
+        }
+    }
+
+    abstract static class IntegerOperation extends InfixNode {
+        IntegerOperation(Token operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        final MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+            if (l instanceof MonkeyInteger a && r instanceof MonkeyInteger b) {
+                var result = compute(a.getValue(), b.getValue());
+                // null: the generic path raises the error, e.g. division by zero
+                return result != null ? result : context.applyInfixOperator(operator, l, r);
+            }
+            return deoptimize(l, r, context);
+        }
+
+        abstract MonkeyObject<?> compute(long a, long b);
+
+        static IntegerOperation create(Token operator, ExecNode left, ExecNode right) {
+            return switch (operator.type()) {
+                case PLUS -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyInteger.valueOf(a + b);
+                    }
+                };
+                case MINUS -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyInteger.valueOf(a - b);
+                    }
+                };
+                case ASTERISK -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyInteger.valueOf(a * b);
+                    }
+                };
+                case SLASH -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return b == 0 ? null : MonkeyInteger.valueOf(a / b);
+                    }
+                };
+                case LT -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a < b);
+                    }
+                };
+                case GT -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a > b);
+                    }
+                };
+                case LTE -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a <= b);
+                    }
+                };
+                case GTE -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a >= b);
+                    }
+                };
+                case EQ -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a == b);
+                    }
+                };
+                case NOT_EQ -> new IntegerOperation(operator, left, right) {
+                    @Override
+                    MonkeyObject<?> compute(long a, long b) {
+                        return MonkeyBoolean.nativeToMonkey(a != b);
+                    }
+                };
+                default -> throw new IllegalStateException("Node BUG: Unexpected operator: " + operator.token());
+            };
+        }
+    }
+
+    static final class StringConcat extends InfixNode {
+        StringConcat(Token operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+            if (l instanceof MonkeyString a && r instanceof MonkeyString b) {
+                return MonkeyString.concat(a, b);
+            }
+            return deoptimize(l, r, context);
+        }
+    }
+
+    // `==`/`!=` on booleans; the other operators stay on the generic path for their TYPE_MISMATCH error.
+    static final class BooleanOperation extends InfixNode {
+        BooleanOperation(Token operator, ExecNode left, ExecNode right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        MonkeyObject<?> apply(MonkeyObject<?> l, MonkeyObject<?> r, Evaluator context) throws EvaluationException {
+            if (l instanceof MonkeyBoolean a && r instanceof MonkeyBoolean b) {
+                return switch (operator.type()) {
+                    case EQ -> MonkeyBoolean.nativeToMonkey(a.getObject().booleanValue() == b.getObject().booleanValue());
+                    case NOT_EQ -> MonkeyBoolean.nativeToMonkey(a.getObject().booleanValue() != b.getObject().booleanValue());
+                    default -> context.applyInfixOperator(operator, l, r);
+                };
+            }
+            return deoptimize(l, r, context);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.ast.IdentifierExpression;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+final class LetNode extends ExecNode {
+    private final IdentifierExpression name;
+    private ExecNode value;
+
+    LetNode(IdentifierExpression name, ExecNode value) {
+        this.name = name;
+        this.value = adopt(value);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var resolvedValue = value.execute(context);
+        if (name.isLocal()) {
+            return context.getEnvironment().setSlot(name.slot(), resolvedValue);
+        }
+        return context.getEnvironment().set(name.value(), resolvedValue);
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        value = replacement;
+    }
+}
@@ -0,0 +1,36 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyBoolean;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+// Short-circuiting `&&` (isAnd) and `||`.
+final class LogicalNode extends ExecNode {
+    private final boolean isAnd;
+    private ExecNode left;
+    private ExecNode right;
+
+    LogicalNode(boolean isAnd, ExecNode left, ExecNode right) {
+        this.isAnd = isAnd;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        if (Evaluator.isTruth(left.execute(context)) != isAnd) {
+            return MonkeyBoolean.nativeToMonkey(!isAnd);
+        }
+        return MonkeyBoolean.nativeToMonkey(Evaluator.isTruth(right.execute(context)));
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == left) {
+            left = replacement;
+        } else {
+            right = replacement;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.object.MonkeyBreak;
+import com.coolstuff.evaluator.object.MonkeyContinue;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.token.Token;
+
+// `break`/`continue`; whether it sits inside a loop of the same function is known when linking.
+final class LoopControlNode extends ExecNode {
+    private final Token token;
+    private final boolean isBreak;
+    private final boolean inLoop;
+
+    LoopControlNode(Token token, boolean isBreak, boolean inLoop) {
+        this.token = token;
+        this.isBreak = isBreak;
+        this.inLoop = inLoop;
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        if (!inLoop) {
+            throw context.error(RuntimeErrorType.INVALID_CONTROL_FLOW, token, "`%s` not allowed outside loop", isBreak ? "break" : "continue");
+        }
+        return isBreak ? MonkeyBreak.INSTANCE : MonkeyContinue.INSTANCE;
+    }
+}
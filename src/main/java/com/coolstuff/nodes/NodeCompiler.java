@@ -0,0 +1,130 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+import com.coolstuff.evaluator.object.MonkeyBoolean;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyString;
+import com.coolstuff.runtime.FunctionCode;
+import com.coolstuff.token.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * Links a resolved {@link Program} into a tree of {@link ExecNode}s. Tail positions and loop nesting are decided
+ * here, mirroring {@code Evaluator.evalFunctionBody} and the evaluator's loop depth checks.
+ */
+public class NodeCompiler {
+    private static final String ANONYMOUS = "<anonymous>";
+
+    private boolean inLoop;
+
+    public ProgramNode compile(Program program) {
+        return new ProgramNode(sequence(program.statements()));
+    }
+
+    private SequenceNode sequence(Statement[] statements) {
+        return new SequenceNode(Arrays.stream(statements).map(this::statement).toArray(ExecNode[]::new));
+    }
+
+    private SequenceNode block(BlockStatement block) {
+        return block == null ? null : sequence(block.statements());
+    }
+
+    private ExecNode statement(Statement statement) {
+        return switch (statement) {
+            case ExpressionStatement expressionStatement when expressionStatement.expression() instanceof IfExpression ifExpression ->
+                    new IfNode(expression(ifExpression.condition()), block(ifExpression.consequence()), block(ifExpression.alternative()), false);
+            case ExpressionStatement expressionStatement -> expression(expressionStatement.expression());
+            case LetStatement letStatement -> new LetNode(letStatement.name(), expression(letStatement.value()));
+            case ReturnStatement returnStatement -> new ReturnNode(expression(returnStatement.returnValue()));
+            case BlockStatement blockStatement -> block(blockStatement);
+            case WhileStatement whileStatement -> whileLoop(whileStatement, false);
+            case BreakStatement breakStatement -> new LoopControlNode(breakStatement.token(), true, inLoop);
+            case ContinueStatement continueStatement -> new LoopControlNode(continueStatement.token(), false, inLoop);
+            default -> throw new IllegalStateException("Node BUG: Unexpected statement: " + statement);
+        };
+    }
+
+    private SequenceNode body(BlockStatement block, boolean tail) {
+        if (block == null) {
+            return null;
+        }
+        var statements = block.statements();
+        var nodes = new ExecNode[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            nodes[i] = bodyStatement(statements[i], tail && i == statements.length - 1);
+        }
+        return new SequenceNode(nodes);
+    }
+
+    private ExecNode bodyStatement(Statement statement, boolean tail) {
+        return switch (statement) {
+            case ReturnStatement returnStatement when returnStatement.returnValue() instanceof CallExpression call ->
+                    new ReturnNode(call(call, true));
+            case ExpressionStatement expressionStatement -> switch (expressionStatement.expression()) {
+                case CallExpression call when tail -> call(call, true);
+                case IfExpression ifExpression -> new IfNode(expression(ifExpression.condition()),
+                        body(ifExpression.consequence(), tail), body(ifExpression.alternative(), tail), false);
+                default -> expression(expressionStatement.expression());
+            };
+            case WhileStatement whileStatement -> whileLoop(whileStatement, true);
+            default -> statement(statement);
+        };
+    }
+
+    private ExecNode whileLoop(WhileStatement whileStatement, boolean inBody) {
+        var enclosing = inLoop;
+        inLoop = true;
+        try {
+            var body = inBody ? body(whileStatement.body(), false) : block(whileStatement.body());
+            return new WhileNode(expression(whileStatement.condition()), body);
+        } finally {
+            inLoop = enclosing;
+        }
+    }
+
+    private ExecNode[] expressions(Expression[] expressions) {
+        return Arrays.stream(expressions).map(this::expression).toArray(ExecNode[]::new);
+    }
+
+    private ExecNode expression(Expression expression) {
+        return switch (expression) {
+            case IntegerLiteralExpression integerLiteral -> new ConstantNode(MonkeyInteger.valueOf(integerLiteral.value()));
+            case StringLiteralExpression stringLiteral -> new ConstantNode(new MonkeyString(stringLiteral.value()));
+            case BooleanExpression booleanLiteral -> new ConstantNode(MonkeyBoolean.nativeToMonkey(booleanLiteral.value()));
+            case IdentifierExpression identifier -> new ReadNode(identifier);
+            case PrefixExpression prefix -> new PrefixNode(prefix.token(), expression(prefix.right()));
+            case InfixExpression infix -> switch (infix.token().type()) {
+                case AND, OR -> new LogicalNode(infix.token().type() == TokenType.AND,
+                        expression(infix.left()), expression(infix.right()));
+                default -> new InfixNode.Uninitialized(infix.token(), expression(infix.left()), expression(infix.right()));
+            };
+            case IfExpression ifExpression -> new IfNode(expression(ifExpression.condition()),
+                    block(ifExpression.consequence()), block(ifExpression.alternative()), true);
+            case FunctionLiteral functionLiteral -> function(functionLiteral);
+            case CallExpression call -> call(call, false);
+            case ArrayLiteral array -> new ArrayNode(expressions(array.elements()));
+            case IndexExpression index -> new IndexNode(index.token(), expression(index.left()), expression(index.index()));
+            case HashLiteral hash -> new HashNode(hash.token(),
+                    hash.pairs().stream().map(pair -> expression(pair.key())).toArray(ExecNode[]::new),
+                    hash.pairs().stream().map(pair -> expression(pair.value())).toArray(ExecNode[]::new));
+            default -> throw new IllegalStateException("Node BUG: Unexpected expression: " + expression);
+        };
+    }
+
+    private ExecNode function(FunctionLiteral functionLiteral) {
+        var enclosing = inLoop;
+        inLoop = false;
+        try {
+            return new FunctionNode(new FunctionCode(functionLiteral), body(functionLiteral.body(), true));
+        } finally {
+            inLoop = enclosing;
+        }
+    }
+
+    private ExecNode call(CallExpression call, boolean tail) {
+        var name = call.function() instanceof IdentifierExpression identifier ? identifier.value() : ANONYMOUS;
+        return new CallNode.Uninitialized(call.token(), name, tail, expression(call.function()), expressions(call.arguments()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.runtime.FunctionCode;
+import com.coolstuff.runtime.LinkedFunction;
+
+final class NodeFunction extends LinkedFunction {
+    private final Environment creationEnv;
+    private final SequenceNode body;
+
+    NodeFunction(Environment creationEnv, FunctionCode code, SequenceNode body) {
+        super(code);
+        this.creationEnv = creationEnv;
+        this.body = body;
+    }
+
+    // the same environment the evaluator would give it, so the JIT can run every node function
+    @Override
+    protected Environment jitScope() {
+        return creationEnv;
+    }
+
+    @Override
+    protected MonkeyObject<?> execute(MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException {
+        var literal = code().literal();
+        var locals = literal.locals();
+        var environment = locals == null ? new Environment(creationEnv) : new Environment(creationEnv, locals, literal.captured());
+        var parameters = literal.parameters();
+        for (int i = 0; i < parameters.length; i++) {
+            var parameter = parameters[i];
+            if (parameter.isLocal()) {
+                environment.setSlot(parameter.slot(), arguments[i]);
+            } else {
+                environment.set(parameter.value(), arguments[i]);
+            }
+        }
+        return body.execute(context.child(environment));
+    }
+}
@@ -0,0 +1,36 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyBoolean;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+final class PrefixNode extends ExecNode {
+    private final Token operator;
+    private ExecNode right;
+
+    PrefixNode(Token operator, ExecNode right) {
+        this.operator = operator;
+        this.right = adopt(right);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var value = right.execute(context);
+        if (operator.type() == TokenType.BANG) {
+            return MonkeyBoolean.nativeToMonkey(!Evaluator.isTruth(value));
+        }
+        if (value instanceof MonkeyInteger integer) {
+            return MonkeyInteger.valueOf(-integer.getValue());
+        }
+        return context.applyPrefixOperator(operator, value);
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        right = replacement;
+    }
+}
@@ -0,0 +1,36 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyReturn;
+
+/**
+ * Linked program produced by {@link NodeCompiler}. Runs in the environment and call stack of the given
+ * {@link Evaluator}, which also supplies operator, indexing and builtin semantics.
+ */
+public final class ProgramNode {
+    private final SequenceNode statements;
+
+    ProgramNode(SequenceNode statements) {
+        this.statements = statements;
+    }
+
+    SequenceNode statements() {
+        return statements;
+    }
+
+    public MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        MonkeyObject<?> result;
+        try {
+            result = statements.execute(context);
+        } catch (AbruptCompletion abrupt) {
+            result = abrupt.signal;
+        }
+        if (result instanceof MonkeyReturn<?> monkeyReturn) {
+            return monkeyReturn.returnValue;
+        }
+        return result;
+    }
+}
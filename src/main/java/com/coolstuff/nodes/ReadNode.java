@@ -0,0 +1,34 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.ast.IdentifierExpression;
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.object.BuiltInFunction;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+final class ReadNode extends ExecNode {
+    private final IdentifierExpression identifier;
+    private final BuiltInFunction builtin;
+
+    ReadNode(IdentifierExpression identifier) {
+        this.identifier = identifier;
+        this.builtin = BuiltInFunctions.getFunction(identifier.value()).orElse(null);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        var environment = context.getEnvironment();
+        var value = identifier.isResolved()
+                ? environment.get(identifier.depth(), identifier.slot(), identifier.value())
+                : environment.get(identifier.value());
+        if (value != null) {
+            return value;
+        }
+        if (builtin != null) {
+            return builtin;
+        }
+        throw context.error(RuntimeErrorType.UNKNOWN_IDENTIFIER, identifier.token(), "Identifier not found: %s", identifier.value());
+    }
+}
@@ -0,0 +1,24 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyReturn;
+
+final class ReturnNode extends ExecNode {
+    private ExecNode value;
+
+    ReturnNode(ExecNode value) {
+        this.value = adopt(value);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        return new MonkeyReturn<>(value.execute(context));
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        value = replacement;
+    }
+}
@@ -0,0 +1,38 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.*;
+
+/**
+ * Statements of a block, program or function body. Stops at the first {@code return}, {@code break} or
+ * {@code continue} signal and hands it to the enclosing loop or call.
+ */
+final class SequenceNode extends ExecNode {
+    private final ExecNode[] statements;
+
+    SequenceNode(ExecNode[] statements) {
+        this.statements = adopt(statements);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        MonkeyObject<?> result = MonkeyNull.INSTANCE;
+        for (var statement : statements) {
+            result = statement.execute(context);
+            if (result instanceof MonkeyReturn<?> || result instanceof MonkeyBreak || result instanceof MonkeyContinue) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    ExecNode[] statements() {
+        return statements;
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        replaceIn(statements, child, replacement);
+    }
+}
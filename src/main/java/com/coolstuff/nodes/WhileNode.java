@@ -0,0 +1,45 @@
+package com.coolstuff.nodes;
+
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.*;
+
+final class WhileNode extends ExecNode {
+    private ExecNode condition;
+    private final SequenceNode body;
+
+    WhileNode(ExecNode condition, SequenceNode body) {
+        this.condition = adopt(condition);
+        this.body = adopt(body);
+    }
+
+    @Override
+    MonkeyObject<?> execute(Evaluator context) throws EvaluationException {
+        MonkeyObject<?> result = MonkeyNull.INSTANCE;
+        while (Evaluator.isTruth(condition.execute(context))) {
+            try {
+                result = body.execute(context);
+            } catch (AbruptCompletion abrupt) {
+                result = abrupt.signal;
+            }
+
+            if (result instanceof MonkeyBreak) {
+                return MonkeyNull.INSTANCE;
+            }
+            if (result instanceof MonkeyContinue) {
+                result = MonkeyNull.INSTANCE;
+                continue;
+            }
+            if (result instanceof MonkeyReturn<?>) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    void replaceChild(ExecNode child, ExecNode replacement) {
+        condition = replacement;
+    }
+}
@@ -0,0 +1,220 @@
+package com.coolstuff.optimizer;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Folds operators whose operands are literals, replaces {@code if} expressions with a literal condition by the branch
+ * that runs and drops statements that can never run. Only operations that cannot fail are folded, so runtime errors
+ * such as division by zero or type mismatches are still raised by the engines at their original position.
+ */
+public class Optimizer {
+
+    public Program optimize(Program program) {
+        return new Program(optimizeStatements(program.statements()));
+    }
+
+    private Statement[] optimizeStatements(Statement[] statements) {
+        var optimized = new ArrayList<Statement>(statements.length);
+        for (int i = 0; i < statements.length; i++) {
+            var statement = optimizeStatement(statements[i]);
+            var last = i == statements.length - 1;
+
+            if (statement instanceof ExpressionStatement expressionStatement
+                    && expressionStatement.expression() instanceof IfExpression ifExpression
+                    && isLiteral(ifExpression.condition())) {
+                // blocks don't open scopes, so the statements of the branch that runs can take the place of the `if`
+                var branch = isTruthy(ifExpression.condition()) ? ifExpression.consequence() : ifExpression.alternative();
+                if (branch != null && branch.statements().length > 0) {
+                    optimized.addAll(Arrays.asList(branch.statements()));
+                } else if (last) {
+                    optimized.add(statement);
+                }
+            } else if (statement instanceof WhileStatement whileStatement
+                    && isLiteral(whileStatement.condition()) && !isTruthy(whileStatement.condition()) && !last) {
+                continue;
+            } else {
+                optimized.add(statement);
+            }
+
+            if (!optimized.isEmpty() && endsControlFlow(optimized.getLast())) {
+                break;
+            }
+        }
+        return optimized.toArray(Statement[]::new);
+    }
+
+    private Statement optimizeStatement(Statement statement) {
+        return switch (statement) {
+            case null -> null;
+            case LetStatement letStatement ->
+                    new LetStatement(letStatement.token(), letStatement.name(), optimizeExpression(letStatement.value()));
+            case ReturnStatement returnStatement ->
+                    new ReturnStatement(returnStatement.token(), optimizeExpression(returnStatement.returnValue()));
+            case ExpressionStatement expressionStatement ->
+                    new ExpressionStatement(expressionStatement.token(), optimizeExpression(expressionStatement.expression()));
+            case BlockStatement blockStatement -> optimizeBlock(blockStatement);
+            case WhileStatement whileStatement -> new WhileStatement(whileStatement.token(),
+                    optimizeExpression(whileStatement.condition()), optimizeBlock(whileStatement.body()));
+            default -> statement;
+        };
+    }
+
+    private BlockStatement optimizeBlock(BlockStatement block) {
+        if (block == null) {
+            return null;
+        }
+        return new BlockStatement(block.token(), optimizeStatements(block.statements()));
+    }
+
+    private Expression[] optimizeExpressions(Expression[] expressions) {
+        return Arrays.stream(expressions).map(this::optimizeExpression).toArray(Expression[]::new);
+    }
+
+    private Expression optimizeExpression(Expression expression) {
+        return switch (expression) {
+            case null -> null;
+            case PrefixExpression prefix -> foldPrefix(prefix, optimizeExpression(prefix.right()));
+            case InfixExpression infix -> foldInfix(infix, optimizeExpression(infix.left()), optimizeExpression(infix.right()));
+            case IfExpression ifExpression -> optimizeIf(ifExpression);
+            case FunctionLiteral functionLiteral -> new FunctionLiteral(functionLiteral.token(),
+                    functionLiteral.parameters(), optimizeBlock(functionLiteral.body()), functionLiteral.locals(), functionLiteral.captured());
+            case CallExpression call -> new CallExpression(call.token(),
+                    optimizeExpression(call.function()), optimizeExpressions(call.arguments()));
+            case ArrayLiteral array -> new ArrayLiteral(array.token(), optimizeExpressions(array.elements()));
+            case IndexExpression index -> new IndexExpression(index.token(),
+                    optimizeExpression(index.left()), optimizeExpression(index.index()));
+            case HashLiteral hash -> new HashLiteral(hash.token(), hash.pairs().stream()
+                    .map(pair -> new KVPair(optimizeExpression(pair.key()), optimizeExpression(pair.value())))
+                    .toList());
+            default -> expression;
+        };
+    }
+
+    private Expression optimizeIf(IfExpression ifExpression) {
+        var condition = optimizeExpression(ifExpression.condition());
+        var consequence = optimizeBlock(ifExpression.consequence());
+        var alternative = optimizeBlock(ifExpression.alternative());
+
+        if (isLiteral(condition)) {
+            var branch = isTruthy(condition) ? consequence : alternative;
+            if (branch != null && branch.statements().length == 1
+                    && branch.statements()[0] instanceof ExpressionStatement expressionStatement) {
+                return expressionStatement.expression();
+            }
+        }
+        return new IfExpression(ifExpression.token(), condition, consequence, alternative);
+    }
+
+    private Expression foldPrefix(PrefixExpression prefix, Expression right) {
+        var token = prefix.token();
+        if (token.type() == TokenType.BANG && isLiteral(right)) {
+            return booleanLiteral(token, !isTruthy(right));
+        }
+        if (token.type() == TokenType.MINUS && right instanceof IntegerLiteralExpression integer) {
+            return integerLiteral(token, -integer.value());
+        }
+        return new PrefixExpression(token, prefix.operator(), right);
+    }
+
+    private Expression foldInfix(InfixExpression infix, Expression left, Expression right) {
+        var token = infix.token();
+        switch (token.type()) {
+            case AND, OR -> {
+                var isAnd = token.type() == TokenType.AND;
+                if (isLiteral(left) && isTruthy(left) != isAnd) {
+                    return booleanLiteral(token, !isAnd);
+                }
+                if (isLiteral(left) && isLiteral(right)) {
+                    return booleanLiteral(token, isTruthy(right));
+                }
+                return new InfixExpression(token, left, infix.operator(), right);
+            }
+        }
+
+        if (left instanceof IntegerLiteralExpression l && right instanceof IntegerLiteralExpression r) {
+            var a = l.value();
+            var b = r.value();
+            switch (token.type()) {
+                case PLUS -> {
+                    return integerLiteral(token, a + b);
+                }
+                case MINUS -> {
+                    return integerLiteral(token, a - b);
+                }
+                case ASTERISK -> {
+                    return integerLiteral(token, a * b);
+                }
+                case SLASH -> {
+                    if (b != 0) {
+                        return integerLiteral(token, a / b);
+                    }
+                }
+                case LT -> {
+                    return booleanLiteral(token, a < b);
+                }
+                case GT -> {
+                    return booleanLiteral(token, a > b);
+                }
+                case LTE -> {
+                    return booleanLiteral(token, a <= b);
+                }
+                case GTE -> {
+                    return booleanLiteral(token, a >= b);
+                }
+                case EQ -> {
+                    return booleanLiteral(token, a == b);
+                }
+                case NOT_EQ -> {
+                    return booleanLiteral(token, a != b);
+                }
+            }
+        } else if (left instanceof StringLiteralExpression l && right instanceof StringLiteralExpression r
+                && token.type() == TokenType.PLUS) {
+            var value = l.value() + r.value();
+            return new StringLiteralExpression(new Token(TokenType.STRING, value, token.position()), value);
+        } else if (left instanceof BooleanExpression l && right instanceof BooleanExpression r) {
+            switch (token.type()) {
+                case EQ -> {
+                    return booleanLiteral(token, l.value() == r.value());
+                }
+                case NOT_EQ -> {
+                    return booleanLiteral(token, l.value() != r.value());
+                }
+            }
+        }
+
+        return new InfixExpression(token, left, infix.operator(), right);
+    }
+
+    private static boolean isLiteral(Expression expression) {
+        return expression instanceof IntegerLiteralExpression
+                || expression instanceof StringLiteralExpression
+                || expression instanceof BooleanExpression;
+    }
+
+    // integers and strings are always truthy, see Evaluator.isTruth
+    private static boolean isTruthy(Expression literal) {
+        return !(literal instanceof BooleanExpression bool) || bool.value();
+    }
+
+    private static boolean endsControlFlow(Statement statement) {
+        return statement instanceof ReturnStatement
+                || statement instanceof BreakStatement
+                || statement instanceof ContinueStatement;
+    }
+
+    private static IntegerLiteralExpression integerLiteral(Token token, long value) {
+        return new IntegerLiteralExpression(new Token(TokenType.INT, Long.toString(value), token.position()), value);
+    }
+
+    private static BooleanExpression booleanLiteral(Token token, boolean value) {
+        var type = value ? TokenType.TRUE : TokenType.FALSE;
+        return new BooleanExpression(new Token(type, type.name().toLowerCase(), token.position()), value);
+    }
+}
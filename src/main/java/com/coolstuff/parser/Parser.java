@@ -49,7 +49,9 @@ public class Parser {
             nextToken();
         }
 
-        return new Program(statements.toArray(Statement[]::new));
+        var program = new Program(statements.toArray(Statement[]::new));
+        // a program with errors is never run, and its incomplete nodes may hold nulls the resolver cannot walk
+        return errors.isEmpty() ? new Resolver().resolve(program) : program;
     }
 
     private Statement parseStatement() {
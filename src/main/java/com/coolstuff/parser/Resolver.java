@@ -0,0 +1,211 @@
+package com.coolstuff.parser;
+
+import com.coolstuff.ast.*;
+import com.coolstuff.ast.Nodes.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class Resolver {
+    private FunctionScope scope;
+
+    public Program resolve(Program program) {
+        return new Program(resolveStatements(program.statements()));
+    }
+
+    private Statement[] resolveStatements(Statement[] statements) {
+        return Arrays.stream(statements).map(this::resolveStatement).toArray(Statement[]::new);
+    }
+
+    private Statement resolveStatement(Statement statement) {
+        return switch (statement) {
+            case null -> null;
+            case LetStatement letStatement -> new LetStatement(letStatement.token(),
+                    resolveIdentifier(letStatement.name()), resolveExpression(letStatement.value()));
+            case ReturnStatement returnStatement ->
+                    new ReturnStatement(returnStatement.token(), resolveExpression(returnStatement.returnValue()));
+            case ExpressionStatement expressionStatement ->
+                    new ExpressionStatement(expressionStatement.token(), resolveExpression(expressionStatement.expression()));
+            case BlockStatement blockStatement -> resolveBlock(blockStatement);
+            case WhileStatement whileStatement -> new WhileStatement(whileStatement.token(),
+                    resolveExpression(whileStatement.condition()), resolveBlock(whileStatement.body()));
+            default -> statement;
+        };
+    }
+
+    private BlockStatement resolveBlock(BlockStatement block) {
+        if (block == null) {
+            return null;
+        }
+        return new BlockStatement(block.token(), resolveStatements(block.statements()));
+    }
+
+    private Expression[] resolveExpressions(Expression[] expressions) {
+        return Arrays.stream(expressions).map(this::resolveExpression).toArray(Expression[]::new);
+    }
+
+    private Expression resolveExpression(Expression expression) {
+        return switch (expression) {
+            case null -> null;
+            case IdentifierExpression identifier -> resolveIdentifier(identifier);
+            case PrefixExpression prefix -> new PrefixExpression(prefix.token(), prefix.operator(), resolveExpression(prefix.right()));
+            case InfixExpression infix -> new InfixExpression(infix.token(),
+                    resolveExpression(infix.left()), infix.operator(), resolveExpression(infix.right()));
+            case IfExpression ifExpression -> new IfExpression(ifExpression.token(), resolveExpression(ifExpression.condition()),
+                    resolveBlock(ifExpression.consequence()), resolveBlock(ifExpression.alternative()));
+            case FunctionLiteral functionLiteral -> resolveFunction(functionLiteral);
+            case CallExpression call -> new CallExpression(call.token(),
+                    resolveExpression(call.function()), resolveExpressions(call.arguments()));
+            case ArrayLiteral array -> new ArrayLiteral(array.token(), resolveExpressions(array.elements()));
+            case IndexExpression index -> new IndexExpression(index.token(),
+                    resolveExpression(index.left()), resolveExpression(index.index()));
+            case HashLiteral hash -> new HashLiteral(hash.token(), hash.pairs().stream()
+                    .map(pair -> new KVPair(resolveExpression(pair.key()), resolveExpression(pair.value())))
+                    .toList());
+            default -> expression;
+        };
+    }
+
+    private IdentifierExpression resolveIdentifier(IdentifierExpression identifier) {
+        var depth = 0;
+        for (var current = scope; current != null; current = current.enclosing, depth++) {
+            var slot = current.slots.get(identifier.value());
+            if (slot != null) {
+                return new IdentifierExpression(identifier.token(), identifier.value(), depth, slot);
+            }
+        }
+        return new IdentifierExpression(identifier.token(), identifier.value(), depth, IdentifierExpression.PROGRAM_SLOT);
+    }
+
+    private FunctionLiteral resolveFunction(FunctionLiteral functionLiteral) {
+        var functionScope = new FunctionScope(scope);
+        for (var parameter : functionLiteral.parameters()) {
+            functionScope.declare(parameter.value());
+        }
+        declareLocals(functionLiteral.body(), functionScope, false);
+        functionScope.assignSlots();
+
+        scope = functionScope;
+        try {
+            var parameters = Arrays.stream(functionLiteral.parameters())
+                    .map(this::resolveIdentifier)
+                    .toArray(IdentifierExpression[]::new);
+            var body = resolveBlock(functionLiteral.body());
+            return new FunctionLiteral(functionLiteral.token(), parameters, body, functionScope.names(), functionScope.captured());
+        } finally {
+            scope = functionScope.enclosing;
+        }
+    }
+
+    // `let` anywhere in a function body binds in the function scope, blocks don't open scopes of their own. Names used
+    // inside nested functions are recorded as captured; reads before a `let` fall back to enclosing scopes by name, so
+    // any identifier with that name counts, whatever it resolves to.
+    private static void declareLocals(Node node, FunctionScope scope, boolean nested) {
+        switch (node) {
+            case null -> {
+            }
+            case LetStatement letStatement -> {
+                if (!nested) {
+                    scope.declare(letStatement.name().value());
+                }
+                declareLocals(letStatement.value(), scope, nested);
+            }
+            case IdentifierExpression identifier -> {
+                if (nested) {
+                    scope.capture(identifier.value());
+                }
+            }
+            case FunctionLiteral functionLiteral -> declareLocals(functionLiteral.body(), scope, true);
+            case BlockStatement blockStatement -> {
+                for (var statement : blockStatement.statements()) {
+                    declareLocals(statement, scope, nested);
+                }
+            }
+            case ExpressionStatement expressionStatement -> declareLocals(expressionStatement.expression(), scope, nested);
+            case ReturnStatement returnStatement -> declareLocals(returnStatement.returnValue(), scope, nested);
+            case WhileStatement whileStatement -> {
+                declareLocals(whileStatement.condition(), scope, nested);
+                declareLocals(whileStatement.body(), scope, nested);
+            }
+            case PrefixExpression prefixExpression -> declareLocals(prefixExpression.right(), scope, nested);
+            case InfixExpression infixExpression -> {
+                declareLocals(infixExpression.left(), scope, nested);
+                declareLocals(infixExpression.right(), scope, nested);
+            }
+            case IfExpression ifExpression -> {
+                declareLocals(ifExpression.condition(), scope, nested);
+                declareLocals(ifExpression.consequence(), scope, nested);
+                declareLocals(ifExpression.alternative(), scope, nested);
+            }
+            case CallExpression callExpression -> {
+                declareLocals(callExpression.function(), scope, nested);
+                for (var argument : callExpression.arguments()) {
+                    declareLocals(argument, scope, nested);
+                }
+            }
+            case ArrayLiteral arrayLiteral -> {
+                for (var element : arrayLiteral.elements()) {
+                    declareLocals(element, scope, nested);
+                }
+            }
+            case HashLiteral hashLiteral -> {
+                for (var pair : hashLiteral.pairs()) {
+                    declareLocals(pair.key(), scope, nested);
+                    declareLocals(pair.value(), scope, nested);
+                }
+            }
+            case IndexExpression indexExpression -> {
+                declareLocals(indexExpression.left(), scope, nested);
+                declareLocals(indexExpression.index(), scope, nested);
+            }
+            default -> {
+                // literals and break/continue declare nothing
+            }
+        }
+    }
+
+    private static final class FunctionScope {
+        private final FunctionScope enclosing;
+        private final Set<String> declared = new LinkedHashSet<>();
+        private final Set<String> referencedByNested = new HashSet<>();
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private int captured;
+
+        private FunctionScope(FunctionScope enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        private void declare(String name) {
+            declared.add(name);
+        }
+
+        private void capture(String name) {
+            referencedByNested.add(name);
+        }
+
+        // captured locals take the leading slots, see FunctionLiteral#captured
+        private void assignSlots() {
+            for (var name : declared) {
+                if (referencedByNested.contains(name)) {
+                    slots.put(name, slots.size());
+                }
+            }
+            captured = slots.size();
+            for (var name : declared) {
+                slots.putIfAbsent(name, slots.size());
+            }
+        }
+
+        private String[] names() {
+            return slots.keySet().toArray(String[]::new);
+        }
+
+        private int captured() {
+            return captured;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.coolstuff.cli.MonkeyPipeline;
 import com.coolstuff.evaluator.Environment;
 import com.coolstuff.evaluator.EvaluationException;
 import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.OutputSink;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -53,7 +54,7 @@ public class REPL {
         this.inputReader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
         this.sourceInput = input;
         this.out = out;
-        this.evaluator = new Evaluator();
+        this.evaluator = new Evaluator(new OutputSink(out, out.charset(), OutputSink.DEFAULT_BUFFER_SIZE, 1));
         this.inputAccumulator = new InputAccumulator();
         this.pipeline = new MonkeyPipeline();
     }
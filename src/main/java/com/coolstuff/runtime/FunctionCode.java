@@ -0,0 +1,91 @@
+package com.coolstuff.runtime;
+
+import com.coolstuff.ast.FunctionLiteral;
+import com.coolstuff.evaluator.AbruptCompletion;
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.MonkeyReturn;
+import com.coolstuff.jit.JitCode;
+import com.coolstuff.jit.JitCompiler;
+import com.coolstuff.token.Token;
+
+/**
+ * A function literal as the engines that link bodies ahead of time run it, shared by every {@link LinkedFunction}
+ * created from it. It runs each call together with the tail calls it ends in, and once closures of the literal have
+ * been called {@link JitCompiler#THRESHOLD} times it hands the literal to the JIT, like
+ * {@link com.coolstuff.evaluator.object.MonkeyFunction} does for the evaluator.
+ */
+public final class FunctionCode {
+    private final FunctionLiteral literal;
+    // calls of closures of this literal, until it is handed to the JIT
+    private int calls;
+    private JitCode compiled;
+
+    public FunctionCode(FunctionLiteral literal) {
+        this.literal = literal;
+    }
+
+    public FunctionLiteral literal() {
+        return literal;
+    }
+
+    public MonkeyObject<?> call(LinkedFunction function, Token callToken, String functionName, MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException {
+        context.pushFrame(functionName, callToken, arguments.length);
+        try {
+            return run(function, callToken, arguments, context);
+        } catch (StackOverflowError e) {
+            throw context.stackExhausted(callToken);
+        } finally {
+            context.popFrames(1);
+        }
+    }
+
+    // Runs a call whose frame the caller has pushed, together with the tail calls it ends in.
+    MonkeyObject<?> run(LinkedFunction function, Token callToken, MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException {
+        var result = invoke(function, callToken, arguments, context);
+        var current = function;
+        var tailFrames = 0;
+        try {
+            while (result instanceof TailCall tailCall) {
+                var next = tailCall.function();
+                if (next == current) {
+                    context.replaceFrame(tailCall.functionName(), tailCall.callToken(), tailCall.arguments().length);
+                } else {
+                    context.pushFrame(tailCall.functionName(), tailCall.callToken(), tailCall.arguments().length);
+                    tailFrames++;
+                }
+                current = next;
+                result = next.code().invoke(next, tailCall.callToken(), tailCall.arguments(), context);
+            }
+        } finally {
+            context.popFrames(tailFrames);
+        }
+        return result;
+    }
+
+    private MonkeyObject<?> invoke(LinkedFunction function, Token callToken, MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException {
+        AbstractMonkeyFunction.checkArgumentCount(literal.parameters().length, arguments.length, callToken, context);
+        // whether a function has a scope for compiled code depends only on where its literal is, so it is the same for
+        // every closure counted here
+        var scope = function.jitScope();
+        if (compiled == null && scope != null && ++calls == JitCompiler.THRESHOLD) {
+            compiled = JitCompiler.compiled(literal);
+        }
+        if (compiled != null) {
+            return compiled.run(scope, arguments, context);
+        }
+
+        MonkeyObject<?> result;
+        try {
+            result = function.execute(arguments, context);
+        } catch (AbruptCompletion abrupt) {
+            result = abrupt.signal;
+        }
+        if (result instanceof MonkeyReturn<?> monkeyReturn) {
+            return monkeyReturn.returnValue;
+        }
+        return result;
+    }
+}
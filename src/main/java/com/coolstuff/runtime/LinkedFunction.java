@@ -0,0 +1,46 @@
+package com.coolstuff.runtime;
+
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyFunction;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.ObjectType;
+import com.coolstuff.token.Token;
+
+/**
+ * Function value of an engine that links function bodies ahead of time, the node interpreter and the closure compiler.
+ * Calls go through the {@link FunctionCode} of its literal; the engine only says how one body runs and whether the JIT
+ * can run it instead.
+ */
+public abstract class LinkedFunction extends AbstractMonkeyFunction {
+    private final FunctionCode code;
+
+    protected LinkedFunction(FunctionCode code) {
+        super(ObjectType.FUNCTION_OBJ);
+        this.code = code;
+        setObject((callToken, arguments, evaluator) -> code.run(this, callToken, arguments, evaluator));
+    }
+
+    public FunctionCode code() {
+        return code;
+    }
+
+    // The environment JIT-compiled code of the literal finds the function's free variables in, or null when they are
+    // not all in one; such functions stay interpreted.
+    protected abstract Environment jitScope();
+
+    // Runs the body for arguments that have been counted. The result may still be a completion signal or a TailCall.
+    protected abstract MonkeyObject<?> execute(MonkeyObject<?>[] arguments, Evaluator context) throws EvaluationException;
+
+    @Override
+    public MonkeyObject<?> tailCall(Token callToken, String functionName, MonkeyObject<?>[] arguments) {
+        return new TailCall(callToken, this, functionName, arguments);
+    }
+
+    @Override
+    public String inspect() {
+        return MonkeyFunction.inspect(code.literal());
+    }
+}
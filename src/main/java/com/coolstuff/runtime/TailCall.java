@@ -0,0 +1,43 @@
+package com.coolstuff.runtime;
+
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.evaluator.object.ObjectType;
+import com.coolstuff.token.Token;
+
+// Call in tail position, made by LinkedFunction.tailCall and performed by FunctionCode.run once the current body has
+// returned.
+final class TailCall extends MonkeyObject<Void> {
+    private final Token callToken;
+    private final LinkedFunction function;
+    private final String functionName;
+    private final MonkeyObject<?>[] arguments;
+
+    TailCall(Token callToken, LinkedFunction function, String functionName, MonkeyObject<?>[] arguments) {
+        super(ObjectType.TAIL_CALL_OBJ);
+        this.callToken = callToken;
+        this.function = function;
+        this.functionName = functionName;
+        this.arguments = arguments;
+    }
+
+    Token callToken() {
+        return callToken;
+    }
+
+    LinkedFunction function() {
+        return function;
+    }
+
+    String functionName() {
+        return functionName;
+    }
+
+    MonkeyObject<?>[] arguments() {
+        return arguments;
+    }
+
+    @Override
+    public String inspect() {
+        return "tail call %s(%d args)".formatted(functionName, arguments.length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.coolstuff.vm;
+
+import com.coolstuff.compiler.CompiledFunction;
+import com.coolstuff.evaluator.AbstractMonkeyFunction;
+import com.coolstuff.evaluator.object.MonkeyFunction;
+import com.coolstuff.evaluator.object.ObjectType;
+
+public class Closure extends AbstractMonkeyFunction {
+    private final VM vm;
+    private final CompiledFunction function;
+    private final Frame enclosing;
+
+    Closure(VM vm, CompiledFunction function, Frame enclosing) {
+        super(ObjectType.FUNCTION_OBJ);
+        this.vm = vm;
+        this.function = function;
+        this.enclosing = enclosing;
+        setObject((callToken, arguments, evaluator) -> vm.invoke(this, callToken, arguments, evaluator));
+    }
+
+    VM vm() {
+        return vm;
+    }
+
+    CompiledFunction function() {
+        return function;
+    }
+
+    Frame enclosing() {
+        return enclosing;
+    }
+
+    @Override
+    public String inspect() {
+        return MonkeyFunction.inspect(function.literal());
+    }
+}
@@ -0,0 +1,42 @@
+package com.coolstuff.vm;
+
+import com.coolstuff.compiler.CompiledFunction;
+import com.coolstuff.evaluator.object.MonkeyObject;
+
+/**
+ * Activation record of a compiled function. Functions that create closures get a frame
+ * and locals array of their own, so that those closures keep seeing later {@code let}
+ * rebindings after the call returns, matching the shared {@code Environment} semantics of
+ * the tree-walking evaluator. All other calls reuse a pooled frame and keep their locals
+ * in the operand stack, at the bottom of their window.
+ */
+final class Frame {
+    Closure closure;
+    CompiledFunction function;
+    // slot i lives at locals[localsBase + i]; locals is the VM stack itself for pooled frames
+    MonkeyObject<?>[] locals;
+    int localsBase;
+    Frame enclosing;
+    int basePointer;
+    // call stack size to restore on return; tail calls to other functions push frames above it
+    int callStackBase;
+    int ip;
+
+    Frame() {
+    }
+
+    Frame(Closure closure, CompiledFunction function, MonkeyObject<?>[] locals, Frame enclosing, int basePointer, int callStackBase) {
+        enter(closure, function, locals, 0, enclosing, basePointer, callStackBase);
+    }
+
+    void enter(Closure closure, CompiledFunction function, MonkeyObject<?>[] locals, int localsBase, Frame enclosing, int basePointer, int callStackBase) {
+        this.closure = closure;
+        this.function = function;
+        this.locals = locals;
+        this.localsBase = localsBase;
+        this.enclosing = enclosing;
+        this.basePointer = basePointer;
+        this.callStackBase = callStackBase;
+        this.ip = 0;
+    }
+}
@@ -0,0 +1,441 @@
+package com.coolstuff.vm;
+
+import com.coolstuff.compiler.Bytecode;
+import com.coolstuff.compiler.CompiledFunction;
+import com.coolstuff.compiler.Opcode;
+import com.coolstuff.compiler.SymbolScope;
+import com.coolstuff.evaluator.*;
+import com.coolstuff.evaluator.object.*;
+import com.coolstuff.token.Token;
+
+import java.util.Arrays;
+
+import static com.coolstuff.compiler.Instructions.readI32;
+import static com.coolstuff.compiler.Instructions.readU16;
+import static com.coolstuff.compiler.Instructions.readU8;
+
+/**
+ * Stack machine executing {@link Bytecode}. Operator, indexing and builtin semantics are
+ * delegated to the {@link Evaluator} on anything but the integer fast paths, so results
+ * and runtime errors are identical to the tree-walking engine.
+ */
+public class VM {
+    private static final int INITIAL_STACK_SIZE = 1024;
+    private static final int INITIAL_FRAMES_SIZE = 128;
+
+    private final CompiledFunction main;
+    private final MonkeyObject<?>[] constants;
+    private final CompiledFunction[] functions;
+    private final String[] globalNames;
+    private final String[] callNames;
+    private final MonkeyObject<?>[] globals;
+    private final MonkeyObject<?>[] globalDefaults;
+    private final CallStack callStack = new CallStack();
+    private final Evaluator runtime;
+
+    private MonkeyObject<?>[] stack = new MonkeyObject<?>[INITIAL_STACK_SIZE];
+    private int sp;
+    private Frame[] frames = new Frame[INITIAL_FRAMES_SIZE];
+    private int framesIndex;
+
+    public VM(Bytecode bytecode) {
+        this(bytecode, OutputSink.CONSOLE);
+    }
+
+    public VM(Bytecode bytecode, OutputSink output) {
+        this.runtime = new Evaluator(new Environment(), callStack, Evaluator.DEFAULT_MAX_CALL_DEPTH, output);
+        this.main = bytecode.main();
+        this.constants = bytecode.constants();
+        this.functions = bytecode.functions();
+        this.globalNames = bytecode.globalNames();
+        this.callNames = bytecode.callNames();
+        this.globals = new MonkeyObject<?>[globalNames.length];
+        this.globalDefaults = new MonkeyObject<?>[globalNames.length];
+        for (int i = 0; i < globalNames.length; i++) {
+            globalDefaults[i] = BuiltInFunctions.getFunction(globalNames[i]).orElse(null);
+        }
+    }
+
+    public MonkeyObject<?> run() throws EvaluationException {
+        try {
+            ensureStack(sp + main.maxStackDepth());
+            pushFrame(new Frame(null, main, new MonkeyObject<?>[0], null, sp, 0));
+            return execute(framesIndex - 1);
+        } finally {
+            Arrays.fill(frames, 0, framesIndex, null);
+            framesIndex = 0;
+            Arrays.fill(stack, 0, sp, null);
+            sp = 0;
+            callStack.clear();
+        }
+    }
+
+    MonkeyObject<?> invoke(Closure closure, Token callToken, MonkeyObject<?>[] arguments, Evaluator evaluator) throws EvaluationException {
+        var function = closure.function();
+        AbstractMonkeyFunction.checkArgumentCount(function.numParameters(), arguments.length, callToken, evaluator);
+
+        var parameterSlots = function.parameterSlots();
+        var savedFramesIndex = framesIndex;
+        var savedSp = sp;
+        var savedCallDepth = callStack.size();
+        try {
+            if (function.createsClosures()) {
+                var locals = new MonkeyObject<?>[function.numLocals()];
+                for (int i = 0; i < parameterSlots.length; i++) {
+                    locals[parameterSlots[i]] = arguments[i];
+                }
+                ensureStack(sp + function.maxStackDepth());
+                pushFrame(new Frame(closure, function, locals, closure.enclosing(), sp, savedCallDepth));
+            } else {
+                ensureStack(sp + function.numLocals() + function.maxStackDepth());
+                Arrays.fill(stack, sp, sp + function.numLocals(), null);
+                for (int i = 0; i < parameterSlots.length; i++) {
+                    stack[sp + parameterSlots[i]] = arguments[i];
+                }
+                pooledFrame().enter(closure, function, stack, sp, closure.enclosing(), sp, savedCallDepth);
+                sp += function.numLocals();
+            }
+            return execute(framesIndex - 1);
+        } catch (EvaluationException exc) {
+            Arrays.fill(frames, savedFramesIndex, framesIndex, null);
+            framesIndex = savedFramesIndex;
+            Arrays.fill(stack, savedSp, Math.max(savedSp, sp), null);
+            sp = savedSp;
+            callStack.truncate(savedCallDepth);
+            throw exc;
+        }
+    }
+
+    private MonkeyObject<?> execute(int exitFrameIndex) throws EvaluationException {
+        var frame = frames[framesIndex - 1];
+        var code = frame.function.instructions();
+        var ip = frame.ip;
+
+        while (true) {
+            var start = ip;
+            switch (code[ip++]) {
+                case Opcode.CONSTANT -> {
+                    stack[sp++] = constants[readI32(code, ip)];
+                    ip += 4;
+                }
+                case Opcode.NULL -> stack[sp++] = MonkeyNull.INSTANCE;
+                case Opcode.TRUE -> stack[sp++] = MonkeyBoolean.TRUE;
+                case Opcode.FALSE -> stack[sp++] = MonkeyBoolean.FALSE;
+                case Opcode.POP -> stack[--sp] = null;
+                case Opcode.POP_N -> {
+                    var count = readU16(code, ip);
+                    ip += 2;
+                    Arrays.fill(stack, sp - count, sp, null);
+                    sp -= count;
+                }
+                case Opcode.ADD, Opcode.SUB, Opcode.MUL, Opcode.DIV,
+                     Opcode.EQ, Opcode.NOT_EQ, Opcode.LT, Opcode.GT, Opcode.LTE, Opcode.GTE -> {
+                    var right = stack[--sp];
+                    stack[sp] = null;
+                    var left = stack[sp - 1];
+                    stack[sp - 1] = binaryOperation(code[start], left, right, frame.function.tokens()[start]);
+                }
+                case Opcode.MINUS -> {
+                    var operand = stack[sp - 1];
+                    stack[sp - 1] = operand instanceof MonkeyInteger integer
+                            ? MonkeyInteger.valueOf(-integer.getValue())
+                            : runtime.applyPrefixOperator(frame.function.tokens()[start], operand);
+                }
+                case Opcode.BANG -> stack[sp - 1] = MonkeyBoolean.nativeToMonkey(!Evaluator.isTruth(stack[sp - 1]));
+                case Opcode.TO_BOOLEAN -> stack[sp - 1] = MonkeyBoolean.nativeToMonkey(Evaluator.isTruth(stack[sp - 1]));
+                case Opcode.JUMP -> ip = readI32(code, ip);
+                case Opcode.JUMP_IF_FALSE -> {
+                    var condition = stack[--sp];
+                    stack[sp] = null;
+                    ip = Evaluator.isTruth(condition) ? ip + 4 : readI32(code, ip);
+                }
+                case Opcode.JUMP_IF_TRUE -> {
+                    var condition = stack[--sp];
+                    stack[sp] = null;
+                    ip = Evaluator.isTruth(condition) ? readI32(code, ip) : ip + 4;
+                }
+                case Opcode.GET_GLOBAL -> {
+                    var index = readU16(code, ip);
+                    ip += 2;
+                    stack[sp++] = getGlobal(index, frame.function.tokens()[start]);
+                }
+                case Opcode.SET_GLOBAL -> {
+                    globals[readU16(code, ip)] = stack[sp - 1];
+                    ip += 2;
+                }
+                case Opcode.GET_LOCAL -> {
+                    var slot = readU16(code, ip);
+                    ip += 2;
+                    var value = frame.locals[frame.localsBase + slot];
+                    stack[sp++] = value != null ? value : resolveUnassigned(frame, slot, frame.function.tokens()[start]);
+                }
+                case Opcode.SET_LOCAL -> {
+                    frame.locals[frame.localsBase + readU16(code, ip)] = stack[sp - 1];
+                    ip += 2;
+                }
+                case Opcode.GET_OUTER -> {
+                    var depth = readU16(code, ip);
+                    var slot = readU16(code, ip + 2);
+                    ip += 4;
+                    var owner = frame;
+                    for (int i = 0; i < depth; i++) {
+                        owner = owner.enclosing;
+                    }
+                    var value = owner.locals[owner.localsBase + slot];
+                    stack[sp++] = value != null ? value : resolveUnassigned(owner, slot, frame.function.tokens()[start]);
+                }
+                case Opcode.ARRAY -> {
+                    var count = readI32(code, ip);
+                    ip += 4;
+                    var elements = Arrays.copyOfRange(stack, sp - count, sp);
+                    Arrays.fill(stack, sp - count, sp, null);
+                    sp -= count;
+                    stack[sp++] = MonkeyArray.of(elements);
+                }
+                case Opcode.HASH -> {
+                    var count = readI32(code, ip);
+                    ip += 4;
+                    var token = frame.function.tokens()[start];
+                    var table = new HashTable(count);
+                    var base = sp - 2 * count;
+                    for (int i = base; i < sp; i += 2) {
+                        table.put(MonkeyHashable.checkIsHashable(stack[i], token, runtime), stack[i + 1]);
+                    }
+                    Arrays.fill(stack, base, sp, null);
+                    sp = base;
+                    stack[sp++] = new MonkeyHash(table);
+                }
+                case Opcode.CHECK_HASHABLE -> MonkeyHashable.checkIsHashable(stack[sp - 1], frame.function.tokens()[start], runtime);
+                case Opcode.CHECK_INDEXABLE -> runtime.checkIndexable(stack[sp - 1], frame.function.tokens()[start]);
+                case Opcode.INDEX -> {
+                    var index = stack[--sp];
+                    stack[sp] = null;
+                    var left = stack[sp - 1];
+                    if (left instanceof MonkeyArray array && index instanceof MonkeyInteger integer) {
+                        var elements = array.getObject();
+                        var position = integer.getValue();
+                        stack[sp - 1] = position < 0 || position >= elements.size()
+                                ? MonkeyNull.INSTANCE
+                                : elements.get((int) position);
+                    } else {
+                        stack[sp - 1] = runtime.applyIndex(frame.function.tokens()[start], left, index);
+                    }
+                }
+                case Opcode.CLOSURE -> {
+                    stack[sp++] = new Closure(this, functions[readU16(code, ip)], frame);
+                    ip += 2;
+                }
+                case Opcode.CHECK_CALLABLE -> runtime.checkCallable(stack[sp - 1], frame.function.tokens()[start]);
+                case Opcode.CALL, Opcode.TAIL_CALL -> {
+                    var argumentCount = readU16(code, ip);
+                    var nameIndex = readU16(code, ip + 2);
+                    ip += 4;
+                    var token = frame.function.tokens()[start];
+                    var callee = stack[sp - 1 - argumentCount];
+
+                    if (callee instanceof Closure closure && closure.vm() == this) {
+                        var function = closure.function();
+                        // a tail call replaces the current frame instead of pushing one on top of it
+                        var tail = code[start] == Opcode.TAIL_CALL;
+                        var callStackBase = tail ? frame.callStackBase : callStack.size();
+                        if (tail && closure == frame.closure) {
+                            runtime.replaceFrame(callNames[nameIndex], token, argumentCount);
+                        } else {
+                            runtime.pushFrame(callNames[nameIndex], token, argumentCount);
+                        }
+                        AbstractMonkeyFunction.checkArgumentCount(function.numParameters(), argumentCount, token, runtime);
+
+                        var parameterSlots = function.parameterSlots();
+                        var firstArgument = sp - argumentCount;
+                        var basePointer = tail ? frame.basePointer : firstArgument - 1;
+                        frame.ip = ip;
+
+                        if (function.createsClosures()) {
+                            var locals = new MonkeyObject<?>[function.numLocals()];
+                            for (int i = 0; i < argumentCount; i++) {
+                                locals[parameterSlots[i]] = stack[firstArgument + i];
+                            }
+                            Arrays.fill(stack, basePointer, sp, null);
+                            sp = basePointer;
+                            ensureStack(sp + function.maxStackDepth());
+                            // closures created by this call may outlive it, so it never reuses a Frame
+                            var next = new Frame(closure, function, locals, closure.enclosing(), sp, callStackBase);
+                            if (tail) {
+                                frames[framesIndex - 1] = next;
+                            } else {
+                                pushFrame(next);
+                            }
+                            frame = next;
+                        } else {
+                            var top = basePointer + function.numLocals();
+                            ensureStack(top + function.maxStackDepth());
+                            // move the arguments down into their slots at the bottom of the window;
+                            // a parameter's slot never lies above its argument's position
+                            var assigned = 0;
+                            for (int i = 0; i < argumentCount; i++) {
+                                var slot = parameterSlots[i];
+                                stack[basePointer + slot] = stack[firstArgument + i];
+                                assigned = Math.max(assigned, slot + 1);
+                            }
+                            Arrays.fill(stack, basePointer + assigned, Math.max(sp, top), null);
+                            sp = top;
+                            if (tail) {
+                                // a pooled frame is reused in place; closures may still reference any other
+                                if (frame.locals != stack) {
+                                    frame = new Frame();
+                                    frames[framesIndex - 1] = frame;
+                                }
+                            } else {
+                                frame = pooledFrame();
+                            }
+                            frame.enter(closure, function, stack, basePointer, closure.enclosing(), basePointer, callStackBase);
+                        }
+                        code = function.instructions();
+                        ip = 0;
+                    } else {
+                        var functionToCall = runtime.checkCallable(callee, token);
+                        var name = callee instanceof BuiltInFunction builtInFunction ? builtInFunction.getName() : callNames[nameIndex];
+                        var arguments = Arrays.copyOfRange(stack, sp - argumentCount, sp);
+                        Arrays.fill(stack, sp - argumentCount - 1, sp, null);
+                        sp -= argumentCount + 1;
+
+                        frame.ip = ip;
+                        var result = runtime.callFunction(token, functionToCall, name, arguments);
+                        stack[sp++] = result;
+                    }
+                }
+                case Opcode.RETURN_VALUE -> {
+                    var result = stack[--sp];
+                    var returning = frames[--framesIndex];
+                    if (returning.locals != stack) {
+                        // closures may still reference it; only frames of closure-free calls are reused
+                        frames[framesIndex] = null;
+                    }
+                    Arrays.fill(stack, returning.basePointer, sp, null);
+                    sp = returning.basePointer;
+
+                    callStack.truncate(returning.callStackBase);
+
+                    if (framesIndex == exitFrameIndex) {
+                        return result;
+                    }
+
+                    stack[sp++] = result;
+                    frame = frames[framesIndex - 1];
+                    code = frame.function.instructions();
+                    ip = frame.ip;
+                }
+                case Opcode.RAISE -> {
+                    var type = RuntimeErrorType.values()[readU8(code, ip)];
+                    var message = constants[readI32(code, ip + 1)].inspect();
+                    throw runtime.error(type, frame.function.tokens()[start], "%s", message);
+                }
+                default -> throw new IllegalStateException("VM BUG: Unknown opcode " + code[start]);
+            }
+        }
+    }
+
+    private MonkeyObject<?> binaryOperation(byte opcode, MonkeyObject<?> left, MonkeyObject<?> right, Token token) throws EvaluationException {
+        if (left instanceof MonkeyInteger leftInteger && right instanceof MonkeyInteger rightInteger) {
+            long l = leftInteger.getValue();
+            long r = rightInteger.getValue();
+            switch (opcode) {
+                case Opcode.ADD -> {
+                    return MonkeyInteger.valueOf(l + r);
+                }
+                case Opcode.SUB -> {
+                    return MonkeyInteger.valueOf(l - r);
+                }
+                case Opcode.MUL -> {
+                    return MonkeyInteger.valueOf(l * r);
+                }
+                case Opcode.DIV -> {
+                    if (r != 0) {
+                        return MonkeyInteger.valueOf(l / r);
+                    }
+                }
+                case Opcode.EQ -> {
+                    return MonkeyBoolean.nativeToMonkey(l == r);
+                }
+                case Opcode.NOT_EQ -> {
+                    return MonkeyBoolean.nativeToMonkey(l != r);
+                }
+                case Opcode.LT -> {
+                    return MonkeyBoolean.nativeToMonkey(l < r);
+                }
+                case Opcode.GT -> {
+                    return MonkeyBoolean.nativeToMonkey(l > r);
+                }
+                case Opcode.LTE -> {
+                    return MonkeyBoolean.nativeToMonkey(l <= r);
+                }
+                case Opcode.GTE -> {
+                    return MonkeyBoolean.nativeToMonkey(l >= r);
+                }
+            }
+        }
+        return runtime.applyInfixOperator(token, left, right);
+    }
+
+    private MonkeyObject<?> getGlobal(int index, Token token) throws EvaluationException {
+        var value = globals[index];
+        if (value == null) {
+            value = globalDefaults[index];
+        }
+        if (value == null) {
+            throw runtime.error(RuntimeErrorType.UNKNOWN_IDENTIFIER, token, "Identifier not found: %s", globalNames[index]);
+        }
+        return value;
+    }
+
+    private MonkeyObject<?> resolveUnassigned(Frame owner, int slot, Token token) throws EvaluationException {
+        while (true) {
+            var fallback = owner.function.slotFallbacks()[slot];
+            if (fallback.scope() == SymbolScope.GLOBAL) {
+                return getGlobal(fallback.index(), token);
+            }
+
+            for (int i = 0; i < fallback.depth(); i++) {
+                owner = owner.enclosing;
+            }
+            slot = fallback.index();
+            var value = owner.locals[owner.localsBase + slot];
+            if (value != null) {
+                return value;
+            }
+        }
+    }
+
+    private void pushFrame(Frame frame) {
+        if (framesIndex == frames.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+        }
+        frames[framesIndex++] = frame;
+    }
+
+    // claims the next frame slot, reusing the Frame a returned closure-free call left there
+    private Frame pooledFrame() {
+        if (framesIndex == frames.length) {
+            frames = Arrays.copyOf(frames, frames.length * 2);
+        }
+        var frame = frames[framesIndex];
+        if (frame == null) {
+            frame = new Frame();
+            frames[framesIndex] = frame;
+        }
+        framesIndex++;
+        return frame;
+    }
+
+    private void ensureStack(int size) {
+        if (size > stack.length) {
+            var previous = stack;
+            stack = Arrays.copyOf(stack, Math.max(stack.length * 2, size));
+            for (var frame : frames) {
+                if (frame != null && frame.locals == previous) {
+                    frame.locals = stack;
+                }
+            }
+        }
+    }
+}
@@ -34,6 +34,27 @@ public class CliRunnerTest {
         Assertions.assertEquals("", errBuffer.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void runCommandReportsParseErrorsForIncompleteCallAndArray() throws Exception {
+        for (var input : new String[]{"let f = fn(x) { x }; f(1, ", "[1, 2"}) {
+            Path source = tempDir.resolve("incomplete.monkey");
+            Files.writeString(source, input, StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
+            ByteArrayOutputStream errBuffer = new ByteArrayOutputStream();
+
+            int exitCode = new CliRunner().run(
+                    new String[]{"run", source.toString()},
+                    new PrintStream(outBuffer, true, StandardCharsets.UTF_8),
+                    new PrintStream(errBuffer, true, StandardCharsets.UTF_8)
+            );
+
+            Assertions.assertEquals(1, exitCode, input);
+            Assertions.assertEquals("", outBuffer.toString(StandardCharsets.UTF_8), input);
+            Assertions.assertTrue(errBuffer.toString(StandardCharsets.UTF_8).startsWith("Parse errors in " + source), input);
+        }
+    }
+
     @Test
     public void tokensCommandPrintsTokens() throws Exception {
         Path source = tempDir.resolve("tokens.monkey");
@@ -96,7 +117,7 @@ public class CliRunnerTest {
         Assertions.assertEquals(2, exitCode);
         Assertions.assertEquals("", outBuffer.toString(StandardCharsets.UTF_8));
         Assertions.assertEquals(
-                "Usage: monkey [run <path> | bench <path> | --tokens <path> | --ast <path>]\n",
+                "Usage: monkey [run [--engine=eval|vm|nodes|closure] <path> | bench [--filter [--batch=<n>]] [--engine=eval|vm|nodes|closure] <path> | filter [--batch=<n>] [--engine=eval|vm|nodes|closure] <path> < input | --tokens <path> | --ast <path>]\n",
                 errBuffer.toString(StandardCharsets.UTF_8)
         );
     }
@@ -115,7 +136,7 @@ public class CliRunnerTest {
         Assertions.assertEquals(2, exitCode);
         Assertions.assertEquals("", outBuffer.toString(StandardCharsets.UTF_8));
         Assertions.assertEquals(
-                "Usage: monkey [run <path> | bench <path> | --tokens <path> | --ast <path>]\n",
+                "Usage: monkey [run [--engine=eval|vm|nodes|closure] <path> | bench [--filter [--batch=<n>]] [--engine=eval|vm|nodes|closure] <path> | filter [--batch=<n>] [--engine=eval|vm|nodes|closure] <path> < input | --tokens <path> | --ast <path>]\n",
                 errBuffer.toString(StandardCharsets.UTF_8)
         );
     }
@@ -134,7 +155,7 @@ public class CliRunnerTest {
         Assertions.assertEquals(2, exitCode);
         Assertions.assertEquals("", outBuffer.toString(StandardCharsets.UTF_8));
         Assertions.assertEquals(
-                "Usage: monkey [run <path> | bench <path> | --tokens <path> | --ast <path>]\n",
+                "Usage: monkey [run [--engine=eval|vm|nodes|closure] <path> | bench [--filter [--batch=<n>]] [--engine=eval|vm|nodes|closure] <path> | filter [--batch=<n>] [--engine=eval|vm|nodes|closure] <path> < input | --tokens <path> | --ast <path>]\n",
                 errBuffer.toString(StandardCharsets.UTF_8)
         );
     }
@@ -1,15 +1,28 @@
 package com.coolstuff;
 
+import com.coolstuff.evaluator.CallStack;
+import com.coolstuff.evaluator.Environment;
 import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.EvaluationThread;
 import com.coolstuff.evaluator.Evaluator;
 import com.coolstuff.evaluator.HashKey;
+import com.coolstuff.evaluator.OutputSink;
 import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.evaluator.StackFrame;
 import com.coolstuff.evaluator.object.*;
 import com.coolstuff.lexer.Lexer;
 import com.coolstuff.parser.Parser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +59,14 @@ public class EvaluatorTest {
 
     private record EvalBooleanTestCase(String input, boolean expected) {}
 
+    @Test
+    public void testSmallIntegersAreCached() throws EvaluationException {
+        Assertions.assertSame(MonkeyInteger.valueOf(-128), MonkeyInteger.valueOf(-128));
+        Assertions.assertSame(MonkeyInteger.valueOf(1024), testEval("1000 + 24"));
+        Assertions.assertNotSame(MonkeyInteger.valueOf(1025), MonkeyInteger.valueOf(1025));
+        testBooleanObject(testEval("1000 + 25 == 1025"), true);
+    }
+
     @Test
     public void testEvalBooleanExpression() throws EvaluationException {
         var tests = List.of(
@@ -165,7 +186,11 @@ public class EvaluatorTest {
                 new EvalIntegerTestCase("return 10;", 10L),
                 new EvalIntegerTestCase("return 10; 9;", 10L),
                 new EvalIntegerTestCase("return 2 * 5; 9;", 10L),
-                new EvalIntegerTestCase("9; return 2 * 5; 9;", 10L)
+                new EvalIntegerTestCase("9; return 2 * 5; 9;", 10L),
+                new EvalIntegerTestCase("let f = fn(x) { let y = if (x) { return 1; }; 5 }; f(true);", 1L),
+                new EvalIntegerTestCase("let f = fn() { 1 + if (true) { return 5; } }; f();", 5L),
+                new EvalIntegerTestCase("let f = fn() { let i = 0; while (i < 10) { let i = i + 1; [if (i == 3) { break; } else { i }]; } i }; f();", 3L),
+                new EvalIntegerTestCase("let i = 0; let s = 0; while (i < 5) { let i = i + 1; let t = if (i == 2) { continue; } else { i }; let s = s + t; } s;", 13L)
         );
 
         for (var test : tests) {
@@ -288,6 +313,12 @@ public class EvaluatorTest {
         var nested = Assertions.assertThrows(EvaluationException.class, () -> testEval("let c = fn(x){ x + true; }; let b = fn(x){ c(x); }; let a = fn(x){ b(x); }; a(1);"));
         Assertions.assertEquals(RuntimeErrorType.TYPE_MISMATCH, nested.getRuntimeError().type());
         Assertions.assertTrue(nested.getRuntimeError().stackFrames().size() >= 3);
+        Assertions.assertEquals(List.of("c", "b", "a"),
+                nested.getRuntimeError().stackFrames().stream().map(StackFrame::functionName).toList());
+
+        var arity = Assertions.assertThrows(EvaluationException.class, () -> testEval("let f = fn(a, b) { a }; f(1);"));
+        Assertions.assertEquals(RuntimeErrorType.INVALID_ARGUMENT, arity.getRuntimeError().type());
+        Assertions.assertEquals(List.of("f"), arity.getRuntimeError().stackFrames().stream().map(StackFrame::functionName).toList());
     }
 
     private record LetTestCase(String input, Long expected) {}
@@ -332,7 +363,11 @@ public class EvaluatorTest {
                 new FunctionApplicationTestCase("let double = fn(x) { x * 2; }; double(5);", 10L),
                 new FunctionApplicationTestCase("let add = fn(x, y) { x + y; }; add(5, 5);", 10L),
                 new FunctionApplicationTestCase("let add = fn(x, y) { x + y; }; add(5 + 5, add(5, 5));", 20L),
-                new FunctionApplicationTestCase("fn(x) { x; }(5)", 5L)
+                new FunctionApplicationTestCase("fn(x) { x; }(5)", 5L),
+                new FunctionApplicationTestCase("let zero = fn() { 7 }; zero();", 7L),
+                new FunctionApplicationTestCase("let sub = fn(a, b, c) { a - b - c; }; sub(10, 3, 2);", 5L),
+                new FunctionApplicationTestCase("let sub = fn(a, b, c, d) { a - b - c - d; }; sub(10, 3, 2, 1);", 4L),
+                new FunctionApplicationTestCase("let last = fn(x, x, x) { x; }; last(1, 2, 3);", 3L)
         );
 
         for (var test : tests) {
@@ -354,6 +389,39 @@ public class EvaluatorTest {
         testIntegerObject(evaluated, 4L);
     }
 
+    @Test
+    public void testClosuresKeepOnlyCapturedLocals() {
+        var locals = new String[]{"keep", "big"};
+        var environment = new Environment(new Environment(), locals, 1);
+        environment.setSlot(0, MonkeyInteger.valueOf(1));
+        environment.setSlot(1, new MonkeyString("large"));
+
+        Assertions.assertEquals(Map.of("keep", MonkeyInteger.valueOf(1)), environment.closureScope().snapshotCurrentScope());
+        Assertions.assertEquals(MonkeyInteger.valueOf(1), environment.get(0, 0, "keep"));
+        Assertions.assertEquals(Map.of(), new Environment(new Environment(), locals, 0).closureScope().snapshotCurrentScope());
+    }
+
+    @Test
+    public void testLocalScopeResolution() throws EvaluationException {
+        var tests = List.of(
+                new LetTestCase("let x = 10; let f = fn() { let y = x; let x = 1; y + x }; f()", 11L),
+                new LetTestCase("let f = fn() { if (false) { let x = 1; } x }; let x = 7; f()", 7L),
+                new LetTestCase("let f = fn() { let i = 0; while (i < 3) { let n = i; let i = i + 1; } n }; f()", 2L),
+                new LetTestCase("let f = fn(x) { let g = fn() { x }; let x = x + 1; g() }; f(1)", 2L),
+                new LetTestCase("let f = fn(x, x) { x }; f(1, 2)", 2L),
+                new LetTestCase("let len = fn(x) { 42 }; let f = fn() { len(\"abc\") }; f()", 42L),
+                new LetTestCase("let f = fn() { let a = fn() { len(\"abc\") }; a() }; f()", 3L),
+                new LetTestCase("let a = fn(x) { let b = fn(y) { fn() { x } }; b(0)() }; a(7)", 7L),
+                new LetTestCase("let f = fn(x) { let g = fn() { fn() { len([x]) + h } }; g()() }; let h = 5; f(1)", 6L),
+                new LetTestCase("let f = fn() { let g = fn() { let y = z; let z = 2; y }; let z = 1; g() }; f()", 1L)
+        );
+
+        for (var test : tests) {
+            var evaluated = testEval(test.input);
+            testIntegerObject(evaluated, test.expected);
+        }
+    }
+
     @Test
     public void testStrings() throws EvaluationException {
         var input = "\"Hello World!\"";
@@ -370,6 +438,25 @@ public class EvaluatorTest {
 
 
     private record BuiltInFunctionsTestCase(String input, Object expected) {}
+    @Test
+    public void testRepeatedStringConcatenation() throws EvaluationException {
+        var input = """
+                let i = 0;
+                let text = "";
+                while (i < 50000) { let text = text + "ab" + "c"; let i = i + 1; }
+                let h = {text: len(text)};
+                [len(text), h[text], h[text + ""]]
+                """;
+
+        Assertions.assertEquals("[150000, 150000, 150000]", testEval(input).inspect());
+
+        var rope = MonkeyString.concat(new MonkeyString("x".repeat(40)), new MonkeyString("y".repeat(40)));
+        var text = MonkeyString.concat(rope, MonkeyString.concat(new MonkeyString("z"), rope));
+        Assertions.assertEquals(161, text.length());
+        Assertions.assertEquals("x".repeat(40) + "y".repeat(40) + "z" + "x".repeat(40) + "y".repeat(40), text.inspect());
+        Assertions.assertTrue(text.keyEquals(new MonkeyString(text.inspect())));
+    }
+
     @Test
     public void testBuiltInFunctions() throws EvaluationException {
         var tests = List.of(
@@ -394,7 +481,92 @@ public class EvaluatorTest {
                 new BuiltInFunctionsTestCase( "rest(rest(rest(rest([1 * 1, 2 * 2, 3 * 3]))))", null),
                 new BuiltInFunctionsTestCase("push([], \"test\")", List.of("test")),
                 new BuiltInFunctionsTestCase("push(push([], \"test\"), 28)", List.of("test", 28L)),
-                new BuiltInFunctionsTestCase("let arr = []; push(arr, 10); arr", (List.of()))
+                new BuiltInFunctionsTestCase("let arr = []; push(arr, 10); arr", (List.of())),
+                new BuiltInFunctionsTestCase("map([1, 2, 3], fn(x) { x * 2 })", List.of(2L, 4L, 6L)),
+                new BuiltInFunctionsTestCase("map([\"a\", \"bcd\"], len)", List.of(1L, 3L)),
+                new BuiltInFunctionsTestCase("map([], fn(x) { x })", List.of()),
+                new BuiltInFunctionsTestCase("map([1], 1)", "Not a function: 1"),
+                new BuiltInFunctionsTestCase("map(1, len)", "Argument to `map` must be ARRAY_OBJ, RANGE_OBJ, OFF_HEAP_ARRAY_OBJ or LINES_OBJ, got INTEGER"),
+                new BuiltInFunctionsTestCase("map([1], fn(x, y) { x })", "Wrong number of arguments. Expected 2, got 1"),
+                new BuiltInFunctionsTestCase("filter([1, 2, 3, 4], fn(x) { x > 2 })", List.of(3L, 4L)),
+                new BuiltInFunctionsTestCase("filter([1, false, \"a\"], fn(x) { x })", List.of(1L, "a")),
+                new BuiltInFunctionsTestCase("reduce([1, 2, 3], 10, fn(acc, x) { acc - x })", 4L),
+                new BuiltInFunctionsTestCase("reduce([], 10, fn(acc, x) { acc - x })", 10L),
+                new BuiltInFunctionsTestCase("reduce([1, 2], fn(acc, x) { acc })", "Wrong number of arguments. Expected 3, got 2"),
+                new BuiltInFunctionsTestCase("let seen = fn(x) { x }; each([1, 2], seen)", null),
+                new BuiltInFunctionsTestCase("each([1, 2], fn(x) { x + true })", "Operation + not supported for types INTEGER and BOOLEAN"),
+                new BuiltInFunctionsTestCase("sort([3, -1, 2])", List.of(-1L, 2L, 3L)),
+                new BuiltInFunctionsTestCase("sort([\"b\", \"c\", \"a\"])", List.of("a", "b", "c")),
+                new BuiltInFunctionsTestCase("sort([])", List.of()),
+                new BuiltInFunctionsTestCase("sort([1, \"a\"])", "Cannot order INTEGER and STRING values in `sort`"),
+                new BuiltInFunctionsTestCase("sort([true])", "Cannot order BOOLEAN values in `sort`"),
+                new BuiltInFunctionsTestCase("let arr = [2, 1]; sort(arr); arr", List.of(2L, 1L)),
+                new BuiltInFunctionsTestCase("sortBy([\"ccc\", \"a\", \"bb\"], len)", List.of("a", "bb", "ccc")),
+                new BuiltInFunctionsTestCase("sortBy([[2, \"x\"], [1, \"y\"], [2, \"z\"]], first)[2][1]", "z"),
+                new BuiltInFunctionsTestCase("sortBy([1, 2], fn(x) { [x] })", "Cannot order ARRAY_OBJ values in `sortBy`"),
+                new BuiltInFunctionsTestCase("len(range(5))", 5L),
+                new BuiltInFunctionsTestCase("len(range(2, 11, 3))", 3L),
+                new BuiltInFunctionsTestCase("len(range(10, 0, -4))", 3L),
+                new BuiltInFunctionsTestCase("len(range(5, 1))", 0L),
+                new BuiltInFunctionsTestCase("len(range(-9223372036854775807, 9223372036854775807, 2))", 9223372036854775807L),
+                new BuiltInFunctionsTestCase("range(-9223372036854775807, 9223372036854775807)",
+                        "Range from -9223372036854775807 to 9223372036854775807 has too many elements"),
+                new BuiltInFunctionsTestCase("range(2, 11, 3)[2]", 8L),
+                new BuiltInFunctionsTestCase("range(10, 0, -4)[1]", 6L),
+                new BuiltInFunctionsTestCase("range(3)[3]", null),
+                new BuiltInFunctionsTestCase("range(3)[-1]", null),
+                new BuiltInFunctionsTestCase("range(3)[\"a\"]", "Index to an array must be an Expression that yields an Int"),
+                new BuiltInFunctionsTestCase("first(range(4, 8))", 4L),
+                new BuiltInFunctionsTestCase("last(range(4, 8))", 7L),
+                new BuiltInFunctionsTestCase("first(range(0))", null),
+                new BuiltInFunctionsTestCase("rest(range(0))", null),
+                new BuiltInFunctionsTestCase("range(1, 2, 0)", "Step of `range` must not be 0"),
+                new BuiltInFunctionsTestCase("range(\"a\")", "Argument to `range` must be INTEGER, got STRING"),
+                new BuiltInFunctionsTestCase("range()", "Wrong number of arguments. Expected 1 to 3, got 0"),
+                new BuiltInFunctionsTestCase("map(range(3), fn(x) { x * 10 })", List.of(0L, 10L, 20L)),
+                new BuiltInFunctionsTestCase("filter(range(40), fn(x) { x / 10 * 10 == x })", List.of(0L, 10L, 20L, 30L)),
+                new BuiltInFunctionsTestCase("reduce(range(1, 101), 0, fn(acc, x) { acc + x })", 5050L),
+                new BuiltInFunctionsTestCase("sort(range(3, 0, -1))", List.of(1L, 2L, 3L)),
+                new BuiltInFunctionsTestCase("sortBy(range(-1, 2), fn(x) { -x })", List.of(1L, 0L, -1L)),
+                new BuiltInFunctionsTestCase("map(range(3000000000), fn(x) { x })", "Array of 3000000000 elements is too large"),
+                new BuiltInFunctionsTestCase("sum(map(range(100), fn(x) { x * 2 }))", 9900L),
+                new BuiltInFunctionsTestCase("sum(rest([9, 1, 2]))", 3L),
+                new BuiltInFunctionsTestCase("sum(range(1, 101))", 5050L),
+                new BuiltInFunctionsTestCase("sum([])", 0L),
+                new BuiltInFunctionsTestCase("sum([9223372036854775807, 1])", -9223372036854775807L - 1),
+                new BuiltInFunctionsTestCase("sum([1, \"a\"])", "Argument to `sum` must contain only integers, got STRING"),
+                new BuiltInFunctionsTestCase("sum(1)", "Argument to `sum` must be ARRAY_OBJ, RANGE_OBJ, OFF_HEAP_ARRAY_OBJ or LINES_OBJ, got INTEGER"),
+                new BuiltInFunctionsTestCase("min(map(range(40), fn(x) { (x - 17) * (x - 17) }))", 0L),
+                new BuiltInFunctionsTestCase("max(map(range(40), fn(x) { (x - 17) * (x - 17) }))", 484L),
+                new BuiltInFunctionsTestCase("min(range(5, 0, -1))", 1L),
+                new BuiltInFunctionsTestCase("max([true])", "Argument to `max` must contain only integers, got BOOLEAN"),
+                new BuiltInFunctionsTestCase("min([])", null),
+                new BuiltInFunctionsTestCase("max(range(0))", null),
+                new BuiltInFunctionsTestCase("dot(map(range(20), fn(x) { x }), range(20))", 2470L),
+                new BuiltInFunctionsTestCase("dot([1, 2], [3])", "Arguments to `dot` must have the same length, got 2 and 1"),
+                new BuiltInFunctionsTestCase("vadd([1, 2, 3], rest([0, 10, 20, 30]))", List.of(11L, 22L, 33L)),
+                new BuiltInFunctionsTestCase("vmul(range(1, 4), [4, 5, 6])", List.of(4L, 10L, 18L)),
+                new BuiltInFunctionsTestCase("vmul([1], [\"a\"])", "Argument to `vmul` must contain only integers, got STRING"),
+                new BuiltInFunctionsTestCase("scale([1, -2, 3], -3)", List.of(-3L, 6L, -9L)),
+                new BuiltInFunctionsTestCase("scale([1], \"a\")", "Argument to `scale` must be INTEGER, got STRING"),
+                new BuiltInFunctionsTestCase("let a = offHeap([5, 6, 7]); [len(a), a[0], a[2], first(a), last(a), len(rest(a)), rest(a)[1]]",
+                        List.of(3L, 5L, 7L, 5L, 7L, 2L, 7L)),
+                new BuiltInFunctionsTestCase("offHeap(range(4))[4]", null),
+                new BuiltInFunctionsTestCase("offHeap(range(4))[-1]", null),
+                new BuiltInFunctionsTestCase("first(offHeap([]))", null),
+                new BuiltInFunctionsTestCase("rest(offHeap([]))", null),
+                new BuiltInFunctionsTestCase("let a = offHeap(range(1, 5)); [sum(a), min(a), max(rest(a)), dot(a, a), sum(map(a, fn(x) { x * 2 }))]",
+                        List.of(10L, 1L, 4L, 30L, 20L)),
+                new BuiltInFunctionsTestCase("offHeap([1, true])", "Argument to `offHeap` must contain only integers, got BOOLEAN"),
+                new BuiltInFunctionsTestCase("let a = offHeap([1]); release(a); a[0]", "Off-heap array has been released"),
+                new BuiltInFunctionsTestCase("let a = offHeap([1, 2]); let b = rest(a); release(a); len(b)", "Off-heap array has been released"),
+                new BuiltInFunctionsTestCase("let a = offHeap([1]); release(a); sum(a)", "Off-heap array has been released"),
+                new BuiltInFunctionsTestCase("release([1])", "Argument to `release` must be OFF_HEAP_ARRAY_OBJ, got ARRAY_OBJ"),
+                new BuiltInFunctionsTestCase("withOffHeap([3, 4], fn(a) { a[0] + len(a) })", 5L),
+                new BuiltInFunctionsTestCase("let kept = withOffHeap([3, 4], fn(a) { a }); kept[0]", "Off-heap array has been released"),
+                new BuiltInFunctionsTestCase("let a = offHeap([1, 2, 3]); map(a, fn(x) { release(a); x })", "Off-heap array has been released"),
+                new BuiltInFunctionsTestCase("let a = offHeap([1]); release(a); release(a)", null),
+                new BuiltInFunctionsTestCase("withOffHeap([1, 2], fn(a) { withOffHeap(a, fn(b) { release(a); b[0] }) })", 1L)
         );
 
         for (var test : tests) {
@@ -408,6 +580,115 @@ public class EvaluatorTest {
         }
     }
 
+    @Test
+    public void testRanges() throws EvaluationException {
+        Assertions.assertEquals("range(0, 5)", testEval("range(5)").inspect());
+        Assertions.assertEquals("range(10, 0, -3)", testEval("range(10, 0, -3)").inspect());
+        Assertions.assertEquals("range(13, 20, 4)", testEval("rest(range(9, 20, 4))").inspect());
+        Assertions.assertEquals("49999995000000", testEval("reduce(range(10000000), 0, fn(acc, x) { acc + x })").inspect());
+
+        var range = new MonkeyRange(-3, 4, 3);
+        var elements = new ArrayList<Long>();
+        range.forEach(element -> elements.add(((MonkeyInteger) element).getValue()));
+        Assertions.assertEquals(List.of(-3L, 0L, 3L), elements);
+        Assertions.assertEquals(0, new MonkeyRange(Long.MAX_VALUE, Long.MIN_VALUE, 1).length());
+        Assertions.assertEquals(2, new MonkeyRange(Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE).length());
+        Assertions.assertEquals(0, new MonkeyRange(Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MAX_VALUE).rest().length());
+    }
+
+    @Test
+    public void testMemoryMappedFiles(@TempDir Path directory) throws IOException, EvaluationException {
+        var values = ByteBuffer.allocate(4 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        values.putLong(7).putLong(-1).putLong(Long.MAX_VALUE).putLong(0x1FF);
+        var ints = Files.write(directory.resolve("ints.bin"), values.array());
+        var odd = Files.write(directory.resolve("odd.bin"), new byte[]{1, 2, 3});
+
+        Assertions.assertEquals("mmap(4 integers)", testEval("mmap_ints(\"%s\")".formatted(ints)).inspect());
+        Assertions.assertEquals("[7, -1, 9223372036854775807, 511, null]",
+                testEval("let a = mmap_ints(\"%s\"); [a[0], a[1], a[2], last(a), a[4]]".formatted(ints)).inspect());
+        Assertions.assertEquals("[32, 255, 1, 4215]",
+                testEval("let b = mmap_bytes(\"%s\"); [len(b), b[8], b[25], sum(b)]".formatted(ints)).inspect());
+        Assertions.assertEquals("[2, 3]", testEval("map(rest(mmap_bytes(\"%s\")), fn(x) { x })".formatted(odd)).inspect());
+
+        var errors = List.of(
+                new BuiltInFunctionsTestCase("mmap_ints(\"%s\")".formatted(odd),
+                        "Cannot map %s: size of 3 bytes is not a multiple of 8".formatted(odd)),
+                new BuiltInFunctionsTestCase("mmap_bytes(\"%s\")".formatted(directory.resolve("missing.bin")),
+                        "Cannot map %s: file not found".formatted(directory.resolve("missing.bin"))),
+                new BuiltInFunctionsTestCase("mmap_bytes(1)", "Argument to `mmap_bytes` must be STRING, got INTEGER"),
+                new BuiltInFunctionsTestCase("let a = mmap_ints(\"%s\"); release(a); a[0]".formatted(ints), "Off-heap array has been released")
+        );
+        for (var test : errors) {
+            var exception = Assertions.assertThrows(EvaluationException.class, () -> testEval(test.input), test.input);
+            Assertions.assertEquals(test.expected, exception.getRuntimeError().message());
+        }
+    }
+
+    @Test
+    public void testFileBuiltins(@TempDir Path directory) throws IOException, EvaluationException {
+        var log = directory.resolve("log.txt");
+        Files.writeString(log, "alpha\nbeta\r\n\ngamma");
+        var bad = Files.write(directory.resolve("bad.txt"), new byte[]{'a', (byte) 0xFF, '\n'});
+
+        Assertions.assertEquals("lines(%s)".formatted(log), testEval("lines(\"%s\")".formatted(log)).inspect());
+        Assertions.assertEquals("[alpha, beta, , gamma, null, null]",
+                testEval("let it = lines(\"%s\"); [next(it), next(it), next(it), next(it), next(it), next(it)]".formatted(log)).inspect());
+        Assertions.assertEquals("[5, 4, 0, 5]", testEval("map(lines(\"%s\"), len)".formatted(log)).inspect());
+        Assertions.assertEquals("14", testEval(("let it = lines(\"%s\"); let total = 0; let line = next(it); "
+                + "while (line) { let total = total + len(line); let line = next(it); } total").formatted(log)).inspect());
+        Assertions.assertEquals("[gamma, null]",
+                testEval("let it = lines(\"%s\"); next(it); [last(sort(filter(it, fn(l) { len(l) > 0 }))), next(it)]".formatted(log)).inspect());
+        Assertions.assertEquals("a\uFFFD", testEval("next(lines(\"%s\"))".formatted(bad)).inspect());
+        var numbers = Files.writeString(directory.resolve("numbers.txt"), "x\n".repeat(40));
+        Assertions.assertEquals("[40, 41]", testEval("let ls = map(lines(\"%s\"), fn(l) { l }); [len(ls), len(push(ls, 1))]".formatted(numbers)).inspect());
+
+        var out = directory.resolve("out.txt");
+        Assertions.assertEquals("null", testEval("writeFile(\"%s\", \"x=\")".formatted(out)).inspect());
+        testEval("appendFile(\"%s\", 42); appendFile(\"%s\", \"\n\")".formatted(out, out));
+        Assertions.assertEquals("x=42\n", Files.readString(out));
+        Assertions.assertEquals("x=42\n", testEval("readFile(\"%s\")".formatted(out)).inspect());
+        testEval("writeFile(\"%s\", [1, 2])".formatted(out));
+        Assertions.assertEquals("[1, 2]", Files.readString(out));
+
+        var missing = directory.resolve("missing.txt");
+        var errors = List.of(
+                new BuiltInFunctionsTestCase("lines(\"%s\")".formatted(missing), "Cannot read %s: file not found".formatted(missing)),
+                new BuiltInFunctionsTestCase("readFile(\"%s\")".formatted(missing), "Cannot read %s: file not found".formatted(missing)),
+                new BuiltInFunctionsTestCase("lines(\"%s\")".formatted(directory), "Cannot read %s: is a directory".formatted(directory)),
+                new BuiltInFunctionsTestCase("readFile(\"%s\")".formatted(directory), "Cannot read %s: is a directory".formatted(directory)),
+                new BuiltInFunctionsTestCase("writeFile(\"%s\", 1)".formatted(directory.resolve("none/out.txt")),
+                        "Cannot write %s: file not found".formatted(directory.resolve("none/out.txt"))),
+                new BuiltInFunctionsTestCase("writeFile(\"%s\")".formatted(out), "Wrong number of arguments. Expected 2, got 1"),
+                new BuiltInFunctionsTestCase("readFile(1)", "Argument to `readFile` must be STRING, got INTEGER"),
+                new BuiltInFunctionsTestCase("next([1])", "Argument to `next` must be LINES_OBJ, got ARRAY_OBJ"),
+                new BuiltInFunctionsTestCase("sum(lines(\"%s\"))".formatted(log), "Argument to `sum` must contain only integers, got STRING"),
+                new BuiltInFunctionsTestCase("sort(lines(\"%s\"))".formatted(log), "Argument to `sort` must not be LINES_OBJ, collect its lines with `map` first"),
+                new BuiltInFunctionsTestCase("sortBy(lines(\"%s\"), len)".formatted(log), "Argument to `sortBy` must not be LINES_OBJ, collect its lines with `map` first"),
+                new BuiltInFunctionsTestCase("dot(lines(\"%s\"), [1])".formatted(log), "Argument to `dot` must not be LINES_OBJ, collect its lines with `map` first"),
+                new BuiltInFunctionsTestCase("offHeap(lines(\"%s\"))".formatted(log), "Argument to `offHeap` must not be LINES_OBJ, collect its lines with `map` first")
+        );
+        for (var test : errors) {
+            var exception = Assertions.assertThrows(EvaluationException.class, () -> testEval(test.input), test.input);
+            Assertions.assertEquals(test.expected, exception.getRuntimeError().message());
+        }
+    }
+
+    @Test
+    public void testPutsWritesToOutputSink() throws EvaluationException {
+        var written = new StringWriter();
+        var evaluator = new Evaluator(new OutputSink(written, 1024, 2));
+
+        evaluator.eval(new Parser(new Lexer("puts(1, \"a\")")).parseProgram());
+        Assertions.assertEquals("", written.toString());
+        evaluator.eval(new Parser(new Lexer("let f = fn() { puts(); }; f()")).parseProgram());
+        Assertions.assertEquals("1a" + System.lineSeparator() + System.lineSeparator(), written.toString());
+        evaluator.eval(new Parser(new Lexer("puts([true]); flush()")).parseProgram());
+        Assertions.assertEquals("1a" + System.lineSeparator() + System.lineSeparator() + "[true]" + System.lineSeparator(), written.toString());
+
+        var exception = Assertions.assertThrows(EvaluationException.class, () -> testEval("flush(1)"));
+        Assertions.assertEquals("Wrong number of arguments. Expected 0, got 1", exception.getRuntimeError().message());
+    }
+
     @Test
     public void testArrayLiterals() throws EvaluationException {
         var input = "[1, 2 * 2, 3 + 3]";
@@ -448,6 +729,134 @@ public class EvaluatorTest {
         }
     }
 
+    @Test
+    public void testPersistentVector() {
+        var vector = PersistentVector.EMPTY;
+        var snapshots = new ArrayList<PersistentVector>();
+        for (int i = 0; i < 40_000; i++) {
+            if (i % 1000 == 0) {
+                snapshots.add(vector);
+            }
+            vector = vector.push(MonkeyInteger.valueOf(i));
+        }
+
+        Assertions.assertEquals(40_000, vector.size());
+        for (int i = 0; i < vector.size(); i++) {
+            Assertions.assertEquals(i, ((MonkeyInteger) vector.get(i)).getValue());
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            Assertions.assertEquals(i * 1000, snapshots.get(i).size());
+        }
+
+        var rest = vector;
+        for (int i = 0; i < 1500; i++) {
+            rest = rest.rest();
+        }
+        rest = rest.push(MonkeyInteger.valueOf(-1));
+        Assertions.assertEquals(38_501, rest.size());
+        Assertions.assertEquals(1500, ((MonkeyInteger) rest.getFirst()).getValue());
+        Assertions.assertEquals(-1, ((MonkeyInteger) rest.getLast()).getValue());
+        Assertions.assertEquals(40_000, vector.size());
+
+        var expected = new ArrayList<MonkeyObject<?>>();
+        for (int i = 0; i < 1057; i++) {
+            expected.add(MonkeyInteger.valueOf(i));
+        }
+        Assertions.assertEquals(expected, PersistentVector.copyOf(expected));
+        Assertions.assertEquals(expected.subList(1, 1057), PersistentVector.copyOf(expected).rest());
+        Assertions.assertEquals(List.of(), PersistentVector.of(MonkeyInteger.valueOf(1)).rest());
+    }
+
+    @Test
+    public void testPackedVector() throws EvaluationException {
+        var base = MonkeyArray.of(MonkeyInteger.valueOf(1), MonkeyInteger.valueOf(2));
+        Assertions.assertInstanceOf(PackedVector.class, base.elements());
+
+        // both pushes start from the same array, so the second one must not see the first one's element
+        var first = base.push(MonkeyInteger.valueOf(3));
+        var second = base.push(MonkeyInteger.valueOf(4));
+        Assertions.assertEquals("[1, 2, 3]", first.inspect());
+        Assertions.assertEquals("[1, 2, 4]", second.inspect());
+        Assertions.assertEquals("[1, 2]", base.inspect());
+        Assertions.assertEquals("[2, 3, 5]", first.rest().push(MonkeyInteger.valueOf(5)).inspect());
+
+        var mixed = first.push(new MonkeyString("a"));
+        Assertions.assertInstanceOf(PersistentVector.class, mixed.elements());
+        Assertions.assertEquals("[1, 2, 3, a]", mixed.inspect());
+        Assertions.assertInstanceOf(PackedVector.class, first.elements());
+
+        var flags = MonkeyArray.of();
+        for (int i = 0; i < 200; i++) {
+            flags = flags.push(MonkeyBoolean.nativeToMonkey(i % 3 == 0));
+        }
+        Assertions.assertInstanceOf(PackedVector.class, flags.elements());
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertSame(MonkeyBoolean.nativeToMonkey(i % 3 == 0), flags.elements().get(i));
+        }
+        Assertions.assertSame(MonkeyBoolean.TRUE, flags.rest().rest().rest().elements().getFirst());
+
+        Assertions.assertInstanceOf(PersistentVector.class, MonkeyArray.of(MonkeyInteger.valueOf(1), MonkeyBoolean.TRUE).elements());
+        Assertions.assertInstanceOf(PackedVector.class, ((MonkeyArray) testEval("map(range(5), fn(x) { x * x })")).elements());
+        Assertions.assertEquals("[-5, 0, 3, 9]", testEval("sort([3, 9, -5, 0])").inspect());
+        Assertions.assertEquals("[[1, 2, x], [1, 2, 3]]",
+                testEval("let a = [1, 2]; let b = push(a, \"x\"); let c = push(a, 3); [b, c]").inspect());
+    }
+
+    @Test
+    public void testArrayBuiltinsKeepValueSemantics() throws EvaluationException {
+        var input = """
+                let build = fn(n) { let i = 0; let arr = []; while (i < n) { let arr = push(arr, i); let i = i + 1; } arr };
+                let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + first(arr)) } };
+                let a = build(100000);
+                let b = push(rest(a), -1);
+                [len(a), a[99999], len(b), first(b), last(b), last(a), sum(rest(rest(a)), 0)]
+                """;
+
+        Assertions.assertEquals("[100000, 99999, 100000, 1, -1, 99999, 4999949999]", testEval(input).inspect());
+    }
+
+    @Test
+    public void testTailCallsRunInConstantStack() throws EvaluationException {
+        var input = """
+                let build = fn(n, acc) { if (n == 0) { acc } else { build(n - 1, push(acc, n)) } };
+                let sum = fn(arr, acc) { if (len(arr) == 0) { return acc; } return sum(rest(arr), acc + first(arr)); };
+                let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } };
+                let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } };
+                [sum(build(1000000, []), 0), isEven(10001)]
+                """;
+
+        Assertions.assertEquals("[500000500000, false]", testEval(input).inspect());
+    }
+
+    @Test
+    public void testCallDepthIsLimited() {
+        var input = "let f = fn(n) { if (n == 0) { 0 } else { 1 + f(n - 1) } }; f(1000);";
+        var limited = Assertions.assertThrows(EvaluationException.class,
+                () -> new Evaluator(new Environment(), new CallStack(), 100).eval(new Parser(new Lexer(input)).parseProgram()));
+        Assertions.assertEquals(RuntimeErrorType.STACK_OVERFLOW, limited.getRuntimeError().type());
+        Assertions.assertEquals("Maximum call depth of 100 exceeded", limited.getRuntimeError().message());
+        Assertions.assertEquals(100, limited.getRuntimeError().stackFrames().size());
+        Assertions.assertTrue(limited.getRuntimeError().formatMultiline().contains("  ... 36 more frames\n"));
+
+        var exhausted = Assertions.assertThrows(EvaluationException.class,
+                () -> testEval("let f = fn(n) { if (n == 0) { 0 } else { 1 + f(n - 1) } }; f(1000000);"));
+        Assertions.assertEquals(RuntimeErrorType.STACK_OVERFLOW, exhausted.getRuntimeError().type());
+    }
+
+    @Test
+    public void testNonTailRecursionReachesMaxCallDepthOnEvaluationThread() throws EvaluationException {
+        // f(0) is the last of DEFAULT_MAX_CALL_DEPTH frames, counting the first call from the program
+        var depth = Evaluator.DEFAULT_MAX_CALL_DEPTH - 1;
+        var input = "let f = fn(n) { if (n == 0) { 0 } else { 1 + f(n - 1) } }; f(%d);".formatted(depth);
+
+        Assertions.assertEquals(String.valueOf(depth), EvaluationThread.run(() -> testEval(input)).inspect());
+
+        var exceeded = Assertions.assertThrows(EvaluationException.class,
+                () -> EvaluationThread.run(() -> testEval("let f = fn(n) { if (n == 0) { 0 } else { 1 + f(n - 1) } }; f(%d);".formatted(depth + 1))));
+        Assertions.assertEquals("Maximum call depth of %d exceeded".formatted(Evaluator.DEFAULT_MAX_CALL_DEPTH),
+                exceeded.getRuntimeError().message());
+    }
+
     @Test
     public void testStringHashKey() {
         var hello1 = new MonkeyString("Hello world");
@@ -509,6 +918,34 @@ public class EvaluatorTest {
         }
     }
 
+    @Test
+    public void testHashKeysUseValueEquality() throws EvaluationException {
+        Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+        testIntegerObject(testEval("let h = {\"Aa\": 1, \"BB\": 2}; h[\"Aa\"] * 10 + h[\"BB\"]"), 12L);
+        testObject(testEval("{1: 1}[\"1\"]"), null);
+        testObject(testEval("{1: 1}[true]"), null);
+
+        Assertions.assertEquals("{b : 1, a : 3, 3 : true}", testEval("{\"b\": 1, \"a\": 2, 3: true, \"a\": 3}").inspect());
+    }
+
+    @Test
+    public void testLargeHashTable() {
+        var table = new HashTable();
+        for (int i = 0; i < 100_000; i++) {
+            table.put(new MonkeyString("key" + i), MonkeyInteger.valueOf(i));
+            table.put(MonkeyInteger.valueOf(i), MonkeyInteger.valueOf(-i));
+        }
+
+        Assertions.assertEquals(200_000, table.size());
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i, ((MonkeyInteger) table.get(new MonkeyString("key" + i))).getValue());
+            Assertions.assertEquals(-i, ((MonkeyInteger) table.get(MonkeyInteger.valueOf(i))).getValue());
+        }
+        Assertions.assertNull(table.get(new MonkeyString("key100000")));
+        Assertions.assertEquals("key0", table.keyAt(0).inspect());
+        Assertions.assertEquals("99999", table.keyAt(199_999).inspect());
+    }
+
     @Test
     public void testHashErrorHandling() {
         var test = "{\"name\": \"Monkey\"}[fn(x) { x }];";
@@ -547,8 +984,8 @@ public class EvaluatorTest {
     }
 
     public void testIntegerObject(MonkeyObject<?> monkeyObject, Long expected) {
-        Assertions.assertInstanceOf(MonkeyInteger.class, monkeyObject);
-        Assertions.assertEquals(expected, monkeyObject.getObject());
+        var integer = Assertions.assertInstanceOf(MonkeyInteger.class, monkeyObject);
+        Assertions.assertEquals(expected, integer.getValue());
     }
 
     private void testArrayObject(MonkeyObject<?> object, List<?> expected) {
@@ -28,6 +28,17 @@ public class MainCliTest {
         Assertions.assertTrue(result.stdout().contains(">> "));
     }
 
+    @Test
+    public void filterModeStreamsStdinThroughScript() throws Exception {
+        var source = writeScript("filter.monkey", "fn(line) { if (len(line) > 1) { line } }");
+
+        var result = runCommand(new String[]{"filter", source.toString()}, "a\nbb\nccc\n");
+
+        Assertions.assertEquals(0, result.exitCode());
+        Assertions.assertEquals("bb\nccc\n", result.stdout());
+        Assertions.assertEquals("", result.stderr());
+    }
+
     @Test
     public void runValidMonkeyFileSucceeds() throws Exception {
         var source = writeScript("valid.monkey", "1 + 2;\n");
@@ -95,7 +106,7 @@ public class MainCliTest {
         Assertions.assertEquals(2, result.exitCode());
         Assertions.assertEquals("", result.stdout());
         Assertions.assertEquals(
-                "Usage: monkey [run <path> | bench <path> | --tokens <path> | --ast <path>]\n",
+                "Usage: monkey [run [--engine=eval|vm|nodes|closure] <path> | bench [--filter [--batch=<n>]] [--engine=eval|vm|nodes|closure] <path> | filter [--batch=<n>] [--engine=eval|vm|nodes|closure] <path> < input | --tokens <path> | --ast <path>]\n",
                 result.stderr()
         );
     }
@@ -135,6 +146,42 @@ public class MainCliTest {
         Assertions.assertTrue(result.stderr().contains("TYPE_MISMATCH"));
     }
 
+    @Test
+    public void deepNonTailRecursionRunsOnEveryEngine() throws Exception {
+        var source = writeScript("deep.monkey", "let f = fn(n){ if (n == 0) { 0 } else { 1 + f(n-1) } }; f(100000)");
+
+        for (var engine : new String[]{"--engine=eval", "--engine=nodes", "--engine=closure", "--engine=vm"}) {
+            var result = runCommand(new String[]{"run", engine, source.toString()}, "");
+
+            Assertions.assertEquals(0, result.exitCode(), engine + ": " + result.stderr());
+            Assertions.assertEquals("100000\n", result.stdout(), engine);
+        }
+    }
+
+    @Test
+    public void javaStackExhaustionIsReportedInFreshJvm() throws Exception {
+        var source = writeScript("deep.monkey", "let f = fn(n){ if (n == 0) { 0 } else { 1 + f(n-1) } }; f(100000)");
+
+        // a JVM of its own, so no class the error path needs has been loaded or initialized yet, with an evaluation
+        // thread stack too small for the recursion
+        for (var engine : new String[]{"--engine=eval", "--engine=nodes", "--engine=closure"}) {
+            var process = new ProcessBuilder(
+                    ProcessHandle.current().info().command().orElseThrow(),
+                    "-Dmonkey.stackSize=1048576",
+                    "-cp", System.getProperty("java.class.path"),
+                    Main.class.getName(), "run", engine, source.toString()
+            ).start();
+            process.getOutputStream().close();
+            var stdout = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            var stderr = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+
+            Assertions.assertEquals(1, process.waitFor(), engine + ": " + stderr);
+            Assertions.assertEquals("", stdout, engine);
+            Assertions.assertTrue(stderr.startsWith("Runtime error in " + source), engine + ": " + stderr);
+            Assertions.assertTrue(stderr.contains("Error[STACK_OVERFLOW]"), engine + ": " + stderr);
+        }
+    }
+
     private Path writeScript(String name, String source) throws Exception {
         var path = tempDir.resolve(name);
         Files.writeString(path, source, StandardCharsets.UTF_8);
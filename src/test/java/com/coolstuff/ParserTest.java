@@ -40,6 +40,48 @@ public class ParserTest {
         }
     }
 
+    @Test
+    public void testIdentifiersAreResolvedToSlots() {
+        var program = buildProgram("let g = 1; let f = fn(a) { let b = a; fn() { a + b + g + len } };");
+
+        var global = Assertions.assertInstanceOf(LetStatement.class, program.statements()[0]);
+        Assertions.assertFalse(global.name().isLocal());
+        Assertions.assertEquals(0, global.name().depth());
+
+        var outer = Assertions.assertInstanceOf(FunctionLiteral.class, ((LetStatement) program.statements()[1]).value());
+        Assertions.assertArrayEquals(new String[]{"a", "b"}, outer.locals());
+        Assertions.assertEquals(0, outer.parameters()[0].slot());
+        var let = Assertions.assertInstanceOf(LetStatement.class, outer.body().statements()[0]);
+        Assertions.assertEquals(1, let.name().slot());
+
+        var inner = Assertions.assertInstanceOf(FunctionLiteral.class,
+                ((ExpressionStatement) outer.body().statements()[1]).expression());
+        Assertions.assertArrayEquals(new String[]{}, inner.locals());
+        var sum = (InfixExpression) ((ExpressionStatement) inner.body().statements()[0]).expression();
+        var builtin = (IdentifierExpression) sum.right();
+        var g = (IdentifierExpression) ((InfixExpression) sum.left()).right();
+        var b = (IdentifierExpression) ((InfixExpression) ((InfixExpression) sum.left()).left()).right();
+        var a = (IdentifierExpression) ((InfixExpression) ((InfixExpression) sum.left()).left()).left();
+
+        Assertions.assertEquals(List.of(1, 0), List.of(a.depth(), a.slot()));
+        Assertions.assertEquals(List.of(1, 1), List.of(b.depth(), b.slot()));
+        Assertions.assertEquals(List.of(2, IdentifierExpression.PROGRAM_SLOT), List.of(g.depth(), g.slot()));
+        Assertions.assertEquals(List.of(2, IdentifierExpression.PROGRAM_SLOT), List.of(builtin.depth(), builtin.slot()));
+    }
+
+    @Test
+    public void testLocalsCapturedByNestedFunctionsComeFirst() {
+        var program = buildProgram("fn(a, big) { let tmp = a; let keep = a; fn() { let z = keep; z } }");
+
+        var outer = (FunctionLiteral) ((ExpressionStatement) program.statements()[0]).expression();
+        Assertions.assertArrayEquals(new String[]{"keep", "a", "big", "tmp"}, outer.locals());
+        Assertions.assertEquals(1, outer.captured());
+        Assertions.assertEquals(1, outer.parameters()[0].slot());
+
+        var inner = (FunctionLiteral) ((ExpressionStatement) outer.body().statements()[2]).expression();
+        Assertions.assertEquals(0, inner.captured());
+    }
+
     private boolean testLetStatement(Statement s, String name) {
         if (!Objects.equals(s.tokenLiteral(), "let")) {
             Assertions.fail("s.tokenLiteral is not 'let'");
@@ -703,6 +745,15 @@ public class ParserTest {
         }
     }
 
+    @Test
+    public void testIncompleteCallAndArrayLiteralsReportErrors() {
+        for (var input : List.of("let f = fn(x) { x }; f(1, ", "[1, 2", "f(", "[")) {
+            var parser = new Parser(new Lexer(input));
+            Assertions.assertDoesNotThrow(parser::parseProgram, input);
+            Assertions.assertFalse(parser.getErrors().isEmpty(), input);
+        }
+    }
+
     private Program buildProgram(String input) {
         var parser = new Parser(new Lexer(input));
         var program = parser.parseProgram();
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
@@ -34,6 +35,28 @@ public class MonkeyCliRunnerTest {
         Assertions.assertEquals("", errBuffer.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void runModeExecutesProgramOnVmEngine() throws Exception {
+        Path source = tempDir.resolve("program.monkey");
+        Files.writeString(source, "let f = fn(x) { x * 2 }; f(21);", StandardCharsets.UTF_8);
+
+        var result = new MonkeyCliRunner().execute(new String[]{"run", "--engine=vm", source.toString()});
+
+        Assertions.assertEquals(0, result.exitCode());
+        Assertions.assertEquals("42\n", result.stdoutText());
+        Assertions.assertEquals("", result.stderrText());
+    }
+
+    @Test
+    public void unknownEngineIsUsageError() throws Exception {
+        Path source = tempDir.resolve("program.monkey");
+        Files.writeString(source, "1;", StandardCharsets.UTF_8);
+
+        var result = new MonkeyCliRunner().execute(new String[]{"run", "--engine=jit", source.toString()});
+
+        Assertions.assertEquals(2, result.exitCode());
+        Assertions.assertTrue(result.stderrText().startsWith("Usage: monkey"));
+    }
 
     @Test
     public void benchModeEvaluatesProgramAndReportsTiming() throws Exception {
@@ -73,4 +96,113 @@ public class MonkeyCliRunnerTest {
         Assertions.assertTrue(result.stderrText().startsWith("Runtime error in " + source));
         Assertions.assertTrue(result.stderrText().contains("Identifier not found"));
     }
+
+    @Test
+    public void runModeWritesPutsOutputBeforeResult() throws Exception {
+        Path source = tempDir.resolve("program.monkey");
+        Files.writeString(source, "puts(\"a\", 1); let f = fn(x) { puts([x]); x }; f(2) + 1;", StandardCharsets.UTF_8);
+
+        for (var engine : new String[]{"--engine=eval", "--engine=vm", "--engine=nodes", "--engine=closure"}) {
+            var outBuffer = new ByteArrayOutputStream();
+            var errBuffer = new ByteArrayOutputStream();
+
+            var exitCode = new MonkeyCliRunner().run(
+                    new String[]{"run", engine, source.toString()},
+                    new PrintStream(outBuffer, false, StandardCharsets.UTF_8),
+                    new PrintStream(errBuffer, false, StandardCharsets.UTF_8)
+            );
+
+            Assertions.assertEquals(0, exitCode, engine);
+            Assertions.assertEquals("a1\n[2]\n3\n", outBuffer.toString(StandardCharsets.UTF_8), engine);
+            Assertions.assertEquals("a1\n[2]\n3\n", new MonkeyCliRunner().execute(new String[]{"run", engine, source.toString()}).stdoutText(), engine);
+        }
+    }
+
+    @Test
+    public void filterModeCallsScriptFunctionPerLine() throws Exception {
+        Path source = tempDir.resolve("filter.monkey");
+        Files.writeString(source, "let seen = 0; fn(line) { if (len(line) < 4) { [line, len(line)] } }", StandardCharsets.UTF_8);
+
+        for (var engine : new String[]{"--engine=eval", "--engine=vm", "--engine=nodes", "--engine=closure"}) {
+            var result = new MonkeyCliRunner().execute(new String[]{"filter", engine, source.toString()}, input("ab\nskip\n\nxyz"));
+
+            Assertions.assertEquals(0, result.exitCode(), engine);
+            Assertions.assertEquals("ab\n2\n\n0\nxyz\n3\n", result.stdoutText(), engine);
+            Assertions.assertEquals("", result.stderrText(), engine);
+        }
+    }
+
+    @Test
+    public void filterModePassesBatchesOfLines() throws Exception {
+        Path source = tempDir.resolve("filter.monkey");
+        Files.writeString(source, "fn(lines) { puts(len(lines)); reduce(lines, \"\", fn(acc, line) { acc + line }) }", StandardCharsets.UTF_8);
+
+        var result = new MonkeyCliRunner().execute(new String[]{"filter", "--batch=2", source.toString()}, input("a\nb\nc\nd\ne\n"));
+
+        Assertions.assertEquals(0, result.exitCode());
+        Assertions.assertEquals("2\nab\n2\ncd\n1\ne\n", result.stdoutText());
+    }
+
+    @Test
+    public void filterModeReportsScriptAndInputErrors() throws Exception {
+        Path source = tempDir.resolve("filter.monkey");
+        Files.writeString(source, "fn(line) { if (len(line) < 2) { line + 1 } }", StandardCharsets.UTF_8);
+        Path notFunction = tempDir.resolve("value.monkey");
+        Files.writeString(notFunction, "42", StandardCharsets.UTF_8);
+
+        var failed = new MonkeyCliRunner().execute(new String[]{"filter", source.toString()}, input("xy\nx\n"));
+        Assertions.assertEquals(1, failed.exitCode());
+        Assertions.assertTrue(failed.stderrText().startsWith("Runtime error in " + source + " at input line 2:\n"), failed.stderrText());
+        Assertions.assertTrue(failed.stderrText().contains("at <filter>(1 args) @ 2:1\n"), failed.stderrText());
+
+        // a batch call points at the first line of its batch
+        var batch = new MonkeyCliRunner().execute(new String[]{"filter", "--batch=2", source.toString()}, input("a\nb\nc\n"));
+        Assertions.assertEquals(1, batch.exitCode());
+        Assertions.assertTrue(batch.stderrText().contains("at <filter>(1 args) @ 3:1\n"), batch.stderrText());
+
+        var value = new MonkeyCliRunner().execute(new String[]{"filter", notFunction.toString()}, input("x\n"));
+        Assertions.assertEquals(1, value.exitCode());
+        Assertions.assertEquals("Filter script " + notFunction + " must evaluate to a function, got INTEGER\n", value.stderrText());
+
+        Assertions.assertEquals(2, new MonkeyCliRunner().execute(new String[]{"filter", "--batch=0", source.toString()}).exitCode());
+        Assertions.assertEquals(2, new MonkeyCliRunner().execute(new String[]{"run", "--batch=2", source.toString()}).exitCode());
+        Assertions.assertEquals(2, new MonkeyCliRunner().execute(new String[]{"bench", "--batch=2", source.toString()}).exitCode());
+        Assertions.assertEquals(2, new MonkeyCliRunner().execute(new String[]{"--ast", "--engine=vm", source.toString()}).exitCode());
+    }
+
+    @Test
+    public void benchFilterModeReportsThroughput() throws Exception {
+        Path source = tempDir.resolve("filter.monkey");
+        Files.writeString(source, "fn(line) { }", StandardCharsets.UTF_8);
+
+        var result = new MonkeyCliRunner().execute(new String[]{"bench", "--filter", "--engine=closure", source.toString()}, input("1\n2\n3\n"));
+
+        Assertions.assertEquals(0, result.exitCode());
+        Assertions.assertEquals("", result.stdoutText());
+        Assertions.assertTrue(result.stderrText().startsWith("Execution time: "), result.stderrText());
+        Assertions.assertTrue(result.stderrText().contains("\nThroughput: 3 lines, "), result.stderrText());
+        Assertions.assertTrue(result.stderrText().endsWith(" lines/s\n"), result.stderrText());
+    }
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void runModeFlushesPutsOutputBeforeRuntimeError() throws Exception {
+        Path source = tempDir.resolve("program.monkey");
+        Files.writeString(source, "puts(\"before\"); missing;", StandardCharsets.UTF_8);
+
+        var outBuffer = new ByteArrayOutputStream();
+        var errBuffer = new ByteArrayOutputStream();
+        var exitCode = new MonkeyCliRunner().run(
+                new String[]{"run", source.toString()},
+                new PrintStream(outBuffer, false, StandardCharsets.UTF_8),
+                new PrintStream(errBuffer, false, StandardCharsets.UTF_8)
+        );
+
+        Assertions.assertEquals(1, exitCode);
+        Assertions.assertEquals("before\n", outBuffer.toString(StandardCharsets.UTF_8));
+        Assertions.assertTrue(errBuffer.toString(StandardCharsets.UTF_8).startsWith("Runtime error in " + source));
+    }
 }
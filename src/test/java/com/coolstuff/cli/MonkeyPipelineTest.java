@@ -45,4 +45,42 @@ public class MonkeyPipelineTest {
         Assertions.assertTrue(result.hasEvaluationError());
         Assertions.assertTrue(result.evaluationException().getRuntimeError().message().contains("Identifier not found"));
     }
+
+    @Test
+    public void repeatedEvaluationReusesParsedProgram() {
+        var pipeline = new MonkeyPipeline(new ProgramCache(4));
+
+        var first = pipeline.evaluate("let x = 2; x * 21;", new Evaluator());
+        var second = pipeline.evaluate("let x = 2; x * 21;", new Evaluator());
+        var vm = pipeline.compileAndRun("let x = 2; x * 21;");
+
+        Assertions.assertEquals("42", first.value().inspect());
+        Assertions.assertEquals("42", second.value().inspect());
+        Assertions.assertEquals("42", vm.value().inspect());
+        Assertions.assertEquals(new ProgramCache.Stats(2, 1, 0, 1, 4), pipeline.getProgramCache().stats());
+    }
+
+    @Test
+    public void programCacheEvictsLeastRecentlyUsedSource() {
+        var cache = new ProgramCache(2);
+        var pipeline = new MonkeyPipeline();
+
+        cache.get("1", pipeline::parseProgram);
+        cache.get("2", pipeline::parseProgram);
+        cache.get("1", pipeline::parseProgram);
+        cache.get("3", pipeline::parseProgram);
+        var reparsed = cache.get("2", pipeline::parseProgram);
+
+        Assertions.assertEquals("2", reparsed.program().string());
+        Assertions.assertEquals(new ProgramCache.Stats(1, 4, 2, 2, 2), cache.stats());
+    }
+
+    @Test
+    public void parseErrorsAreCachedToo() {
+        var pipeline = new MonkeyPipeline(new ProgramCache(4));
+
+        Assertions.assertTrue(pipeline.evaluate("let x = ;", new Evaluator()).hasParseErrors());
+        Assertions.assertTrue(pipeline.compileAndRun("let x = ;").hasParseErrors());
+        Assertions.assertEquals(1, pipeline.getProgramCache().stats().hits());
+    }
 }
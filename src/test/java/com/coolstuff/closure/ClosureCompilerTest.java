@@ -0,0 +1,127 @@
+package com.coolstuff.closure;
+
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ClosureCompilerTest {
+
+    @Test
+    public void testProgramsMatchEvaluator() {
+        assertSameResults(List.of(
+                "(5 + 10 * 2 + 15 / 3) * 2 + -10",
+                "1 < 2 == true",
+                "[1 <= 2, 2 >= 3, 1 != 1]",
+                "!!5",
+                "-null",
+                "false && (1 / 0 > 0)",
+                "true || (1 / 0 > 0)",
+                "1 && 0",
+                "if (false) {1} else if (false) {2} else if (true) {3} else {5}",
+                "if (false) { 10 }",
+                "\"Hello\" + \" \" + \"World\"",
+                "[1, 2 * 2, 3 + 3][1]",
+                "[1, 2, 3][3]",
+                "[1, 2, 3][-1]",
+                "{\"b\": 1, \"a\": 2, 3: true, \"b\": 4}",
+                "{\"foo\": 5}[\"foo\"]",
+                "let a = 5; let b = a; let c = a + b + 5; c;",
+                "return 2 * 5; 9;",
+                "fn(x){ x + 2; }",
+                "let i = 0; let sum = 0; while (i < 6) { let i = i + 1; if (i == 3) { continue; } let sum = sum + i; } sum;",
+                "let i = 0; while (i < 10) { let i = i + 1; if (i == 4) { break; } }",
+                "let i = 0; while (i < 3) { let i = i + 1; }",
+                "while (true) { return 7; }"
+        ));
+    }
+
+    @Test
+    public void testFunctionsAndScopesMatchEvaluator() {
+        assertSameResults(List.of(
+                "let newAdder = fn(x) { fn(y) { x + y } }; let addTwo = newAdder(2); addTwo(2);",
+                "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(15)",
+                "let counter = fn() { let x = 1; let get = fn() { x }; let x = 2; get() }; counter()",
+                "let x = 10; let f = fn() { let y = x; let x = 1; y + x }; f()",
+                "let f = fn() { let g = fn() { let y = z; let z = 2; y }; let z = 1; g() }; f()",
+                "let f = fn() { let go = fn(n) { if (n == 0) { return 0; } go(n - 1) }; go(5) }; f()",
+                "let twice = fn(x, x) { x }; twice(1, 2)",
+                "let len = fn(x) { 42 }; len(\"abc\")",
+                "let loop = fn() { let i = 0; while (i < 5) { if (i == 3) { return i; } let i = i + 1; } return 99; }; loop();",
+                "let f = fn(x) { let y = if (x) { return 1; }; 5 }; [f(true), f(false)]",
+                "let f = fn() { 1 + if (true) { return 5; } }; f()",
+                "let f = fn() { let i = 0; while (i < 10) { let i = i + 1; [if (i == 3) { break; } else { i }]; } i }; f()",
+                "let i = 0; let s = 0; while (i < 5) { let i = i + 1; let t = if (i == 2) { continue; } else { i }; let s = s + t; } s",
+                "let sum = fn(n, acc) { if (n == 0) { return acc; } return sum(n - 1, acc + n); }; sum(1000000, 0)",
+                "let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } }; let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } }; isEven(10001)",
+                "let adders = fn(n, acc) { if (n == 0) { return acc; } adders(n - 1, push(acc, fn(x) { x + n })) }; let fs = adders(3, []); fs[0](10) + fs[2](10)",
+                "let map = fn(arr, f) { let iter = fn(arr, acc) { if (len(arr) == 0) { acc } else { iter(rest(arr), push(acc, f(first(arr)))) } }; iter(arr, []) }; map([1, 2, 3], fn(x) { x * 2 })",
+                "let xs = [3, 1, 2]; [map(xs, fn(x) { x * x }), filter(xs, fn(x) { x > 1 }), reduce(xs, 0, fn(a, x) { a + x }), sortBy(xs, fn(x) { -x }), sort(map(xs, len))]",
+                "let r = range(10, 0, -2); [len(r), r[1], r[9], first(rest(r)), map(r, fn(x) { x / 2 }), filter(range(20), fn(x) { x > 16 }), r]",
+                "let f = fn(x) { x + true }; let g = fn(xs) { map(xs, f) }; g([1])"
+        ));
+    }
+
+    @Test
+    public void testRuntimeErrorsMatchEvaluator() {
+        assertSameResults(List.of(
+                "5 + true;",
+                "-true",
+                "\"Hello\" - \"World\"",
+                "foobar",
+                "let a = 5; a(unknown);",
+                "{\"foo\": 5}[fn(x){x}]",
+                "{fn(x){x}: unknown}",
+                "[1][\"a\"]",
+                "5[unknown]",
+                "1 / 0",
+                "break;",
+                "continue;",
+                "let f = fn() { break; }; while (true) { f(); }",
+                "let f = fn(x) { x }; f(1, 2)",
+                "len(1)",
+                "let g = fn(x) { x + true }; let f = fn(n) { if (n == 0) { g(n) } else { f(n - 1) } }; f(100)",
+                "let c = fn(x){ x + true; }; let b = fn(x){ c(x); }; let a = fn(x){ b(x); }; a(1);",
+                "let f = fn() { let y = missing; let missing = 1; y }; f()"
+        ));
+    }
+
+    @Test
+    public void testHotFunctionsMatchEvaluatorOnceCompiled() {
+        // more calls than the default monkey.jit.threshold, so the program's own functions run as JIT-compiled code
+        assertSameResults(List.of(
+                "let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } }; let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } }; isEven(100001)",
+                "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(18)",
+                "let f = fn(n) { if (n == 1500) { n + true } else { f(n + 1) } }; f(0)",
+                "let g = fn(x) { 1200 / x }; let i = 1; let s = 0; while (i < 1200) { let s = s + g(i); let i = i + 1; } [s, g(0)]",
+                "let add = fn(k) { fn(n) { n + k } }(3); let i = 0; let s = 0; while (i < 1500) { let s = s + add(i); let i = i + 1; } s"
+        ));
+    }
+
+    private void assertSameResults(List<String> inputs) {
+        for (var input : inputs) {
+            Assertions.assertEquals(evaluate(input), execute(input), input);
+        }
+    }
+
+    private String evaluate(String input) {
+        try {
+            return new Evaluator().eval(new Parser(new Lexer(input)).parseProgram()).inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+
+    private String execute(String input) {
+        try {
+            var program = new ClosureCompiler().compile(new Parser(new Lexer(input)).parseProgram());
+            return program.execute(new Evaluator()).inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.coolstuff.evaluator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class NumericKernelsTest {
+
+    @Test
+    public void testVectorKernelsAreSelected() {
+        // surefire runs with --add-modules jdk.incubator.vector
+        Assertions.assertInstanceOf(VectorKernels.class, NumericKernels.INSTANCE);
+    }
+
+    @Test
+    public void testVectorKernelsMatchScalarKernels() {
+        var scalar = new ScalarKernels();
+        var vector = new VectorKernels();
+        var random = new Random(42);
+        var left = random.longs(300).toArray();
+        var right = random.longs(300).toArray();
+        left[17] = Long.MAX_VALUE;
+        right[40] = Long.MIN_VALUE;
+
+        for (var length : new int[]{1, 3, 8, 31, 64, 250}) {
+            for (var from : new int[]{0, 5, 11}) {
+                var message = "length %d from %d".formatted(length, from);
+                Assertions.assertEquals(scalar.sum(left, from, length), vector.sum(left, from, length), message);
+                Assertions.assertEquals(scalar.min(left, from, length), vector.min(left, from, length), message);
+                Assertions.assertEquals(scalar.max(right, from, length), vector.max(right, from, length), message);
+                Assertions.assertEquals(scalar.dot(left, from, right, 3, length), vector.dot(left, from, right, 3, length), message);
+
+                var expected = new long[length];
+                var actual = new long[length];
+                scalar.add(left, from, right, 3, expected, length);
+                vector.add(left, from, right, 3, actual, length);
+                Assertions.assertArrayEquals(expected, actual, message);
+                scalar.multiply(left, from, right, 3, expected, length);
+                vector.multiply(left, from, right, 3, actual, length);
+                Assertions.assertArrayEquals(expected, actual, message);
+                scalar.scale(left, from, -7, expected, length);
+                vector.scale(left, from, -7, actual, length);
+                Assertions.assertArrayEquals(expected, actual, message);
+            }
+        }
+        Assertions.assertEquals(Arrays.stream(left).sum(), vector.sum(left, 0, left.length));
+    }
+}
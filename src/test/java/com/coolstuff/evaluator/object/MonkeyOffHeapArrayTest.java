@@ -0,0 +1,106 @@
+package com.coolstuff.evaluator.object;
+
+import com.coolstuff.evaluator.BuiltInFunctions;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.RuntimeErrorType;
+import com.coolstuff.token.Token;
+import com.coolstuff.token.TokenType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MonkeyOffHeapArrayTest {
+
+    @Test
+    public void testOffHeapArraySpansChunks() {
+        // 1 KiB chunks of 128 elements, one element past two of them
+        var length = 2L * 128 + 1;
+        var array = MonkeyOffHeapArray.allocate(length, 10);
+        var indexes = new long[]{0, 127, 128, 255, 256};
+        for (var index : indexes) {
+            array.set(index, -index);
+        }
+
+        Assertions.assertEquals(length, array.length());
+        for (var index : indexes) {
+            Assertions.assertEquals(-index, array.get(index).getValue());
+        }
+        Assertions.assertEquals(0, array.get(200).getValue());
+        Assertions.assertEquals(-128, array.rest().get(127).getValue());
+        Assertions.assertNull(array.get(length));
+
+        var elements = new ArrayList<Long>();
+        array.rest().forEach(element -> elements.add(((MonkeyInteger) element).getValue()));
+        Assertions.assertEquals(length - 1, elements.size());
+        Assertions.assertEquals(List.of(-127L, -128L), elements.subList(126, 128));
+
+        array.release();
+        Assertions.assertTrue(array.rest().isReleased());
+        Assertions.assertEquals("offHeap(released)", array.inspect());
+    }
+
+    @Test
+    public void testBoundsAcrossDefaultChunkBoundary() {
+        // one element past the first 2^27-byte chunk
+        var length = (1L << 24) + 1;
+        var array = MonkeyOffHeapArray.allocate(length);
+        try {
+            array.set(length - 2, 7);
+            array.set(length - 1, 8);
+
+            Assertions.assertEquals(7, array.get(length - 2).getValue());
+            Assertions.assertEquals(8, array.get(length - 1).getValue());
+            Assertions.assertEquals(8, array.rest().get(length - 2).getValue());
+            Assertions.assertNull(array.get(length));
+            Assertions.assertNull(array.get(-1));
+            Assertions.assertNull(array.rest().get(length - 1));
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test
+    public void testUseAfterReleaseThrows() {
+        var array = MonkeyOffHeapArray.allocate(3, 10);
+        var slice = array.rest();
+        var iterator = array.iterator();
+        iterator.next();
+
+        slice.release();
+        Assertions.assertTrue(array.isReleased());
+        Assertions.assertThrows(MonkeyOffHeapArray.ReleasedException.class, () -> array.get(0));
+        Assertions.assertThrows(MonkeyOffHeapArray.ReleasedException.class, () -> array.set(0, 1));
+        Assertions.assertThrows(MonkeyOffHeapArray.ReleasedException.class, iterator::next);
+        Assertions.assertThrows(MonkeyOffHeapArray.ReleasedException.class, () -> slice.iterator().next());
+    }
+
+    @Test
+    public void testDoubleReleaseIsIgnored() {
+        var array = MonkeyOffHeapArray.allocate(2, 10);
+        array.release();
+        array.release();
+        array.rest().release();
+
+        Assertions.assertTrue(array.isReleased());
+        Assertions.assertEquals("offHeap(released)", array.inspect());
+    }
+
+    @Test
+    public void testWithOffHeapReleasesWhenCallbackFails() {
+        var token = new Token(TokenType.IDENT, "withOffHeap");
+        var captured = new MonkeyOffHeapArray[1];
+        var failing = new BuiltInFunction("failing", (callToken, arguments, evaluator) -> {
+            captured[0] = (MonkeyOffHeapArray) arguments[0];
+            throw evaluator.error(RuntimeErrorType.INVALID_ARGUMENT, callToken, "callback failed");
+        });
+        var withOffHeap = BuiltInFunctions.getFunction("withOffHeap").orElseThrow();
+
+        var error = Assertions.assertThrows(EvaluationException.class,
+                () -> withOffHeap.call(token, new MonkeyObject<?>[]{MonkeyArray.of(MonkeyInteger.valueOf(1)), failing}, new Evaluator()));
+        Assertions.assertTrue(error.getMessage().contains("callback failed"), error.getMessage());
+        Assertions.assertTrue(captured[0].isReleased());
+    }
+}
@@ -0,0 +1,106 @@
+package com.coolstuff.jit;
+
+import com.coolstuff.ast.FunctionLiteral;
+import com.coolstuff.ast.Nodes.ExpressionStatement;
+import com.coolstuff.compiler.Compiler;
+import com.coolstuff.evaluator.Environment;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.evaluator.object.MonkeyInteger;
+import com.coolstuff.evaluator.object.MonkeyObject;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import com.coolstuff.vm.VM;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class JitCompilerTest {
+
+    @Test
+    public void testSupportedFunctionsCompile() {
+        Assertions.assertNotNull(new JitCompiler().compile(literal(
+                "fn(n) { let i = 0; while (i < n) { if (i == 3) { break; } let i = i + 1; } [i, {\"k\": !i}][1] }")));
+        Assertions.assertNotNull(new JitCompiler().compile(literal("fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }")));
+
+        Assertions.assertNull(new JitCompiler().compile(literal("fn(x) { fn(y) { x + y } }")));
+        Assertions.assertNull(new JitCompiler().compile(literal("fn(x) { let y = if (x) { return 1; }; y }")));
+    }
+
+    @Test
+    public void testCompiledClassIsLoadedAndRuns() throws EvaluationException {
+        var code = new JitCompiler().compile(literal("fn(a, b) { let c = a * b; c + 1 }"));
+
+        // defining the hidden class links it, so the verifier has accepted it
+        Assertions.assertTrue(code.getClass().isHidden());
+        var result = code.run(new Environment(), new MonkeyObject<?>[]{MonkeyInteger.valueOf(6), MonkeyInteger.valueOf(7)}, new Evaluator());
+        Assertions.assertEquals(43L, ((MonkeyInteger) result).getValue());
+    }
+
+    @Test
+    public void testFunctionTooLargeForOneMethodFallsBack() {
+        var function = "fn(n) { let s = 0; %s s }".formatted("let s = s + n * 2 - 1;".repeat(3000));
+
+        Assertions.assertNull(new JitCompiler().compile(literal(function)));
+        Assertions.assertNull(JitCompiler.compiled(literal(function)));
+        var input = "let f = %s; let i = 0; while (i < %d) { f(i); let i = i + 1; } f(5)".formatted(function, JitCompiler.THRESHOLD);
+        Assertions.assertEquals("27000", evaluate(input));
+    }
+
+    @Test
+    public void testCompiledFunctionsMatchInterpreter() {
+        // each function is called THRESHOLD times with 0, 1, 2, ... so it is compiled before the call that is compared
+        assertSameResults(List.of(
+                "fn(n) { if (n < 2) { return n; } let a = n - 1; a * 2 + n / 3 - -n }",
+                "fn(n) { let s = 0; let i = 0; while (i < n) { let i = i + 1; if (i == 3) { continue; } if (i > 10) { break; } let s = s + i; } s }",
+                "fn(n) { let i = 0; while (i < 3) { let i = i + 1; } }",
+                "fn(n) { while (true) { if (n >= 0) { return n * 2; } } }",
+                "fn(n) { [n, \"a\" + \"b\", {n: true, \"k\": [1]}][2][n] }",
+                "fn(n) { [1, 2][n] }",
+                "fn(n) { !n || n > 5 && len(\"abc\") == 3 }",
+                "fn(n) { if (n > 1000) { 1 } }",
+                "fn(n) { let y = x; let x = n; y + x }",
+                "fn(n) { if (n == 0) { return 0; } f(n - 1) }",
+                "fn(n) { if (n > 999) { g(n) } else { n } }",
+                "fn(n) { if (n > 999) { n + true } else { n } }",
+                "fn(n) { if (n > 999) { -\"a\" } else { 0 } }",
+                "fn(n) { if (n > 999) { missing } else { 1 } }",
+                "fn(n) { if (n > 999) { {[n]: 1} } else { 1 } }",
+                "fn(n) { if (n > 999) { n(1) } else { 1 } }",
+                "fn(n) { if (n > 999) { break; } n }",
+                "fn(n) { if (n > 999) { rest(1) } else { 1 } }"
+        ), 5000);
+    }
+
+    private void assertSameResults(List<String> functions, int argument) {
+        for (var function : functions) {
+            Assertions.assertNotNull(new JitCompiler().compile(literal(function)), function);
+            var input = "let x = 7; let g = fn(x) { x / 0 }; let f = %s; let i = 0; while (i < %d) { f(i); let i = i + 1; } f(%d)"
+                    .formatted(function, JitCompiler.THRESHOLD, argument);
+            Assertions.assertEquals(execute(input), evaluate(input), function);
+        }
+    }
+
+    private FunctionLiteral literal(String input) {
+        var statement = (ExpressionStatement) new Parser(new Lexer(input)).parseProgram().statements()[0];
+        return (FunctionLiteral) statement.expression();
+    }
+
+    private String evaluate(String input) {
+        try {
+            return new Evaluator().eval(new Parser(new Lexer(input)).parseProgram()).inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+
+    // the VM never compiles functions, so it serves as the reference
+    private String execute(String input) {
+        try {
+            return new VM(new Compiler().compile(new Parser(new Lexer(input)).parseProgram())).run().inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+}
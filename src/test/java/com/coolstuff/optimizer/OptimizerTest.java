@@ -0,0 +1,187 @@
+package com.coolstuff.optimizer;
+
+import com.coolstuff.ast.Program;
+import com.coolstuff.compiler.Compiler;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import com.coolstuff.vm.VM;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class OptimizerTest {
+
+    @Test
+    public void testConstantsAreFolded() {
+        var tests = List.of(
+                List.of("60 * 60 * 24", "86400"),
+                List.of("-(2 - 7)", "5"),
+                List.of("!false", "true"),
+                List.of("!5", "false"),
+                List.of("1 < 2 == true", "true"),
+                List.of("\"foo\" + \"bar\"", "foobar"),
+                List.of("false && x", "false"),
+                List.of("true || x", "true"),
+                List.of("1 && 0", "true"),
+                List.of("true && x", "(true && x)"),
+                List.of("x + 2 * 3", "(x + 6)"),
+                List.of("if (x) { 4 / 2 } else { [1 + 1] }", "ifx 2else [2]")
+        );
+
+        for (var test : tests) {
+            Assertions.assertEquals(test.get(1), optimize(test.get(0)).string(), test.get(0));
+        }
+    }
+
+    @Test
+    public void testFailingOperationsAreKept() {
+        var tests = List.of(
+                List.of("1 / 0", "(1 / 0)"),
+                List.of("5 + true", "(5 + true)"),
+                List.of("-true", "(-true)"),
+                List.of("\"a\" == \"a\"", "(a == a)"),
+                List.of("1 == true", "(1 == true)")
+        );
+
+        for (var test : tests) {
+            Assertions.assertEquals(test.get(1), optimize(test.get(0)).string(), test.get(0));
+        }
+
+        var error = Assertions.assertThrows(EvaluationException.class, () -> new Evaluator().eval(optimize("let x = 2 * 3;\nx + 60 / (2 - 2)")));
+        Assertions.assertEquals("Error[DIVISION_BY_ZERO] at 2:8: Cannot divide by 0!", error.getRuntimeError().formatSingleLine());
+    }
+
+    @Test
+    public void testDeadCodeIsRemoved() {
+        var tests = List.of(
+                List.of("if (1 > 2) { a } else { b }", "b"),
+                List.of("let x = if (true) { 1 } else { 2 };", "let x = 1;"),
+                List.of("if (true) { let a = 1; a }", "let a = 1;a"),
+                List.of("if (false) { a }; b", "b"),
+                List.of("if (false) { a }", "iffalse a"),
+                List.of("while (false) { a }; b", "b"),
+                List.of("let f = fn() { return 1; a; b };", "let f = fn()return 1;;"),
+                List.of("while (x) { if (true) { break; } y }", "while (x) {break;}")
+        );
+
+        for (var test : tests) {
+            Assertions.assertEquals(test.get(1), optimize(test.get(0)).string(), test.get(0));
+        }
+    }
+
+    @Test
+    public void testOptimizedProgramsKeepResults() throws EvaluationException {
+        var inputs = List.of(
+                "let total = 0; let i = 0; while (i < 10) { let total = total + 60 * 60; let i = i + 1; } total",
+                "let f = fn(n) { if (1 < 2) { if (n > 3) { return n; } f(n + 1) } else { 0 } }; f(0)",
+                "let g = fn() { while (true) { if (!false) { return 7; } } }; g()",
+                "if (false) { 1 }",
+                "let x = 1; if (true) { }",
+                "let a = fn() { let y = x; return y; let x = 2; }; let x = 5; a()",
+                "-9223372036854775807 - 2"
+        );
+
+        for (var input : inputs) {
+            var program = new Parser(new Lexer(input)).parseProgram();
+            var expected = new Evaluator().eval(program).inspect();
+            var optimized = new Optimizer().optimize(program);
+            Assertions.assertEquals(expected, new Evaluator().eval(optimized).inspect(), input);
+            Assertions.assertEquals(expected, new VM(new Compiler().compile(optimized)).run().inspect(), input);
+        }
+    }
+
+    private record OptimizerTestCase(String input, String expected) {}
+
+    @Test
+    public void testDivisionByZeroIsNotFolded() {
+        assertOptimized(List.of(
+                new OptimizerTestCase("1 / 0", "(1 / 0)"),
+                new OptimizerTestCase("0 / 0", "(0 / 0)"),
+                new OptimizerTestCase("-5 / 0", "(-5 / 0)"),
+                new OptimizerTestCase("10 / (3 - 3)", "(10 / 0)"),
+                new OptimizerTestCase("2 * 3 / (1 - 1) + 1", "((6 / 0) + 1)"),
+                new OptimizerTestCase("let f = fn() { 1 / 0 }; 5", "let f = fn()(1 / 0);5"),
+                new OptimizerTestCase("12 / 4", "3")
+        ));
+    }
+
+    @Test
+    public void testIntegerOverflowWrapsAround() {
+        assertOptimized(List.of(
+                new OptimizerTestCase("9223372036854775807 + 1", "-9223372036854775808"),
+                new OptimizerTestCase("-9223372036854775807 - 2", "9223372036854775807"),
+                new OptimizerTestCase("4611686018427387904 * 2", "-9223372036854775808"),
+                new OptimizerTestCase("-(-9223372036854775807 - 1)", "-9223372036854775808"),
+                new OptimizerTestCase("(-9223372036854775807 - 1) / -1", "-9223372036854775808"),
+                new OptimizerTestCase("9223372036854775807 + 1 < 0", "true")
+        ));
+    }
+
+    @Test
+    public void testStringConcatenationIsFolded() {
+        assertOptimized(List.of(
+                new OptimizerTestCase("\"a\" + \"b\" + \"c\"", "abc"),
+                new OptimizerTestCase("\"a\" + (\"b\" + \"c\")", "abc"),
+                new OptimizerTestCase("\"\" + \"x\"", "x"),
+                new OptimizerTestCase("len(\"mon\" + \"key\")", "len(monkey)"),
+                new OptimizerTestCase("x + \"a\" + \"b\"", "((x + a) + b)"),
+                new OptimizerTestCase("\"a\" + 1", "(a + 1)"),
+                new OptimizerTestCase("\"a\" - \"b\"", "(a - b)"),
+                new OptimizerTestCase("\"a\" != \"b\"", "(a != b)")
+        ));
+    }
+
+    @Test
+    public void testIfWithNonBooleanLiteralCondition() {
+        // integers and strings are truthy, including 0 and the empty string
+        assertOptimized(List.of(
+                new OptimizerTestCase("if (1) { 10 } else { 20 }", "10"),
+                new OptimizerTestCase("if (0) { 10 } else { 20 }", "10"),
+                new OptimizerTestCase("if (\"\") { 10 } else { 20 }", "10"),
+                new OptimizerTestCase("if (2 - 2) { 10 } else { 20 }", "10"),
+                new OptimizerTestCase("let v = if (\"s\" + \"t\") { 1 } else { 2 }; v", "let v = 1;v"),
+                new OptimizerTestCase("if (5) { let a = 1; a }", "let a = 1;a"),
+                new OptimizerTestCase("if (x) { 1 } else { 2 }", "ifx 1else 2")
+        ));
+    }
+
+    @Test
+    public void testBangOnFoldedValues() {
+        assertOptimized(List.of(
+                new OptimizerTestCase("!(1 < 2)", "false"),
+                new OptimizerTestCase("!(1 == 2)", "true"),
+                new OptimizerTestCase("!!true", "true"),
+                new OptimizerTestCase("!(2 * 3)", "false"),
+                new OptimizerTestCase("!(\"a\" + \"b\")", "false"),
+                new OptimizerTestCase("!(true && false)", "true"),
+                new OptimizerTestCase("!(false || 0)", "false"),
+                new OptimizerTestCase("!(1 / 0)", "(!(1 / 0))"),
+                new OptimizerTestCase("!x", "(!x)")
+        ));
+    }
+
+    // besides the expected tree, the optimized program must produce the same result or error as the original one
+    private void assertOptimized(List<OptimizerTestCase> tests) {
+        for (var test : tests) {
+            var program = new Parser(new Lexer(test.input)).parseProgram();
+            var optimized = new Optimizer().optimize(program);
+            Assertions.assertEquals(test.expected, optimized.string(), test.input);
+            Assertions.assertEquals(run(program), run(optimized), test.input);
+        }
+    }
+
+    private String run(Program program) {
+        try {
+            return new Evaluator().eval(program).inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatSingleLine();
+        }
+    }
+
+    private Program optimize(String input) {
+        return new Optimizer().optimize(new Parser(new Lexer(input)).parseProgram());
+    }
+}
@@ -0,0 +1,169 @@
+package com.coolstuff.vm;
+
+import com.coolstuff.compiler.Compiler;
+import com.coolstuff.compiler.Instructions;
+import com.coolstuff.compiler.Opcode;
+import com.coolstuff.evaluator.EvaluationException;
+import com.coolstuff.evaluator.Evaluator;
+import com.coolstuff.lexer.Lexer;
+import com.coolstuff.parser.Parser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class VMTest {
+
+    @Test
+    public void testInstructionEncoding() {
+        var instruction = Instructions.make(Opcode.GET_OUTER, 1, 258);
+
+        Assertions.assertArrayEquals(new byte[]{Opcode.GET_OUTER, 0, 1, 1, 2}, instruction);
+        Assertions.assertEquals("0000 GET_OUTER 1 258\n", Instructions.disassemble(instruction));
+    }
+
+    @Test
+    public void testCompiledProgram() {
+        var bytecode = new Compiler().compile(new Parser(new Lexer("let x = 1; x + 2;")).parseProgram());
+
+        Assertions.assertEquals("""
+                0000 CONSTANT 0
+                0005 SET_GLOBAL 0
+                0008 POP
+                0009 GET_GLOBAL 0
+                0012 CONSTANT 1
+                0017 ADD
+                0018 RETURN_VALUE
+                """, Instructions.disassemble(bytecode.main().instructions()));
+    }
+
+    @Test
+    public void testExpressionsMatchEvaluator() {
+        assertSameResults(List.of(
+                "5 + 5 + 5 + 5 - 10",
+                "(5 + 10 * 2 + 15 / 3) * 2 + -10",
+                "1 < 2 == true",
+                "!!5",
+                "-null",
+                "false && (1 / 0 > 0)",
+                "true || (1 / 0 > 0)",
+                "1 && 0",
+                "null || false",
+                "if (false) { 10 }",
+                "if (false) {1} else if (false) {2} else if (true) {3} else {5}",
+                "\"Hello\" + \" \" + \"World\"",
+                "[1, 2 * 2, 3 + 3][1]",
+                "[1, 2, 3][3]",
+                "{\"foo\": 5}[\"foo\"]",
+                "{5: 5}[\"bar\"]",
+                "{\"b\": 1, \"a\": 2, 3: true, \"b\": 4}",
+                "let a = 5; let b = a; let c = a + b + 5; c;",
+                "let x = 1;",
+                "return 2 * 5; 9;"
+        ));
+    }
+
+    @Test
+    public void testFunctionsAndClosuresMatchEvaluator() {
+        assertSameResults(List.of(
+                "let add = fn(x, y) { x + y; }; add(5 + 5, add(5, 5));",
+                "fn(x) { x; }(5)",
+                "let newAdder = fn(x) { fn(y) { x + y } }; let addTwo = newAdder(2); addTwo(2);",
+                "let f = fn() { return 1; }; f() + 1",
+                "let fib = fn(n) { if (n < 2) { return n; } fib(n - 1) + fib(n - 2) }; fib(15)",
+                "let counter = fn() { let x = 1; let get = fn() { x }; let x = 2; get() }; counter()",
+                "let x = 10; let f = fn() { let y = x; let x = 1; y + x }; f()",
+                "let f = fn() { let go = fn(n) { if (n == 0) { return 0; } go(n - 1) }; go(5) }; f()",
+                "let twice = fn(x, x) { x }; twice(1, 2)",
+                "let len = fn(x) { 42 }; len(\"abc\")",
+                "fn(x){ x + 2; }",
+                "let map = fn(arr, f) { let iter = fn(arr, acc) { if (len(arr) == 0) { acc } else { iter(rest(arr), push(acc, f(first(arr)))) } }; iter(arr, []) }; map([1, 2, 3], fn(x) { x * 2 })",
+                "let xs = [3, 1, 2]; [map(xs, fn(x) { x * x }), filter(xs, fn(x) { x > 1 }), reduce(xs, 0, fn(a, x) { a + x }), sortBy(xs, fn(x) { -x }), sort(map(xs, len))]",
+                "let r = range(10, 0, -2); [len(r), r[1], r[9], first(rest(r)), map(r, fn(x) { x / 2 }), filter(range(20), fn(x) { x > 16 }), r]",
+                "let f = fn(x) { x + true }; let g = fn(xs) { map(xs, f) }; g([1])"
+        ));
+    }
+
+    @Test
+    public void testLoopsMatchEvaluator() {
+        assertSameResults(List.of(
+                "let i = 0; let sum = 0; while (i < 5) { let sum = sum + i; let i = i + 1; } sum;",
+                "let i = 0; let sum = 0; while (i < 6) { let i = i + 1; if (i == 3) { continue; } let sum = sum + i; } sum;",
+                "let i = 0; while (i < 1) { let i = i + 1; continue; }",
+                "let i = 0; while (i < 3) { let i = i + 1; }",
+                "let i = 0; while (i < 10) { let i = i + 1; if (i == 4) { break; } }",
+                "let outer = 0; while (outer < 3) { let outer = outer + 1; let inner = 0; while (inner < 10) { let inner = inner + 1; break; } } outer;",
+                "let loop = fn() { let i = 0; while (i < 5) { if (i == 3) { return i; } let i = i + 1; } return 99; }; loop();",
+                "while (true) { return 7; }"
+        ));
+    }
+
+    @Test
+    public void testTailCallsMatchEvaluator() {
+        assertSameResults(List.of(
+                "let sum = fn(n, acc) { if (n == 0) { return acc; } return sum(n - 1, acc + n); }; sum(1000000, 0)",
+                "let loop = fn(n) { while (n > 0) { if (n == 3) { return loop(0); } let n = n - 1; } n }; loop(10)",
+                "let isEven = fn(n) { if (n == 0) { true } else { isOdd(n - 1) } }; let isOdd = fn(n) { if (n == 0) { false } else { isEven(n - 1) } }; isEven(10001)",
+                "let f = fn(n) { if (n == 0) { len(1) } else { f(n - 1) } }; f(3)",
+                "let g = fn(x) { x + true }; let f = fn(n) { if (n == 0) { g(n) } else { f(n - 1) } }; f(100)",
+                "let adders = fn(n, acc) { if (n == 0) { return acc; } adders(n - 1, push(acc, fn(x) { x + n })) }; let fs = adders(3, []); fs[0](10) + fs[2](10)",
+                "let f = fn(x) { x }; let g = fn() { f(1, 2) }; g()"
+        ));
+    }
+
+    @Test
+    public void testDeepRecursionUsesHeapFrames() {
+        var recursion = "let f = fn(n) { if (n == 0) { 0 } else { 1 + f(n - 1) } };";
+
+        Assertions.assertEquals("100000", execute(recursion + "f(100000)"));
+        Assertions.assertTrue(execute(recursion + "f(2000000)").startsWith(
+                "Error[STACK_OVERFLOW] at 1:47: Maximum call depth of %d exceeded".formatted(Evaluator.DEFAULT_MAX_CALL_DEPTH)));
+    }
+
+    @Test
+    public void testRuntimeErrorsMatchEvaluator() {
+        assertSameResults(List.of(
+                "5 + true;",
+                "-true",
+                "\"Hello\" - \"World\"",
+                "foobar",
+                "let a = 5; a(1);",
+                "let a = 5; a(unknown);",
+                "{\"foo\": 5}[fn(x){x}]",
+                "{fn(x){x}: unknown}",
+                "5[unknown]",
+                "[1][\"a\"]",
+                "1 / 0",
+                "break;",
+                "continue;",
+                "let f = fn() { break; }; while (true) { f(); }",
+                "let f = fn(x) { x }; f(1, 2)",
+                "len(1)",
+                "let c = fn(x){ x + true; }; let b = fn(x){ c(x); }; let a = fn(x){ b(x); }; a(1);",
+                "let f = fn() { let y = missing; let missing = 1; y }; f()"
+        ));
+    }
+
+    private void assertSameResults(List<String> inputs) {
+        for (var input : inputs) {
+            Assertions.assertEquals(evaluate(input), execute(input), input);
+        }
+    }
+
+    private String evaluate(String input) {
+        try {
+            return new Evaluator().eval(new Parser(new Lexer(input)).parseProgram()).inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+
+    private String execute(String input) {
+        try {
+            var bytecode = new Compiler().compile(new Parser(new Lexer(input)).parseProgram());
+            return new VM(bytecode).run().inspect();
+        } catch (EvaluationException exc) {
+            return exc.getRuntimeError().formatMultiline();
+        }
+    }
+}